@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.benchmarks;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.proxy.ObjectProxy;
+import com.bigfatgun.fixjures.proxy.Proxies;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares interface fixtures backed by {@link java.lang.reflect.Proxy} against generated fixture classes, both for
+ * calling getters on an existing fixture and for creating new ones.
+ * <p/>
+ * Build with {@code mvn -Pbenchmarks package} and run with
+ * {@code java -cp <classpath> org.openjdk.jmh.Main ProxyBenchmark}.
+ *
+ * @author Steve Reed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyBenchmark {
+
+	public static interface Person {
+		String getName();
+
+		int getAge();
+
+		long getId();
+
+		boolean isActive();
+
+		double getScore();
+	}
+
+	@Param({ "reflective", "generated" })
+	public String proxyType;
+
+	private ImmutableSet<Fixjure.Option> options;
+	private Person person;
+
+	@Setup
+	public void setUp() {
+		options = "generated".equals(proxyType)
+				? ImmutableSet.of(Fixjure.Option.GENERATED_PROXIES)
+				: ImmutableSet.<Fixjure.Option>of();
+		person = newPerson().get();
+	}
+
+	private ObjectProxy<Person> newPerson() {
+		final ObjectProxy<Person> proxy = Proxies.newProxy(Person.class, options);
+		proxy.addValueStub("getName", Suppliers.ofInstance("Steve"));
+		proxy.addValueStub("getAge", Suppliers.ofInstance(33));
+		proxy.addValueStub("getId", Suppliers.ofInstance(42L));
+		proxy.addValueStub("isActive", Suppliers.ofInstance(true));
+		proxy.addValueStub("getScore", Suppliers.ofInstance(2.5));
+		return proxy;
+	}
+
+	@Benchmark
+	public void getters(final Blackhole blackhole) {
+		blackhole.consume(person.getName());
+		blackhole.consume(person.getAge());
+		blackhole.consume(person.getId());
+		blackhole.consume(person.isActive());
+		blackhole.consume(person.getScore());
+	}
+
+	@Benchmark
+	public Person create() {
+		return newPerson().get();
+	}
+}
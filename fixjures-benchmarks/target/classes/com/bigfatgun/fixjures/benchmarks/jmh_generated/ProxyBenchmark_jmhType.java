@@ -0,0 +1,4 @@
+package com.bigfatgun.fixjures.benchmarks.jmh_generated;
+public class ProxyBenchmark_jmhType extends ProxyBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures;
+
+import com.google.common.base.Function;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.MapMaker;
+
+import java.util.Map;
+
+/**
+ * A computing cache of values derived from classes, such as their reflective members.
+ * <p/>
+ * Such values almost always reference their class, through a {@code Method}, {@code Field} or {@code Constructor} for
+ * instance, so weak keys alone would never let an entry go. Values of classes loaded by fixjures' own class loader or
+ * one of its ancestors, which cannot be unloaded before fixjures itself, are held strongly. Values of classes from
+ * any other loader, such as a redeployed application's or an isolated test's, are held softly, so those classes and
+ * their loaders can be collected once the cache is all that still refers to them.
+ *
+ * @param <V> value type
+ * @author Steve Reed
+ */
+public final class ClassCache<V> {
+
+	private static final ClassLoader OWN_LOADER = ClassCache.class.getClassLoader();
+
+	/**
+	 * Creates a cache that computes missing values with the given function.
+	 *
+	 * @param computation computes the value of a class, not null
+	 * @param <V> value type
+	 * @return new cache
+	 */
+	public static <V> ClassCache<V> of(final Function<? super Class<?>, ? extends V> computation) {
+		return new ClassCache<V>(computation);
+	}
+
+	private final Map<Class<?>, V> pinned;
+	private final Map<Class<?>, V> collectable;
+
+	private ClassCache(final Function<? super Class<?>, ? extends V> computation) {
+		checkNotNull(computation);
+		final Function<Class<?>, V> function = new Function<Class<?>, V>() {
+			public V apply(final Class<?> cls) {
+				return computation.apply(cls);
+			}
+		};
+		this.pinned = new MapMaker().makeComputingMap(function);
+		this.collectable = new MapMaker().weakKeys().softValues().makeComputingMap(function);
+	}
+
+	/**
+	 * Returns the value of a class, computing it if it is not cached.
+	 *
+	 * @param cls class, not null
+	 * @return value
+	 */
+	public V get(final Class<?> cls) {
+		checkNotNull(cls);
+		return isPinned(cls) ? pinned.get(cls) : collectable.get(cls);
+	}
+
+	/**
+	 * Returns true if the class cannot outlive fixjures, because it was loaded by fixjures' loader or one of its
+	 * ancestors.
+	 *
+	 * @param cls class
+	 * @return true if the class's values can be held strongly
+	 */
+	static boolean isPinned(final Class<?> cls) {
+		final ClassLoader loader = cls.getClassLoader();
+		if (loader == null) {
+			return true;
+		}
+		for (ClassLoader ancestor = OWN_LOADER; ancestor != null; ancestor = ancestor.getParent()) {
+			if (ancestor == loader) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
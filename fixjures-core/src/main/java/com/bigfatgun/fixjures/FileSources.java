@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.io.Closeables;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Opens fixture source files. Files at least {@link #getMmapThreshold() the mmap threshold} in size are mapped into
+ * memory with {@code FileChannel.map}, so fixture files read again and again across test runs are served from the
+ * operating system's page cache rather than copied through heap buffers. Smaller files are read through their file
+ * channel as before.
+ * <p/>
+ * Readers and streams created by {@link #newReader} and {@link #newInputStream} decode or read straight from the mapped
+ * buffer of a mapped channel instead of pulling its bytes through {@code Channels}.
+ * <p/>
+ * The threshold defaults to 64KB and can be changed with the {@value #MMAP_THRESHOLD_PROPERTY} system property or
+ * {@link #setMmapThreshold(long)}.
+ *
+ * @author Steve Reed
+ */
+public final class FileSources {
+
+	/** System property holding the initial mmap threshold in bytes. */
+	public static final String MMAP_THRESHOLD_PROPERTY = "fixjures.mmapThreshold";
+
+	private static final long DEFAULT_MMAP_THRESHOLD = 64 * 1024;
+
+	private static volatile long mmapThreshold = Long.getLong(MMAP_THRESHOLD_PROPERTY, DEFAULT_MMAP_THRESHOLD);
+
+	/**
+	 * @return size in bytes at which files are memory mapped
+	 */
+	public static long getMmapThreshold() {
+		return mmapThreshold;
+	}
+
+	/**
+	 * Sets the size in bytes at which files opened afterwards are memory mapped. Use {@code 0} to map every file, or
+	 * {@code Long.MAX_VALUE} to never map files.
+	 *
+	 * @param threshold size in bytes, not negative
+	 */
+	public static void setMmapThreshold(final long threshold) {
+		checkArgument(threshold >= 0, "Threshold cannot be negative.");
+		mmapThreshold = threshold;
+	}
+
+	/**
+	 * Opens a file for reading, mapping it into memory if it is at least as large as the mmap threshold. Files that
+	 * cannot be mapped, including those over 2GB, are read through their file channel.
+	 *
+	 * @param file file to open
+	 * @return source data channel
+	 * @throws FileNotFoundException if the file cannot be opened
+	 */
+	public static ReadableByteChannel open(final File file) throws FileNotFoundException {
+		checkNotNull(file);
+
+		final FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+		try {
+			final long size = channel.size();
+			if (size >= mmapThreshold && size <= Integer.MAX_VALUE) {
+				final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				// the mapping stays valid once the channel is closed
+				Closeables.closeQuietly(channel);
+				return new MappedChannel(buffer);
+			}
+		} catch (IOException e) {
+			// mapping is only an optimization, fall back to reading the channel
+		}
+		return channel;
+	}
+
+	/**
+	 * Returns true if the channel was memory mapped by {@link #open(File)}.
+	 *
+	 * @param channel source data channel
+	 * @return true if mapped
+	 */
+	public static boolean isMapped(final ReadableByteChannel channel) {
+		return channel instanceof MappedChannel;
+	}
+
+	/**
+	 * Creates the decoder fixture sources read text with. Malformed input and unmappable characters are replaced, as
+	 * {@code Channels.newReader(channel, charsetName)} does, rather than failing the read.
+	 *
+	 * @param charset source charset
+	 * @return new decoder
+	 */
+	public static CharsetDecoder newDecoder(final Charset charset) {
+		return charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * Creates a reader that decodes a channel. Mapped channels are decoded directly from their buffer, other channels
+	 * with {@code Channels.newReader}.
+	 *
+	 * @param channel source data channel
+	 * @param decoder charset decoder
+	 * @param minBufferCapacity minimum buffer capacity for unmapped channels, or {@code -1} for the default
+	 * @return new reader; closing it closes the channel
+	 */
+	public static Reader newReader(final ReadableByteChannel channel, final CharsetDecoder decoder, final int minBufferCapacity) {
+		checkNotNull(channel);
+		checkNotNull(decoder);
+
+		if (channel instanceof MappedChannel) {
+			return new MappedReader((MappedChannel) channel, decoder);
+		}
+		return Channels.newReader(channel, decoder, minBufferCapacity);
+	}
+
+	/**
+	 * Creates an input stream over a channel. Mapped channels are read directly from their buffer, other channels with
+	 * {@code Channels.newInputStream}.
+	 *
+	 * @param channel source data channel
+	 * @return new input stream; closing it closes the channel
+	 */
+	public static InputStream newInputStream(final ReadableByteChannel channel) {
+		checkNotNull(channel);
+
+		if (channel instanceof MappedChannel) {
+			return new MappedInputStream((MappedChannel) channel);
+		}
+		return Channels.newInputStream(channel);
+	}
+
+	/**
+	 * A channel over a mapped file. The mapping is released when the buffer is garbage collected.
+	 */
+	private static final class MappedChannel implements ReadableByteChannel {
+
+		private final ByteBuffer buffer;
+		private volatile boolean open = true;
+
+		private MappedChannel(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		public synchronized int read(final ByteBuffer dst) throws IOException {
+			final ByteBuffer src = buffer();
+			if (!src.hasRemaining()) {
+				return -1;
+			}
+
+			final int count = Math.min(dst.remaining(), src.remaining());
+			final ByteBuffer slice = src.duplicate();
+			slice.limit(slice.position() + count);
+			dst.put(slice);
+			src.position(slice.position());
+			return count;
+		}
+
+		public boolean isOpen() {
+			return open;
+		}
+
+		public void close() {
+			open = false;
+		}
+
+		private ByteBuffer buffer() throws ClosedChannelException {
+			if (!open) {
+				throw new ClosedChannelException();
+			}
+			return buffer;
+		}
+	}
+
+	/**
+	 * Decodes the buffer of a mapped channel straight into the caller's character array.
+	 */
+	private static final class MappedReader extends Reader {
+
+		private final MappedChannel channel;
+		private final CharsetDecoder decoder;
+		private boolean endOfInput = false;
+		private boolean flushed = false;
+
+		private MappedReader(final MappedChannel channel, final CharsetDecoder decoder) {
+			super(channel);
+			this.channel = channel;
+			this.decoder = decoder.reset();
+		}
+
+		@Override
+		public int read(final char[] cbuf, final int off, final int len) throws IOException {
+			synchronized (lock) {
+				if (len == 0) {
+					return 0;
+				}
+
+				final CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+				if (!endOfInput) {
+					final CoderResult result = decoder.decode(channel.buffer(), out, true);
+					if (result.isError()) {
+						result.throwException();
+					}
+					endOfInput = result.isUnderflow();
+				}
+				if (endOfInput && !flushed) {
+					flushed = decoder.flush(out).isUnderflow();
+				}
+
+				final int count = out.position() - off;
+				return (count == 0 && flushed) ? -1 : count;
+			}
+		}
+
+		@Override
+		public void close() {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Reads the buffer of a mapped channel.
+	 */
+	private static final class MappedInputStream extends InputStream {
+
+		private final MappedChannel channel;
+
+		private MappedInputStream(final MappedChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public int read() throws IOException {
+			synchronized (channel) {
+				final ByteBuffer src = channel.buffer();
+				return src.hasRemaining() ? src.get() & 0xff : -1;
+			}
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			synchronized (channel) {
+				final ByteBuffer src = channel.buffer();
+				if (len == 0) {
+					return 0;
+				} else if (!src.hasRemaining()) {
+					return -1;
+				}
+
+				final int count = Math.min(len, src.remaining());
+				src.get(b, off, count);
+				return count;
+			}
+		}
+
+		@Override
+		public int available() throws IOException {
+			synchronized (channel) {
+				return channel.buffer().remaining();
+			}
+		}
+
+		@Override
+		public void close() {
+			channel.close();
+		}
+	}
+
+	private FileSources() {}
+}
@@ -48,7 +48,29 @@ public final class Fixjure {
 		/** Return null from interface proxies when property is not mapped. */
 		NULL_ON_UNMAPPED,
 		/** Map method names literally. */
-		LITERAL_MAPPING
+		LITERAL_MAPPING,
+		/** Build lists, sets and multisets as Guava immutable collections, which cannot contain nulls. */
+		IMMUTABLE_COLLECTIONS,
+		/** Match enum constant names ignoring case when there is no exact match. */
+		CASE_INSENSITIVE_CONSTANTS,
+		/** Map integer numbers to enum constants by ordinal; other numbers are rejected. */
+		ORDINAL_CONSTANTS,
+		/** Map unknown enum constant names and ordinals to null instead of failing. */
+		NULL_ON_UNKNOWN_CONSTANT,
+		/** Implement public interfaces with generated classes instead of reflective proxies, unless references are lazy. */
+		GENERATED_PROXIES,
+		/**
+		 * Give interface fixtures equals and hashCode over their values; the hash and toString are computed once, on first
+		 * use. Such fixtures are always reflective proxies.
+		 */
+		VALUE_SEMANTICS,
+		/** Populate concrete classes by setting the fields behind their getters, including final fields, not by calling setters. */
+		FIELD_INJECTION,
+		/**
+		 * Create concrete classes through their constructor annotated with {@link java.beans.ConstructorProperties}, binding
+		 * source keys to its parameters by name.
+		 */
+		CONSTRUCTOR_BINDING
 	}
 
 	private static final Logger LOGGER = Logger.getLogger("com.bigfatgun.fixjures");
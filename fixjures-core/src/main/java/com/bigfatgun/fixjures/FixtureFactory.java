@@ -79,7 +79,10 @@ public final class FixtureFactory implements IdentityResolver {
 	private final SourceFactory srcFactory;
 	private final Set<Fixjure.Option> options;
 	private final Set<Unmarshaller<?>> handlers;
+	private volatile UnmarshallerRegistry registry;
 	private final ConcurrentMap<Class<?>, ConcurrentMap<String, Object>> objectCache;
+	private final ConcurrentMap<Class<?>, ConcurrentMap<String, LazyReference.Generation>> referenceGenerations;
+	private final FixtureSource.ReferenceGenerations generationLookup;
 
 	/**
 	 * Creates a new fixture factory and initializes the fixture object compute map.
@@ -92,6 +95,21 @@ public final class FixtureFactory implements IdentityResolver {
 		srcFactory = sourceFactory;
 		options = EnumSet.noneOf(Fixjure.Option.class);
 		handlers = Sets.newHashSet();
+		registry = UnmarshallerRegistry.defaults();
+		referenceGenerations = new MapMaker()
+				.makeComputingMap(new Function<Class<?>, ConcurrentMap<String, LazyReference.Generation>>() {
+					public ConcurrentMap<String, LazyReference.Generation> apply(final Class<?> type) {
+						return new MapMaker().weakValues().makeMap();
+					}
+				});
+		generationLookup = new FixtureSource.ReferenceGenerations() {
+			public LazyReference.Generation generationOf(final Class<?> type, final String id) {
+				final ConcurrentMap<String, LazyReference.Generation> generations = referenceGenerations.get(type);
+				final LazyReference.Generation generation = new LazyReference.Generation();
+				final LazyReference.Generation existing = generations.putIfAbsent(id, generation);
+				return (existing == null) ? generation : existing;
+			}
+		};
 
 		objectCache = new MapMaker()
 				.makeComputingMap(new Function<Class<?>, ConcurrentMap<String, Object>>() {
@@ -104,10 +122,10 @@ public final class FixtureFactory implements IdentityResolver {
                                     public Object apply(final String name) {
                                         checkNotNull(name);
 
-                                        Fixjure.SourcedFixtureBuilder<?> fixtureBuilder = Fixjure.of(type).from(srcFactory.newInstance(type, name)).withOptions(ImmutableSet.copyOf(options));
-                                        for (final Unmarshaller<?> handler : handlers) {
-                                            fixtureBuilder = fixtureBuilder.with(handler);
-                                        }
+                                        final FixtureSource source = srcFactory.newInstance(type, name);
+                                        source.setRegistry(registry);
+                                        source.setReferenceGenerations(generationLookup);
+                                        Fixjure.SourcedFixtureBuilder<?> fixtureBuilder = Fixjure.of(type).from(source).withOptions(ImmutableSet.copyOf(options));
                                         fixtureBuilder = fixtureBuilder.resolveIdsWith(FixtureFactory.this);
                                         return fixtureBuilder.create();
                                     }
@@ -172,14 +190,17 @@ public final class FixtureFactory implements IdentityResolver {
     }
 
 	/**
-	 * Adds a fixture handler that will be passed into every fixture builder created by this factory.
+	 * Adds a fixture handler that will be passed into every fixture builder created by this factory. All fixture sources
+	 * created by this factory share one handler registry, and with it the unmarshalling plans compiled for each type.
 	 *
 	 * @param handler handler to add, not null
 	 * @return this
 	 */
 	public FixtureFactory addFixtureHandler(final Unmarshaller<?> handler) {
         checkNotNull(handler);
-        handlers.add(handler);
+        if (handlers.add(handler)) {
+            registry = registry.with(handler);
+        }
         return this;
     }
 
@@ -191,7 +212,13 @@ public final class FixtureFactory implements IdentityResolver {
 	 */
 	public FixtureFactory removeFixtureHandler(final Unmarshaller<?> handler) {
         checkNotNull(handler);
-        handlers.remove(handler);
+        if (handlers.remove(handler)) {
+            UnmarshallerRegistry rebuilt = UnmarshallerRegistry.defaults();
+            for (final Unmarshaller<?> remaining : handlers) {
+                rebuilt = rebuilt.with(remaining);
+            }
+            registry = rebuilt;
+        }
         return this;
     }
 
@@ -218,18 +245,62 @@ public final class FixtureFactory implements IdentityResolver {
         }
     }
 
-	/** Clears the fixture object cache. */
+	/**
+	 * Clears the fixture object cache. References between fixtures that were resolved through this factory are resolved
+	 * again the next time they are read.
+	 */
 	public void expireCache() {
 		objectCache.clear();
+		for (final ConcurrentMap<String, LazyReference.Generation> generations : referenceGenerations.values()) {
+			for (final LazyReference.Generation generation : generations.values()) {
+				generation.advance();
+			}
+		}
 	}
 
+	/**
+	 * Removes a fixture object from the cache. References to it that were resolved through this factory, and lazy values
+	 * computed from them, are resolved again the next time they are read.
+	 *
+	 * @param cls fixture object type
+	 * @param identifier fixture object name or id
+	 * @return the removed object, or null if none was cached
+	 */
 	@SuppressWarnings({"unchecked"})
 	public <T> T uncache(final Class<T> cls, final String identifier) {
-		return (T) objectCache.get(cls).remove(identifier);
+		final T removed = (T) objectCache.get(cls).remove(identifier);
+		advanceGeneration(cls, identifier);
+		return removed;
 	}
 
+	/**
+	 * Puts a fixture object in the cache, replacing any object cached under the same name. References to the name that
+	 * were resolved through this factory, and lazy values computed from them, are resolved again the next time they are
+	 * read.
+	 *
+	 * @param cls fixture object type
+	 * @param object fixture object
+	 * @param identifier fixture object name or id
+	 * @return the replaced object, or null if none was cached
+	 */
 	@SuppressWarnings({"unchecked"})
 	public <T> T cache(final Class<T> cls, final T object, final String identifier) {
-		return (T) objectCache.get(cls).put(identifier, object);
+		final T replaced = (T) objectCache.get(cls).put(identifier, object);
+		advanceGeneration(cls, identifier);
+		return replaced;
+	}
+
+	/**
+	 * Advances the generation of references to the given fixture, if any reference still depends on it. Generations are
+	 * held weakly, by the lazy references tied to them, so a fixture nobody refers to has no generation to advance.
+	 *
+	 * @param cls fixture object type
+	 * @param identifier fixture object name or id
+	 */
+	private void advanceGeneration(final Class<?> cls, final String identifier) {
+		final LazyReference.Generation generation = referenceGenerations.get(cls).get(identifier);
+		if (generation != null) {
+			generation.advance();
+		}
 	}
 }
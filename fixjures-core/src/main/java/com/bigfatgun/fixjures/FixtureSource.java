@@ -16,70 +16,96 @@
 
 package com.bigfatgun.fixjures;
 
-import com.bigfatgun.fixjures.handlers.AbstractUnmarshaller;
-import com.bigfatgun.fixjures.handlers.ChainedUnmarshaller;
-import com.bigfatgun.fixjures.handlers.NoConversionUnmarshaller;
-import com.bigfatgun.fixjures.handlers.PrimitiveUnmarshaller;
+import com.bigfatgun.fixjures.handlers.EagerUnmarshaller;
+import com.bigfatgun.fixjures.handlers.SourceContext;
+import com.bigfatgun.fixjures.handlers.TokenUnmarshaller;
 import com.bigfatgun.fixjures.handlers.Unmarshaller;
-import com.bigfatgun.fixjures.handlers.Unmarshallers;
 import com.bigfatgun.fixjures.handlers.UnmarshallingContext;
-import com.bigfatgun.fixjures.proxy.ObjectProxyData;
+import com.bigfatgun.fixjures.handlers.UnmarshallingPlan;
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Abstract fixture source.
  *
  * @author Steve Reed
  */
-public abstract class FixtureSource implements Closeable, UnmarshallingContext {
-
-	private static final ImmutableSet<Class<?>> NUMERIC_TYPES = ImmutableSet.<Class<?>>of(
-			Byte.class,
-			Byte.TYPE,
-			Short.class,
-			Short.TYPE,
-			Integer.class,
-			Integer.TYPE,
-			Long.class,
-			Long.TYPE,
-			Float.class,
-			Float.TYPE,
-			Double.class,
-			Double.TYPE
-	);
+public abstract class FixtureSource implements Closeable, SourceContext {
 
 	private static final ImmutableSet<Fixjure.Option> DEFAULT_OPTIONS = ImmutableSet.of();
 
-	private final Multimap<Class<?>, Unmarshaller<?>> typeHandlers;
+	/** Key of the unmarshaller resolution cache, the raw value class (null for null values) and the desired type. */
+	private static final class ResolutionKey {
+
+		private final Class<?> sourceType;
+		private final FixtureType type;
+
+		private ResolutionKey(final Object source, final FixtureType type) {
+			this.sourceType = (source == null) ? null : source.getClass();
+			this.type = type;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (obj instanceof ResolutionKey) {
+				final ResolutionKey other = (ResolutionKey) obj;
+				return sourceType == other.sourceType && type.equals(other.type);
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(sourceType) + type.hashCode();
+		}
+	}
+
+	/** Supplies the generation that invalidates the lazy references to an identified object. */
+	interface ReferenceGenerations {
+
+		/**
+		 * @param type object type
+		 * @param id object id
+		 * @return generation of the references to the object, not null
+		 */
+		LazyReference.Generation generationOf(Class<?> type, String id);
+	}
+
 	private final ReadableByteChannel sourceChannel;
 	private final Set<Fixjure.Option> options;
+	private final ConcurrentMap<ResolutionKey, UnmarshallerRegistry.Resolution> resolvedHandlers;
+	private final AtomicLong resolutionHits;
+	private final AtomicLong resolutionMisses;
 
+	private volatile UnmarshallerRegistry registry;
+	private ImmutableSet<Fixjure.Option> optionSnapshot = DEFAULT_OPTIONS;
 	private Charset preferredCharset = null;
 	private IdentityResolver identityResolver = null;
+	private ReferenceGenerations referenceGenerations = null;
 
 	protected FixtureSource(final ReadableByteChannel source) {
 		sourceChannel = Preconditions.checkNotNull(source);
-		typeHandlers = LinkedListMultimap.create();
-		installDefaultHandlers();
+		registry = UnmarshallerRegistry.defaults();
+		resolvedHandlers = Maps.newConcurrentMap();
+		resolutionHits = new AtomicLong();
+		resolutionMisses = new AtomicLong();
 		options = Sets.newEnumSet(DEFAULT_OPTIONS, Fixjure.Option.class);
 	}
 
@@ -92,7 +118,9 @@ public abstract class FixtureSource implements Closeable, UnmarshallingContext {
 
 	public final void addOption(final Fixjure.Option opt) {
 		checkNotNull(opt);
-		options.add(opt);
+		if (options.add(opt)) {
+			optionSnapshot = ImmutableSet.copyOf(options);
+		}
 	}
 
 	public final void withCharset(final String charset) {
@@ -104,7 +132,7 @@ public abstract class FixtureSource implements Closeable, UnmarshallingContext {
 	}
 
 	public final ImmutableSet<Fixjure.Option> getOptions() {
-		return ImmutableSet.copyOf(options);
+		return optionSnapshot;
 	}
 
 	protected abstract Object createFixture(final FixtureType type);
@@ -113,6 +141,26 @@ public abstract class FixtureSource implements Closeable, UnmarshallingContext {
 		this.identityResolver = resolver;
 	}
 
+	/**
+	 * Ties the identity references created by this source to generations owned elsewhere, such as by a {@link
+	 * FixtureFactory} that invalidates the references to a fixture when its cache entry changes.
+	 *
+	 * @param generations reference generations, not null
+	 */
+	void setReferenceGenerations(final ReferenceGenerations generations) {
+		this.referenceGenerations = checkNotNull(generations);
+	}
+
+	/**
+	 * Replaces this source's handlers with a registry prepared elsewhere, such as one shared by a {@link FixtureFactory}.
+	 *
+	 * @param handlerRegistry handler registry, not null
+	 */
+	void setRegistry(final UnmarshallerRegistry handlerRegistry) {
+		this.registry = checkNotNull(handlerRegistry);
+		resolvedHandlers.clear();
+	}
+
 	private boolean canHandleIdentity(final Class<?> type, final Object rawIdentityValue) {
 		assert type !=  null : "Type cannot be null!";
 
@@ -121,19 +169,37 @@ public abstract class FixtureSource implements Closeable, UnmarshallingContext {
 				&& identityResolver.canHandleIdentity(type, rawIdentityValue);
 	}
 
-	private <T> Supplier<T> resolveIdentity(final Class<T> type, final Object rawIdentityValue) {
+	public final <T> Supplier<T> resolveIdentity(final Class<T> type, final Object rawIdentityValue) {
 		assert type != null : "Type cannot be null!";
 
 		if (canHandleIdentity(type, rawIdentityValue)) {
 			assert identityResolver != null : "Don't attempt to resolve an id if the resolver is null!";
-			return Resolvers.ofIdentity(identityResolver, type, rawIdentityValue);
+			if (referenceGenerations == null) {
+				return Resolvers.ofIdentity(identityResolver, type, rawIdentityValue);
+			}
+			final LazyReference.Generation generation = referenceGenerations.generationOf(type, identityResolver.coerceIdentity(rawIdentityValue));
+			return Resolvers.ofIdentity(identityResolver, type, rawIdentityValue, generation);
 		} else {
 			return null;
 		}
 	}
 
+	/**
+	 * Returns false, so object data is copied before it is proxied. Sources whose parser builds a fresh tree that nothing
+	 * else holds should return true.
+	 * <p/>
+	 * {@inheritDoc}
+	 */
+	public boolean isSourceDataImmutable() {
+		return false;
+	}
+
+	public final <T> Supplier<T> newLazyReference(final Supplier<? extends T> computation) {
+		return LazyReference.of(computation);
+	}
+
 	protected final ImmutableMultimap<Class<?>, Unmarshaller<?>> getTypeHandlers() {
-		return ImmutableMultimap.copyOf(typeHandlers);
+		return registry.getHandlers();
 	}
 
 	protected final ReadableByteChannel getSource() {
@@ -146,12 +212,29 @@ public abstract class FixtureSource implements Closeable, UnmarshallingContext {
                 : Charsets.UTF_8;
 	}
 
+	/**
+	 * Installs a type handler on top of the shared default handlers, invalidating any unmarshaller resolutions cached so
+	 * far.
+	 *
+	 * @param handler handler to install
+	 */
 	protected final void installTypeHandler(final Unmarshaller<?> handler) {
-		typeHandlers.put(handler.getReturnType(), handler);
-		if (handler instanceof PrimitiveUnmarshaller) {
-			final PrimitiveUnmarshaller primitiveUnmarshaller = (PrimitiveUnmarshaller) handler;
-			typeHandlers.put(primitiveUnmarshaller.getPrimitiveType(), handler);
-		}
+		registry = registry.with(handler);
+		resolvedHandlers.clear();
+	}
+
+	/**
+	 * @return number of unmarshaller lookups answered by the resolution cache
+	 */
+	public final long getResolutionCacheHits() {
+		return resolutionHits.get();
+	}
+
+	/**
+	 * @return number of unmarshaller lookups that had to search the installed handlers
+	 */
+	public final long getResolutionCacheMisses() {
+		return resolutionMisses.get();
 	}
 
 	public final Supplier<?> unmarshall(final Object rawValue, final FixtureType type) {
@@ -159,49 +242,67 @@ public abstract class FixtureSource implements Closeable, UnmarshallingContext {
 		return unmarshaller.unmarshall(this, rawValue, type);
 	}
 
-	/** {@inheritDoc} */
-	@SuppressWarnings({"unchecked"})
-	protected final Unmarshaller<?> findUnmarshaller(final Object src, final FixtureType type) {
-		final Class<?> cls = type.getType();
-
-		assert cls != null : "Type class cannot be null.";
-
-		if (type.getParams().isEmpty() && cls.isInstance(src)) {
-			return NoConversionUnmarshaller.newInstance(cls);
-		}
-
-		for (final Unmarshaller<?> handler : getUnmarshallerCandidates(cls)) {
-			if (handler.canUnmarshallObjectToType(src, type)) {
-				return handler;
+	public final Object unmarshallValue(final Object rawValue, final FixtureType type) {
+		final Unmarshaller<?> unmarshaller = findUnmarshaller(rawValue, type);
+		if (unmarshaller instanceof EagerUnmarshaller) {
+			final Object value = ((EagerUnmarshaller<?>) unmarshaller).unmarshallValue(this, rawValue, type);
+			if (value != null) {
+				return value;
 			}
 		}
 
-		return new AbstractUnmarshaller(Object.class, cls) {
-			public Supplier<?> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-				return resolveIdentity(cls, src);
-			}
-		};
+		final Supplier<?> supplier = unmarshaller.unmarshall(this, rawValue, type);
+		if (supplier == null) {
+			throw new FixtureException(String.format("Cannot unmarshall %s to %s.", rawValue, type));
+		}
+		return supplier.get();
 	}
 
-	private Iterable<Unmarshaller<?>> getUnmarshallerCandidates(final Class<?> cls) {
-		assert cls != null : "Class cannot be null.";
+	/**
+	 * Finds the unmarshaller for a raw value and desired type. Resolutions are cached by raw value class and type unless
+	 * a handler installed on this source took part in them, see {@link UnmarshallerRegistry}.
+	 *
+	 * @param src raw value
+	 * @param type desired type
+	 * @return unmarshaller
+	 */
+	public final Unmarshaller<?> findUnmarshaller(final Object src, final FixtureType type) {
+		return resolve(src, type).getUnmarshaller();
+	}
 
-		final ImmutableList.Builder<Unmarshaller<?>> candidateBuilder = ImmutableList.builder();
+	public final Unmarshaller<?> findUnmarshallerByClass(final Object src, final FixtureType type) {
+		final UnmarshallerRegistry.Resolution resolution = resolve(src, type);
+		return resolution.isCacheable() ? resolution.getUnmarshaller() : null;
+	}
 
-		for (Class<?> keyClass = cls; keyClass != null; keyClass = keyClass.getSuperclass()) {
-			candidateBuilder.addAll(getTypeHandlers().get(keyClass));
+	private UnmarshallerRegistry.Resolution resolve(final Object src, final FixtureType type) {
+		final ResolutionKey key = new ResolutionKey(src, type);
+		final UnmarshallerRegistry.Resolution cached = resolvedHandlers.get(key);
+		if (cached != null) {
+			resolutionHits.incrementAndGet();
+			return cached;
 		}
 
-		candidateBuilder.addAll(getTypeHandlers().get(Object.class));
-
-		if (cls.isArray()) {
-			candidateBuilder.addAll(getTypeHandlers().get(Object[].class));
+		resolutionMisses.incrementAndGet();
+		final UnmarshallerRegistry.Resolution resolution = registry.resolve(src, type);
+		if (resolution.isCacheable()) {
+			resolvedHandlers.put(key, resolution);
 		}
+		return resolution;
+	}
 
-		return candidateBuilder.build();
+	public final UnmarshallingPlan getPlan(final FixtureType type) {
+		return registry.planFor(type.getType(), getOptions());
+	}
+
+	public final TokenUnmarshaller newTokenUnmarshaller(final FixtureType type) {
+		return new TokenUnmarshaller(this, type);
 	}
 
 	/**
+	 * Unmarshalls a top-level value. Sources that need the value right away should prefer {@link
+	 * #unmarshallValue(Object, FixtureType)}, which skips the supplier for eager unmarshallers.
+	 *
 	 * @param type object type
 	 * @param value object value
 	 * @return proxied object
@@ -210,84 +311,4 @@ public abstract class FixtureSource implements Closeable, UnmarshallingContext {
 		final Unmarshaller<?> handler = findUnmarshaller(value, type);
 		return handler.unmarshall(this, value, type);
 	}
-
-	/** Install default fixture handlers. */
-	private void installDefaultHandlers() {
-		installTypeHandler(NoConversionUnmarshaller.newInstance(String.class));
-		installTypeHandler(NoConversionUnmarshaller.newInstance(Boolean.class));
-		installTypeHandler(NoConversionUnmarshaller.newInstance(Boolean.TYPE));
-
-		for (final Class<?> t : NUMERIC_TYPES) {
-			installTypeHandler(NoConversionUnmarshaller.newInstance(t));
-		}
-
-        final Unmarshaller<Boolean> boolHandler = Unmarshallers.boolHandler();
-		final Unmarshaller<Byte> byteHandler = Unmarshallers.byteHandler();
-		final Unmarshaller<Short> shortHandler = Unmarshallers.shortHandler();
-		final Unmarshaller<Integer> intHandler = Unmarshallers.integerHandler();
-		final Unmarshaller<Long> longHandler = Unmarshallers.longHandler();
-		final Unmarshaller<Float> floatHandler = Unmarshallers.floatHandler();
-		final Unmarshaller<Double> doubleHandler = Unmarshallers.doubleHandler();
-		final Unmarshaller<BigInteger> bigintHandler = Unmarshallers.bigIntegerHandler();
-		final Unmarshaller<BigDecimal> bigdecHandler = Unmarshallers.bigDecimalHandler();
-
-        installTypeHandler(boolHandler);
-		installTypeHandler(byteHandler);
-		installTypeHandler(shortHandler);
-		installTypeHandler(intHandler);
-		installTypeHandler(longHandler);
-		installTypeHandler(floatHandler);
-		installTypeHandler(doubleHandler);
-		installTypeHandler(bigintHandler);
-		installTypeHandler(bigdecHandler);
-		final ChainedUnmarshaller<Number> chainedHandler = new ChainedUnmarshaller<Number>(CharSequence.class, Number.class) {
-			public Supplier<? extends Number> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-				return Suppliers.ofInstance(Double.parseDouble(castSourceValue(CharSequence.class, source).toString()));
-			}
-		};
-		installTypeHandler(chainedHandler.link(byteHandler));
-		installTypeHandler(chainedHandler.link(shortHandler));
-		installTypeHandler(chainedHandler.link(intHandler));
-		installTypeHandler(chainedHandler.link(longHandler));
-		installTypeHandler(chainedHandler.link(floatHandler));
-		installTypeHandler(chainedHandler.link(doubleHandler));
-		installTypeHandler(chainedHandler.link(bigintHandler));
-		installTypeHandler(chainedHandler.link(bigdecHandler));
-
-		installTypeHandler(Unmarshallers.stringBuilderHandler());
-		installTypeHandler(Unmarshallers.javaDateHandler());
-
-		installTypeHandler(Unmarshallers.newArrayHandler());
-		installTypeHandler(Unmarshallers.newListHandler());
-		installTypeHandler(Unmarshallers.newMapHandler());
-		installTypeHandler(Unmarshallers.newMultisetHandler());
-		installTypeHandler(Unmarshallers.newSetHandler());
-		installTypeHandler(Unmarshallers.newCollectionHandler());
-		installTypeHandler(Unmarshallers.newObjectProxyHandler());
-
-		final ChainedUnmarshaller<ObjectProxyData> chainedMapHandler = new ChainedUnmarshaller<ObjectProxyData>(Map.class, ObjectProxyData.class) {
-			@Override
-			public Supplier<ObjectProxyData> unmarshall(UnmarshallingContext helper, Object source, FixtureType typeDef) {
-				return Suppliers.ofInstance(new ObjectProxyData(castSourceValue(Map.class, source)));
-			}
-		};
-
-		installTypeHandler(chainedMapHandler.link(Unmarshallers.newObjectProxyHandler()));
-
-		installTypeHandler(new AbstractUnmarshaller<String>(Object.class, String.class) {
-			@Override
-			public Supplier<String> unmarshall(UnmarshallingContext helper, Object source, FixtureType typeDef) {
-				return Suppliers.ofInstance(String.valueOf(source));
-			}
-		});
-
-        installTypeHandler(new AbstractUnmarshaller<Enum>(String.class, Enum.class) {
-            @SuppressWarnings({"unchecked"})
-            @Override
-            public Supplier<Enum> unmarshall(UnmarshallingContext ctx, Object source, FixtureType typeDef) {
-                Class<? extends Enum> enumCls = (Class<? extends Enum>) typeDef.getType();
-                return Suppliers.ofInstance(Enum.valueOf(enumCls, String.valueOf(source)));
-            }
-        });
-	}
-}
+}
\ No newline at end of file
@@ -17,12 +17,18 @@
 package com.bigfatgun.fixjures;
 
 /**
- * This is a marker interface that denotes a {@link FixtureSource} that can read in multiple objects from a stream.
- * Nothing is done about it at this point.
+ * Denotes a {@link FixtureSource} that can read in multiple objects from a stream. {@link
+ * Fixjure.StreamedFixtureBuilder#createAll()} calls the stream source's {@code createFixture} once per object, until it
+ * fails at the end of the data.
  *
  * @author Steve Reed
  */
 public interface FixtureStream {
 
+	/**
+	 * Returns the source that creates one fixture per object of the stream.
+	 *
+	 * @return stream source
+	 */
 	FixtureSource asSourceStream();
 }
@@ -16,6 +16,7 @@
 
 package com.bigfatgun.fixjures;
 
+import com.google.common.base.Objects;
 import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.collect.ImmutableList;
 import static com.google.common.collect.ImmutableList.copyOf;
@@ -66,6 +67,23 @@ public final class FixtureType implements Type {
 		return superClass == null ? null : new FixtureType(superClass, ImmutableList.<Type>of());
 	}
 
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof FixtureType) {
+			final FixtureType other = (FixtureType) obj;
+			return type.equals(other.type) && params.equals(other.params);
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(type, params);
+	}
+
 	@Override
 	public String toString() {
 		if (getParams().isEmpty()) {
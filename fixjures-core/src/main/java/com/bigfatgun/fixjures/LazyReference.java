@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A supplier that computes its value at most once, on first use, and then holds it. The computation runs under a lock
+ * so concurrent callers share a single result.
+ * <p/>
+ * A reference can be invalidated directly, or tied to a {@link Generation}; advancing the generation invalidates every
+ * reference tied to it, and each one recomputes its value the next time it is read. A value computed while reading
+ * other lazy references also depends on their generations, so it is recomputed when any of those advances. {@link
+ * FixtureFactory} keeps a generation per cached fixture, so changing one cache entry only refreshes the references that
+ * resolved it.
+ *
+ * @author Steve Reed
+ */
+public final class LazyReference<T> implements Supplier<T> {
+
+	/** A counter shared by lazy references that should be invalidated together. */
+	public static final class Generation {
+
+		private volatile long value = 0L;
+
+		/** Invalidates every reference tied to this generation. */
+		public void advance() {
+			synchronized (this) {
+				value++;
+			}
+		}
+
+		long current() {
+			return value;
+		}
+	}
+
+	/** A generation and its value when a reference started computing. */
+	private static final class Stamp {
+
+		private final Generation generation;
+		private final long value;
+
+		private Stamp(final Generation generation) {
+			this.generation = generation;
+			this.value = generation.current();
+		}
+
+		private boolean isCurrent() {
+			return generation.current() == value;
+		}
+	}
+
+	/** A computed value and the generations it depends on. */
+	private static final class Computed<T> {
+
+		private final T value;
+		private final ImmutableList<Stamp> stamps;
+
+		private Computed(final T value, final ImmutableList<Stamp> stamps) {
+			this.value = value;
+			this.stamps = stamps;
+		}
+
+		private boolean isCurrent() {
+			for (final Stamp stamp : stamps) {
+				if (!stamp.isCurrent()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/** Stamps of the references read by the computation running on this thread, if any. */
+	private static final ThreadLocal<Set<Stamp>> READS = new ThreadLocal<Set<Stamp>>();
+
+	/**
+	 * Creates a reference that is only invalidated by {@link #invalidate()}, or by the generations of the references
+	 * read while computing it.
+	 *
+	 * @param computation value computation, not null
+	 * @return new lazy reference
+	 */
+	public static <T> LazyReference<T> of(final Supplier<? extends T> computation) {
+		return new LazyReference<T>(computation, null);
+	}
+
+	/**
+	 * Creates a reference that is also invalidated whenever the given generation advances.
+	 *
+	 * @param computation value computation, not null
+	 * @param generation generation to follow, not null
+	 * @return new lazy reference
+	 */
+	public static <T> LazyReference<T> of(final Supplier<? extends T> computation, final Generation generation) {
+		return new LazyReference<T>(computation, checkNotNull(generation));
+	}
+
+	private final Supplier<? extends T> computation;
+	private final Generation generation;
+	private volatile Computed<T> computed = null;
+
+	private LazyReference(final Supplier<? extends T> computation, final Generation generation) {
+		this.computation = checkNotNull(computation);
+		this.generation = generation;
+	}
+
+	public T get() {
+		Computed<T> result = computed;
+		if (result == null || !result.isCurrent()) {
+			synchronized (this) {
+				result = computed;
+				if (result == null || !result.isCurrent()) {
+					result = compute();
+					computed = result;
+				}
+			}
+		}
+
+		final Set<Stamp> reads = READS.get();
+		if (reads != null) {
+			reads.addAll(result.stamps);
+		}
+		return result.value;
+	}
+
+	private Computed<T> compute() {
+		final Set<Stamp> outer = READS.get();
+		final Set<Stamp> reads = Sets.newLinkedHashSet();
+		if (generation != null) {
+			reads.add(new Stamp(generation));
+		}
+
+		READS.set(reads);
+		final T value;
+		try {
+			value = computation.get();
+		} finally {
+			if (outer == null) {
+				READS.remove();
+			} else {
+				READS.set(outer);
+			}
+		}
+		return new Computed<T>(value, ImmutableList.copyOf(reads));
+	}
+
+	/**
+	 * @return true if a value is held and none of the generations it depends on has advanced
+	 */
+	public boolean isComputed() {
+		final Computed<T> result = computed;
+		return result != null && result.isCurrent();
+	}
+
+	/** Discards the held value, so the next read computes it again. */
+	public void invalidate() {
+		computed = null;
+	}
+}
@@ -43,7 +43,29 @@ public final class Resolvers {
 		}
 	}
 
+	/**
+	 * Returns a supplier that resolves the identity on first use and then holds the resolved object.
+	 *
+	 * @param identityResolver resolver, not null
+	 * @param type object type, not null
+	 * @param rawIdentityValue raw identity value
+	 * @return memoized supplier of the resolved object
+	 */
 	public static <T> Supplier<T> ofIdentity(final IdentityResolver identityResolver, final Class<T> type, final Object rawIdentityValue) {
-		return new IdentityResolvingSupplier<T>(identityResolver, type, rawIdentityValue);
+		return LazyReference.of(new IdentityResolvingSupplier<T>(identityResolver, type, rawIdentityValue));
+	}
+
+	/**
+	 * Returns a supplier that resolves the identity on first use, holding the resolved object until the given generation
+	 * advances.
+	 *
+	 * @param identityResolver resolver, not null
+	 * @param type object type, not null
+	 * @param rawIdentityValue raw identity value
+	 * @param generation generation that invalidates the resolved object, not null
+	 * @return memoized supplier of the resolved object
+	 */
+	public static <T> Supplier<T> ofIdentity(final IdentityResolver identityResolver, final Class<T> type, final Object rawIdentityValue, final LazyReference.Generation generation) {
+		return LazyReference.of(new IdentityResolvingSupplier<T>(identityResolver, type, rawIdentityValue), generation);
 	}
 }
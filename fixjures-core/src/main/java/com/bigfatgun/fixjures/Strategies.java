@@ -25,7 +25,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.util.Map;
@@ -168,7 +167,8 @@ public final class Strategies {
 	}
 
 	/**
-	 * Creates a new source strategy that looks for fixture source data in a file.
+	 * Creates a new source strategy that looks for fixture source data in a file. Large files are memory mapped, see
+	 * {@link FileSources}.
 	 *
 	 * @param nameStrategy resource name strategy, must be non-null
 	 * @return new source strategy
@@ -182,7 +182,7 @@ public final class Strategies {
 				assert type != null : "Type cannot be null.";
 				assert name != null : "Name cannot be null.";
 
-				return new RandomAccessFile(new File(nameStrategy.getResourceName(type, name)), "r").getChannel();
+				return FileSources.open(new File(nameStrategy.getResourceName(type, name)));
 			}
 		};
 	}
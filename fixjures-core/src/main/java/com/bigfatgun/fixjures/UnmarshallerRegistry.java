@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bigfatgun.fixjures;
+
+import com.bigfatgun.fixjures.handlers.AbstractEagerUnmarshaller;
+import com.bigfatgun.fixjures.handlers.AbstractUnmarshaller;
+import com.bigfatgun.fixjures.handlers.NoConversionUnmarshaller;
+import com.bigfatgun.fixjures.handlers.PrimitiveUnmarshaller;
+import com.bigfatgun.fixjures.handlers.SourceContexts;
+import com.bigfatgun.fixjures.handlers.StreamingUnmarshaller;
+import com.bigfatgun.fixjures.handlers.TokenBuilder;
+import com.bigfatgun.fixjures.handlers.Unmarshaller;
+import com.bigfatgun.fixjures.handlers.Unmarshallers;
+import com.bigfatgun.fixjures.handlers.UnmarshallingContext;
+import com.bigfatgun.fixjures.handlers.UnmarshallingPlan;
+import com.bigfatgun.fixjures.proxy.ObjectProxyData;
+import com.google.common.base.Function;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable, indexed set of unmarshallers. The default registry is built once and shared by every {@link
+ * FixtureSource}; sources that install their own handlers get a copy-on-write layer on top of it via {@link
+ * #with(com.bigfatgun.fixjures.handlers.Unmarshaller)}.
+ * <p/>
+ * Handler lookups and compiled plans are memoized per class in {@link ClassCache}s, so the registry does not keep
+ * fixture classes of other class loaders alive. Sources memoize unmarshaller resolutions per raw value class and
+ * {@link FixtureType}, so the default handlers are expected to decide on the class of the source object rather than its
+ * contents. Handlers installed on top of the defaults may decide on contents; a resolution they took part in is never
+ * cached, so they are asked about every value as before.
+ *
+ * @author Steve Reed
+ */
+public final class UnmarshallerRegistry {
+
+	private static final ImmutableSet<Class<?>> NUMERIC_TYPES = ImmutableSet.<Class<?>>of(
+			Byte.class,
+			Byte.TYPE,
+			Short.class,
+			Short.TYPE,
+			Integer.class,
+			Integer.TYPE,
+			Long.class,
+			Long.TYPE,
+			Float.class,
+			Float.TYPE,
+			Double.class,
+			Double.TYPE
+	);
+
+	private static final UnmarshallerRegistry DEFAULTS = new UnmarshallerRegistry(null, createDefaultHandlers());
+
+	/** The handlers that may unmarshall to a class, in lookup order. */
+	private static final class Candidates {
+
+		private final ImmutableList<Unmarshaller<?>> handlers;
+		/** Index of the first handler installed on top of the defaults, or the size of the list if there is none. */
+		private final int firstInstalled;
+
+		private Candidates(final ImmutableList<Unmarshaller<?>> handlers, final int firstInstalled) {
+			this.handlers = handlers;
+			this.firstInstalled = firstInstalled;
+		}
+	}
+
+	/** An unmarshaller found for a raw value, and whether other values of the same class may reuse it. */
+	static final class Resolution {
+
+		private final Unmarshaller<?> unmarshaller;
+		private final boolean cacheable;
+
+		private Resolution(final Unmarshaller<?> unmarshaller, final boolean cacheable) {
+			this.unmarshaller = unmarshaller;
+			this.cacheable = cacheable;
+		}
+
+		Unmarshaller<?> getUnmarshaller() {
+			return unmarshaller;
+		}
+
+		boolean isCacheable() {
+			return cacheable;
+		}
+	}
+
+	/** Used when no handler matches; attempts to resolve the raw value as an identity through the context. */
+	private static final class IdentityUnmarshaller<T> extends AbstractUnmarshaller<T> {
+
+		private IdentityUnmarshaller(final Class<T> type) {
+			super(Object.class, type);
+		}
+
+		public Supplier<? extends T> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+			return SourceContexts.of(helper).resolveIdentity(getReturnType(), source);
+		}
+	}
+
+	/**
+	 * Creates object proxies from source maps, wrapped as {@link ObjectProxyData}. The wrapping does not change the
+	 * entries, so parsed objects are streamed straight to the object proxy handler.
+	 */
+	private static final class MapProxyUnmarshaller extends AbstractUnmarshaller<Object> implements StreamingUnmarshaller<Object> {
+
+		private final StreamingUnmarshaller<?> proxyHandler = (StreamingUnmarshaller<?>) Unmarshallers.newObjectProxyHandler();
+
+		private MapProxyUnmarshaller() {
+			super(Map.class, Object.class);
+		}
+
+		public Supplier<?> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+			final Map<?, ?> map = castSourceValue(Map.class, source);
+			final ObjectProxyData data = SourceContexts.of(helper).isSourceDataImmutable() ? ObjectProxyData.view(map) : ObjectProxyData.copyOf(map);
+			return proxyHandler.unmarshall(helper, data, typeDef);
+		}
+
+		public TokenBuilder newBuilder(final UnmarshallingContext helper, final FixtureType typeDef) {
+			return proxyHandler.newBuilder(helper, typeDef);
+		}
+	}
+
+	/**
+	 * Returns the process-wide registry of default handlers.
+	 *
+	 * @return default registry
+	 */
+	public static UnmarshallerRegistry defaults() {
+		return DEFAULTS;
+	}
+
+	private final UnmarshallerRegistry parent;
+	private final ImmutableListMultimap<Class<?>, Unmarshaller<?>> handlers;
+	private final ClassCache<Candidates> candidates;
+	private final ClassCache<ConcurrentMap<ImmutableSet<Fixjure.Option>, UnmarshallingPlan>> plans;
+
+	private UnmarshallerRegistry(final UnmarshallerRegistry parent, final ImmutableListMultimap<Class<?>, Unmarshaller<?>> handlers) {
+		this.parent = parent;
+		this.handlers = handlers;
+		this.candidates = ClassCache.of(new Function<Class<?>, Candidates>() {
+			public Candidates apply(final Class<?> cls) {
+				return findCandidates(cls);
+			}
+		});
+		this.plans = ClassCache.of(new Function<Class<?>, ConcurrentMap<ImmutableSet<Fixjure.Option>, UnmarshallingPlan>>() {
+			public ConcurrentMap<ImmutableSet<Fixjure.Option>, UnmarshallingPlan> apply(final Class<?> type) {
+				return Maps.newConcurrentMap();
+			}
+		});
+	}
+
+	/**
+	 * Returns a registry containing all of this registry's handlers plus the given one. Handlers added this way are
+	 * consulted after the default handlers registered for the same type.
+	 *
+	 * @param handler handler to add, not null
+	 * @return new registry
+	 */
+	public UnmarshallerRegistry with(final Unmarshaller<?> handler) {
+		checkNotNull(handler);
+		final ImmutableListMultimap.Builder<Class<?>, Unmarshaller<?>> builder = ImmutableListMultimap.builder();
+		builder.putAll(parent == null ? ImmutableListMultimap.<Class<?>, Unmarshaller<?>>of() : handlers);
+		putHandler(builder, handler);
+		return new UnmarshallerRegistry(parent == null ? this : parent, builder.build());
+	}
+
+	/**
+	 * Returns every handler in this registry, keyed by the type each one is registered for.
+	 *
+	 * @return handlers by type
+	 */
+	public ImmutableMultimap<Class<?>, Unmarshaller<?>> getHandlers() {
+		if (parent == null) {
+			return handlers;
+		} else {
+			return ImmutableListMultimap.<Class<?>, Unmarshaller<?>>builder().putAll(parent.handlers).putAll(handlers).build();
+		}
+	}
+
+	/**
+	 * Returns the compiled plan for an object type, compiling it on first use.
+	 *
+	 * @param type object type
+	 * @param options unmarshalling options
+	 * @return plan
+	 */
+	UnmarshallingPlan planFor(final Class<?> type, final ImmutableSet<Fixjure.Option> options) {
+		final ConcurrentMap<ImmutableSet<Fixjure.Option>, UnmarshallingPlan> byOptions = plans.get(type);
+		final UnmarshallingPlan plan = byOptions.get(options);
+		if (plan != null) {
+			return plan;
+		}
+
+		final UnmarshallingPlan compiled = UnmarshallingPlan.compile(type, options, parent == null);
+		final UnmarshallingPlan existing = byOptions.putIfAbsent(options, compiled);
+		return (existing == null) ? compiled : existing;
+	}
+
+	/**
+	 * Finds the unmarshaller for a raw value and desired type. The result may be cached by raw value class and type
+	 * unless a handler installed on top of the defaults took part in choosing it.
+	 *
+	 * @param src raw value
+	 * @param type desired type
+	 * @return resolution, never null
+	 */
+	@SuppressWarnings({"unchecked"})
+	Resolution resolve(final Object src, final FixtureType type) {
+		final Class<?> cls = type.getType();
+
+		assert cls != null : "Type class cannot be null.";
+
+		if (type.getParams().isEmpty() && cls.isInstance(src)) {
+			return new Resolution(NoConversionUnmarshaller.newInstance(cls), true);
+		}
+
+		final Candidates found = candidates.get(cls);
+		final int size = found.handlers.size();
+		for (int i = 0; i < size; i++) {
+			final Unmarshaller<?> handler = found.handlers.get(i);
+			if (handler.canUnmarshallObjectToType(src, type)) {
+				return new Resolution(handler, i < found.firstInstalled);
+			}
+		}
+
+		return new Resolution(new IdentityUnmarshaller(cls), found.firstInstalled == size);
+	}
+
+	private Candidates findCandidates(final Class<?> cls) {
+		assert cls != null : "Class cannot be null.";
+
+		final List<Unmarshaller<?>> candidateList = Lists.newArrayList();
+		int firstInstalled = -1;
+
+		final List<Class<?>> keyClasses = Lists.newArrayList();
+		for (Class<?> keyClass = cls; keyClass != null; keyClass = keyClass.getSuperclass()) {
+			keyClasses.add(keyClass);
+		}
+		keyClasses.add(Object.class);
+		if (cls.isArray()) {
+			keyClasses.add(Object[].class);
+		}
+
+		for (final Class<?> keyClass : keyClasses) {
+			if (parent != null) {
+				candidateList.addAll(parent.handlers.get(keyClass));
+				final ImmutableList<Unmarshaller<?>> installed = handlers.get(keyClass);
+				if (firstInstalled < 0 && !installed.isEmpty()) {
+					firstInstalled = candidateList.size();
+				}
+				candidateList.addAll(installed);
+			} else {
+				candidateList.addAll(handlers.get(keyClass));
+			}
+		}
+
+		return new Candidates(ImmutableList.copyOf(candidateList), firstInstalled < 0 ? candidateList.size() : firstInstalled);
+	}
+
+	private static void putHandler(final ImmutableListMultimap.Builder<Class<?>, Unmarshaller<?>> builder, final Unmarshaller<?> handler) {
+		builder.put(handler.getReturnType(), handler);
+		if (handler instanceof PrimitiveUnmarshaller) {
+			final PrimitiveUnmarshaller primitiveUnmarshaller = (PrimitiveUnmarshaller) handler;
+			builder.put(primitiveUnmarshaller.getPrimitiveType(), handler);
+		}
+	}
+
+	/**
+	 * Creates the default fixture handlers.
+	 *
+	 * @return default handlers by type
+	 */
+	private static ImmutableListMultimap<Class<?>, Unmarshaller<?>> createDefaultHandlers() {
+		final ImmutableListMultimap.Builder<Class<?>, Unmarshaller<?>> builder = ImmutableListMultimap.builder();
+
+		putHandler(builder, NoConversionUnmarshaller.newInstance(String.class));
+		putHandler(builder, NoConversionUnmarshaller.newInstance(Boolean.class));
+		putHandler(builder, NoConversionUnmarshaller.newInstance(Boolean.TYPE));
+
+		for (final Class<?> t : NUMERIC_TYPES) {
+			putHandler(builder, NoConversionUnmarshaller.newInstance(t));
+		}
+
+		putHandler(builder, Unmarshallers.boolHandler());
+		putHandler(builder, Unmarshallers.byteHandler());
+		putHandler(builder, Unmarshallers.shortHandler());
+		putHandler(builder, Unmarshallers.integerHandler());
+		putHandler(builder, Unmarshallers.longHandler());
+		putHandler(builder, Unmarshallers.floatHandler());
+		putHandler(builder, Unmarshallers.doubleHandler());
+		putHandler(builder, Unmarshallers.bigIntegerHandler());
+		putHandler(builder, Unmarshallers.bigDecimalHandler());
+
+		putHandler(builder, Unmarshallers.byteParser());
+		putHandler(builder, Unmarshallers.shortParser());
+		putHandler(builder, Unmarshallers.integerParser());
+		putHandler(builder, Unmarshallers.longParser());
+		putHandler(builder, Unmarshallers.floatParser());
+		putHandler(builder, Unmarshallers.doubleParser());
+		putHandler(builder, Unmarshallers.bigIntegerParser());
+		putHandler(builder, Unmarshallers.bigDecimalParser());
+
+		putHandler(builder, Unmarshallers.stringBuilderHandler());
+		putHandler(builder, Unmarshallers.javaDateHandler());
+		putHandler(builder, Unmarshallers.calendarHandler());
+
+		putHandler(builder, Unmarshallers.intArrayHandler());
+		putHandler(builder, Unmarshallers.longArrayHandler());
+		putHandler(builder, Unmarshallers.doubleArrayHandler());
+		putHandler(builder, Unmarshallers.floatArrayHandler());
+		putHandler(builder, Unmarshallers.shortArrayHandler());
+		putHandler(builder, Unmarshallers.byteArrayHandler());
+		putHandler(builder, Unmarshallers.newArrayHandler());
+		putHandler(builder, Unmarshallers.newListHandler());
+		putHandler(builder, Unmarshallers.newMapHandler());
+		putHandler(builder, Unmarshallers.newImmutableMapHandler());
+		putHandler(builder, Unmarshallers.newHashMapHandler());
+		putHandler(builder, Unmarshallers.newLinkedHashMapHandler());
+		putHandler(builder, Unmarshallers.newSortedMapHandler());
+		putHandler(builder, Unmarshallers.newTreeMapHandler());
+		putHandler(builder, Unmarshallers.newImmutableSortedMapHandler());
+		putHandler(builder, Unmarshallers.newMultisetHandler());
+		putHandler(builder, Unmarshallers.newSetHandler());
+		putHandler(builder, Unmarshallers.newCollectionHandler());
+		putHandler(builder, Unmarshallers.newObjectProxyHandler());
+
+		putHandler(builder, new MapProxyUnmarshaller());
+
+		putHandler(builder, new AbstractEagerUnmarshaller<String>(Object.class, String.class) {
+			public String unmarshallValue(UnmarshallingContext helper, Object source, FixtureType typeDef) {
+				return String.valueOf(source);
+			}
+		});
+
+		putHandler(builder, Unmarshallers.enumHandler());
+
+		return builder.build();
+	}
+}
@@ -89,20 +89,19 @@ public abstract class DAOHelper<T> {
         private static class ListBasedIdentityResolver<T> implements IdentityResolver {
 
             private final Class<T> cls;
-            private final ImmutableList<T> startingList;
             private final Map<String, T> allObjects;
             private final Set<String> validIds;
             private final Function<? super T, String> idFunction;
 
             public ListBasedIdentityResolver(Class<T> cls, FixtureSource source, Function<? super T, String> idFunction) {
                 this.cls = cls;
-                this.startingList = ImmutableList.copyOf(Fixjure.listOf(cls).from(source).withOptions(
-                        Fixjure.Option.LAZY_REFERENCE_EVALUATION, 
-                        Fixjure.Option.NULL_ON_UNMAPPED,
-                        Fixjure.Option.SKIP_UNMAPPABLE
-                ).resolveIdsWith(this).create());
                 this.idFunction = idFunction;
                 this.allObjects = newHashMap();
+                final List<T> startingList = Fixjure.listOf(cls).from(source).withOptions(
+                        Fixjure.Option.LAZY_REFERENCE_EVALUATION,
+                        Fixjure.Option.NULL_ON_UNMAPPED,
+                        Fixjure.Option.SKIP_UNMAPPABLE
+                ).resolveIdsWith(this).create();
                 for (T t : startingList) {
                     this.allObjects.put(idFunction.apply(t), t);
                 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureType;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+/**
+ * Base class of unmarshallers that compute their value immediately. Subclasses implement {@link #unmarshallValue}, and
+ * {@link #unmarshall} wraps its result for callers that need a supplier.
+ * <p/>
+ * Unmarshallers created with {@code nullStubbable} false treat a null value as "cannot stub", so {@link #unmarshall}
+ * returns a null supplier for it, as the date unmarshaller always has.
+ */
+public abstract class AbstractEagerUnmarshaller<T> extends AbstractUnmarshaller<T> implements EagerUnmarshaller<T> {
+
+	private final boolean nullStubbable;
+
+	protected AbstractEagerUnmarshaller(final Class<?> sourceType, final Class<T> returnType) {
+		this(sourceType, returnType, true);
+	}
+
+	/**
+	 * @param sourceType source value type
+	 * @param returnType unmarshalled value type
+	 * @param nullStubbable false if a null value means the source cannot be stubbed
+	 */
+	protected AbstractEagerUnmarshaller(final Class<?> sourceType, final Class<T> returnType, final boolean nullStubbable) {
+		super(sourceType, returnType);
+		this.nullStubbable = nullStubbable;
+	}
+
+	public final Supplier<? extends T> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		final T value = unmarshallValue(helper, source, typeDef);
+		return (value == null && !nullStubbable) ? null : Suppliers.ofInstance(value);
+	}
+}
@@ -17,18 +17,16 @@
 package com.bigfatgun.fixjures.handlers;
 
 import com.bigfatgun.fixjures.FixtureType;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 
 import java.math.BigDecimal;
 
-class BigDecimalUnmarshaller extends AbstractUnmarshaller<BigDecimal> {
+class BigDecimalUnmarshaller extends AbstractEagerUnmarshaller<BigDecimal> {
 
 	public BigDecimalUnmarshaller() {
 		super(Number.class, BigDecimal.class);
 	}
 
-	public Supplier<BigDecimal> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-		return Suppliers.ofInstance(BigDecimal.valueOf(castSourceValue(Number.class, source).doubleValue()));
+	public BigDecimal unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		return BigDecimal.valueOf(castSourceValue(Number.class, source).doubleValue());
 	}
 }
@@ -17,18 +17,16 @@
 package com.bigfatgun.fixjures.handlers;
 
 import com.bigfatgun.fixjures.FixtureType;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 
 import java.math.BigInteger;
 
-class BigIntegerUnmarshaller extends AbstractUnmarshaller<BigInteger> {
+class BigIntegerUnmarshaller extends AbstractEagerUnmarshaller<BigInteger> {
 
 	public BigIntegerUnmarshaller() {
 		super(Number.class, BigInteger.class);
 	}
 
-	public Supplier<? extends BigInteger> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-		return Suppliers.ofInstance(BigInteger.valueOf(castSourceValue(Number.class, source).longValue()));
+	public BigInteger unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		return BigInteger.valueOf(castSourceValue(Number.class, source).longValue());
 	}
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureType;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Converts character sequences and epoch milliseconds into {@code GregorianCalendar}s in the default time zone.
+ *
+ * @author Steve Reed
+ */
+final class CalendarUnmarshaller extends AbstractEagerUnmarshaller<Calendar> {
+
+	public CalendarUnmarshaller() {
+		super(Object.class, Calendar.class, false);
+	}
+
+	@Override
+	public boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredType) {
+		final Class<?> type = desiredType.getType();
+		return (type == Calendar.class || type == GregorianCalendar.class)
+				&& (obj == null || obj instanceof CharSequence || obj instanceof Number);
+	}
+
+	public Calendar unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		if (source == null) {
+			return null;
+		}
+
+		final Calendar calendar = new GregorianCalendar();
+		calendar.setTime(DateParser.toDate(source));
+		return calendar;
+	}
+}
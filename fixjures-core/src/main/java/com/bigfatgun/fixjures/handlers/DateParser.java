@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import java.text.DateFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Thread-safe date parsing shared by the date and calendar unmarshallers. ISO 8601 dates and date-times are recognized
+ * by scanning the characters directly; anything else is tried against the default locale's formats using parse
+ * positions, so a format that does not match costs no exception. Formatters are cached per pattern and per thread.
+ *
+ * @author Steve Reed
+ */
+final class DateParser {
+
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	private static final ImmutableList<String> FALLBACK_PATTERNS = ImmutableList.of(
+			"yyyy-MM-dd",
+			toPattern(DateFormat.getDateTimeInstance()),
+			toPattern(DateFormat.getDateInstance()),
+			toPattern(DateFormat.getTimeInstance())
+	);
+
+	private static final ThreadLocal<Map<String, DateFormat>> FORMATS = new ThreadLocal<Map<String, DateFormat>>() {
+		@Override
+		protected Map<String, DateFormat> initialValue() {
+			return Maps.newHashMap();
+		}
+	};
+
+	private DateParser() {}
+
+	/**
+	 * Converts a raw value to a date. Numbers are taken as milliseconds since the epoch, and character sequences are
+	 * parsed.
+	 *
+	 * @param source raw value, not null
+	 * @return date
+	 * @throws FixtureException if the value cannot be converted
+	 */
+	static Date toDate(final Object source) {
+		if (source instanceof Number) {
+			return new Date(((Number) source).longValue());
+		}
+
+		final Date date = (source instanceof CharSequence) ? parse((CharSequence) source) : null;
+		if (date == null) {
+			throw new FixtureException("Failed to parse date: " + source);
+		}
+		return date;
+	}
+
+	/**
+	 * Parses a date.
+	 *
+	 * @param text date text
+	 * @return date, or null if the text is not in a known format
+	 */
+	static Date parse(final CharSequence text) {
+		final Date iso = parseIso(text);
+		if (iso != null) {
+			return iso;
+		}
+
+		final String string = text.toString();
+		final ParsePosition position = new ParsePosition(0);
+		for (final String pattern : FALLBACK_PATTERNS) {
+			position.setIndex(0);
+			position.setErrorIndex(-1);
+			final Date date = getFormat(pattern).parse(string, position);
+			if (date != null) {
+				return date;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns this thread's formatter for a pattern, creating it on first use.
+	 *
+	 * @param pattern {@code SimpleDateFormat} pattern
+	 * @return formatter, which must not be shared with other threads
+	 */
+	static DateFormat getFormat(final String pattern) {
+		final Map<String, DateFormat> formats = FORMATS.get();
+		DateFormat format = formats.get(pattern);
+		if (format == null) {
+			format = new SimpleDateFormat(pattern);
+			formats.put(pattern, format);
+		}
+		return format;
+	}
+
+	/**
+	 * Parses {@code yyyy-MM-dd}, optionally followed by {@code 'T'} or a space, {@code HH:mm}, optional seconds and
+	 * fraction, and an optional {@code Z} or {@code +HH:mm} offset. Values without an offset are in the default time
+	 * zone.
+	 *
+	 * @param text date text
+	 * @return date, or null if the text is not in this format
+	 */
+	private static Date parseIso(final CharSequence text) {
+		final int length = text.length();
+		if (length < 10 || !isDigits(text, 0, 4) || text.charAt(4) != '-' || !isDigits(text, 5, 2) || text.charAt(7) != '-' || !isDigits(text, 8, 2)) {
+			return null;
+		}
+
+		int hour = 0, minute = 0, second = 0, millis = 0;
+		int offset = 0;
+		boolean hasOffset = false;
+
+		int i = 10;
+		if (i < length && (text.charAt(i) == 'T' || text.charAt(i) == ' ')) {
+			if (length < i + 6 || !isDigits(text, i + 1, 2) || text.charAt(i + 3) != ':' || !isDigits(text, i + 4, 2)) {
+				return null;
+			}
+			hour = toInt(text, i + 1, 2);
+			minute = toInt(text, i + 4, 2);
+			i += 6;
+
+			if (i < length && text.charAt(i) == ':') {
+				if (!isDigits(text, i + 1, 2)) {
+					return null;
+				}
+				second = toInt(text, i + 1, 2);
+				i += 3;
+
+				if (i < length && text.charAt(i) == '.') {
+					final int start = ++i;
+					while (i < length && isDigit(text.charAt(i))) {
+						i++;
+					}
+					if (i == start) {
+						return null;
+					}
+					for (int digit = start; digit < start + 3; digit++) {
+						millis = millis * 10 + (digit < i ? text.charAt(digit) - '0' : 0);
+					}
+				}
+			}
+
+			if (i < length && text.charAt(i) == 'Z') {
+				hasOffset = true;
+				i++;
+			} else if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+				final int sign = (text.charAt(i) == '-') ? -1 : 1;
+				if (!isDigits(text, i + 1, 2)) {
+					return null;
+				}
+				int offsetMinutes = toInt(text, i + 1, 2) * 60;
+				i += 3;
+				if (i < length && text.charAt(i) == ':') {
+					i++;
+				}
+				if (i < length) {
+					if (!isDigits(text, i, 2)) {
+						return null;
+					}
+					offsetMinutes += toInt(text, i, 2);
+					i += 2;
+				}
+				hasOffset = true;
+				offset = sign * offsetMinutes * 60 * 1000;
+			}
+		}
+
+		if (i != length) {
+			return null;
+		}
+
+		final Calendar calendar = new GregorianCalendar(hasOffset ? UTC : TimeZone.getDefault());
+		calendar.clear();
+		calendar.set(toInt(text, 0, 4), toInt(text, 5, 2) - 1, toInt(text, 8, 2), hour, minute, second);
+		calendar.set(Calendar.MILLISECOND, millis);
+		return new Date(calendar.getTimeInMillis() - offset);
+	}
+
+	private static boolean isDigits(final CharSequence text, final int start, final int count) {
+		if (start + count > text.length()) {
+			return false;
+		}
+		for (int i = start; i < start + count; i++) {
+			if (!isDigit(text.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isDigit(final char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static int toInt(final CharSequence text, final int start, final int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			value = value * 10 + (text.charAt(i) - '0');
+		}
+		return value;
+	}
+
+	private static String toPattern(final DateFormat format) {
+		return ((SimpleDateFormat) format).toPattern();
+	}
+}
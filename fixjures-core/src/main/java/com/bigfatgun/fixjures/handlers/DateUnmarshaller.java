@@ -14,52 +14,50 @@
  * limitations under the License.
  */
 
+
 package com.bigfatgun.fixjures.handlers;
 
-import com.bigfatgun.fixjures.FixtureException;
 import com.bigfatgun.fixjures.FixtureType;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
-import com.google.common.collect.ImmutableList;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.util.Date;
 
 /**
- * Converts character sequences into {@code java.util.Date}s.
+ * Converts character sequences and epoch milliseconds into {@code java.util.Date}s, or into the {@code java.sql} date
+ * types when one of those is requested.
  *
  * @author Steve Reed
  */
-class DateUnmarshaller extends AbstractUnmarshaller<Date> {
-
-    private final Iterable<DateFormat> formats = ImmutableList.of(
-            new SimpleDateFormat("yyyy-MM-dd"),
-            DateFormat.getDateTimeInstance(),
-            DateFormat.getDateInstance(),
-            DateFormat.getTimeInstance()
-    );
+class DateUnmarshaller extends AbstractEagerUnmarshaller<Date> {
 
 	public DateUnmarshaller() {
-		super(CharSequence.class, Date.class);
+		super(Object.class, Date.class, false);
 	}
 
-	public Supplier<? extends Date> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-
-        if (source == null) {
-            return null;
-        }
-
-        final CharSequence charSequence = castSourceValue(CharSequence.class, source);
-        for (DateFormat format : formats) {
-            try {
-                return Suppliers.ofInstance(format.parse(charSequence.toString()));
-            } catch (ParseException e) {
-                // ignore
-            }
-        }
+	@Override
+	public boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredType) {
+		final Class<?> type = desiredType.getType();
+		return (type == Date.class || type == java.sql.Date.class || type == Time.class || type == Timestamp.class)
+				&& (obj == null || obj instanceof CharSequence || obj instanceof Number);
+	}
 
-        throw new FixtureException("Failed to parse date: " + charSequence);
-    }
+	public Date unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+
+		if (source == null) {
+			return null;
+		}
+
+		final Date date = DateParser.toDate(source);
+		final Class<?> type = (typeDef == null) ? Date.class : typeDef.getType();
+		if (type == Timestamp.class) {
+			return new Timestamp(date.getTime());
+		} else if (type == java.sql.Date.class) {
+			return new java.sql.Date(date.getTime());
+		} else if (type == Time.class) {
+			return new Time(date.getTime());
+		} else {
+			return date;
+		}
+	}
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureType;
+
+/**
+ * An unmarshaller that can produce its value directly. Contexts call {@link #unmarshallValue} whenever the value is
+ * needed immediately, which saves the {@code Supplier} that {@link #unmarshall} would wrap it in. A null value is
+ * ambiguous, since {@link #unmarshall} may report it as a null supplier meaning the source cannot be stubbed; callers
+ * that care ask {@link #unmarshall} again when they get null.
+ */
+public interface EagerUnmarshaller<T> extends Unmarshaller<T> {
+
+	/**
+	 * Unmarshalls a source object immediately.
+	 *
+	 * @param helper unmarshalling context
+	 * @param source source object
+	 * @param typeDef desired type
+	 * @return unmarshalled value, may be null
+	 */
+	T unmarshallValue(UnmarshallingContext helper, Object source, FixtureType typeDef);
+}
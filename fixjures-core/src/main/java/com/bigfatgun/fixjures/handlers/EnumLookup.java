@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.ClassCache;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Precomputed name and ordinal tables for an enum class. Tables are built once per class and shared.
+ *
+ * @author Steve Reed
+ */
+final class EnumLookup {
+
+	private static final ClassCache<EnumLookup> LOOKUPS = ClassCache.of(new Function<Class<?>, EnumLookup>() {
+		public EnumLookup apply(final Class<?> enumType) {
+			return new EnumLookup(enumType);
+		}
+	});
+
+	/**
+	 * Returns the lookup tables of an enum class.
+	 *
+	 * @param enumType enum class
+	 * @return lookup tables
+	 */
+	static EnumLookup of(final Class<?> enumType) {
+		return LOOKUPS.get(enumType);
+	}
+
+	private final Enum<?>[] constants;
+	private final ImmutableMap<String, Enum<?>> byName;
+	private final ImmutableMap<String, Enum<?>> byUpperCaseName;
+
+	private EnumLookup(final Class<?> enumType) {
+		if (!enumType.isEnum()) {
+			throw new IllegalArgumentException("Not an enum: " + enumType.getName());
+		}
+
+		this.constants = (Enum<?>[]) enumType.getEnumConstants();
+
+		final ImmutableMap.Builder<String, Enum<?>> names = ImmutableMap.builder();
+		final Map<String, Enum<?>> upperCaseNames = Maps.newHashMapWithExpectedSize(constants.length);
+		for (final Enum<?> constant : constants) {
+			names.put(constant.name(), constant);
+			final String upperCaseName = constant.name().toUpperCase(Locale.ENGLISH);
+			if (!upperCaseNames.containsKey(upperCaseName)) {
+				upperCaseNames.put(upperCaseName, constant);
+			}
+		}
+		this.byName = names.build();
+		this.byUpperCaseName = ImmutableMap.copyOf(upperCaseNames);
+	}
+
+	/**
+	 * Finds a constant by name. When ignoring case and several constants differ only in case, the first declared one
+	 * is returned unless another matches exactly.
+	 *
+	 * @param name constant name
+	 * @param ignoreCase whether to ignore case
+	 * @return constant, or null if there is none by that name
+	 */
+	Enum<?> forName(final String name, final boolean ignoreCase) {
+		final Enum<?> constant = byName.get(name);
+		if (constant == null && ignoreCase) {
+			return byUpperCaseName.get(name.toUpperCase(Locale.ENGLISH));
+		}
+		return constant;
+	}
+
+	/**
+	 * Finds a constant by ordinal.
+	 *
+	 * @param ordinal constant ordinal
+	 * @return constant, or null if the ordinal is out of range
+	 */
+	Enum<?> forOrdinal(final int ordinal) {
+		return (ordinal >= 0 && ordinal < constants.length) ? constants[ordinal] : null;
+	}
+}
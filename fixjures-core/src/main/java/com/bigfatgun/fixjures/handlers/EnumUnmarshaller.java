@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.FixtureType;
+
+import java.math.BigDecimal;
+
+/**
+ * Converts names, and ordinals if {@link Fixjure.Option#ORDINAL_CONSTANTS} is enabled, to enum constants using the
+ * precomputed tables of {@link EnumLookup}. Unknown values map to the default constant if there is one, to null if
+ * {@link Fixjure.Option#NULL_ON_UNKNOWN_CONSTANT} is enabled, and fail otherwise. When ordinals are enabled, a number
+ * that is not an integer always fails rather than being truncated.
+ *
+ * @author Steve Reed
+ */
+final class EnumUnmarshaller<T extends Enum> extends AbstractEagerUnmarshaller<T> {
+
+	private final T defaultConstant;
+
+	EnumUnmarshaller(final Class<T> returnType, final T defaultConstant) {
+		super(Object.class, returnType);
+		this.defaultConstant = defaultConstant;
+	}
+
+	@Override
+	public boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredType) {
+		return getReturnType().isAssignableFrom(desiredType.getType())
+				&& (obj == null || obj instanceof CharSequence || obj instanceof Number);
+	}
+
+	public T unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		if (source == null) {
+			return null;
+		}
+
+		final EnumLookup lookup = EnumLookup.of(typeDef.getType());
+		final Enum<?> constant;
+		if (source instanceof Number && helper.getOptions().contains(Fixjure.Option.ORDINAL_CONSTANTS)) {
+			final Integer ordinal = ordinalOf((Number) source);
+			if (ordinal == null) {
+				throw new FixtureException(String.format("%s is not an ordinal of %s.", source, typeDef.getType().getName()));
+			}
+			constant = lookup.forOrdinal(ordinal);
+		} else {
+			constant = lookup.forName(source.toString(), helper.getOptions().contains(Fixjure.Option.CASE_INSENSITIVE_CONSTANTS));
+		}
+
+		if (constant != null) {
+			return getReturnType().cast(constant);
+		} else if (defaultConstant != null) {
+			return defaultConstant;
+		} else if (helper.getOptions().contains(Fixjure.Option.NULL_ON_UNKNOWN_CONSTANT)) {
+			return null;
+		} else {
+			throw new FixtureException(String.format("%s is not a constant of %s.", source, typeDef.getType().getName()));
+		}
+	}
+
+	/**
+	 * @param number source number
+	 * @return the number as an int, or null if it has a fraction, is out of range or is not finite
+	 */
+	private static Integer ordinalOf(final Number number) {
+		try {
+			return new BigDecimal(number.toString()).intValueExact();
+		} catch (NumberFormatException e) {
+			return null;
+		} catch (ArithmeticException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureType;
+
+import java.util.Map;
+
+/**
+ * Unmarshalls a source map into a map of exactly the return type, iterating the source entries once and converting
+ * each key and value. Entries whose key or value converts to null are dropped, and when several entries have the same
+ * key, whether repeated in the source or converted from different source keys, the last one wins. When streaming,
+ * entries are put into the map as they are parsed.
+ *
+ * @author Steve Reed
+ */
+abstract class MapUnmarshaller<M extends Map> extends AbstractEagerUnmarshaller<M> implements StreamingUnmarshaller<M> {
+
+	/** Receives converted entries in source order and produces the resulting map. */
+	interface EntrySink<M> {
+		void put(Object key, Object value);
+
+		M build();
+	}
+
+	/**
+	 * Creates a sink that puts entries into a mutable map.
+	 *
+	 * @param map map to fill
+	 * @return new sink
+	 */
+	static <M extends Map> EntrySink<M> into(final M map) {
+		return new EntrySink<M>() {
+			@SuppressWarnings({"unchecked"})
+			public void put(final Object key, final Object value) {
+				map.put(key, value);
+			}
+
+			public M build() {
+				return map;
+			}
+		};
+	}
+
+	/**
+	 * Returns the initial capacity of a hash map that holds the given number of entries without rehashing.
+	 *
+	 * @param expectedSize number of entries
+	 * @return initial capacity
+	 */
+	static int capacity(final int expectedSize) {
+		return Math.max(16, (int) (expectedSize / 0.75f) + 1);
+	}
+
+	protected MapUnmarshaller(final Class<M> returnType) {
+		super(Map.class, returnType);
+	}
+
+	@Override
+	public final boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredType) {
+		return getReturnType() == desiredType.getType() && (obj == null || obj instanceof Map);
+	}
+
+	public final M unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		final Map<?, ?> sourceMap = castSourceValue(Map.class, source);
+		final FixtureType keyType = typeDef.keyType();
+		final FixtureType valueType = typeDef.valueType();
+
+		final EntrySink<? extends M> sink = newSink(sourceMap.size());
+		for (final Map.Entry<?, ?> entry : sourceMap.entrySet()) {
+			final Object key = SourceContexts.of(helper).unmarshallValue(entry.getKey(), keyType);
+			final Object value = (key == null) ? null : SourceContexts.of(helper).unmarshallValue(entry.getValue(), valueType);
+			if (value != null) {
+				sink.put(key, value);
+			}
+		}
+		return getReturnType().cast(sink.build());
+	}
+
+	public final TokenBuilder newBuilder(final UnmarshallingContext helper, final FixtureType typeDef) {
+		final FixtureType keyType = typeDef.keyType();
+		final FixtureType valueType = typeDef.valueType();
+		final EntrySink<? extends M> sink = newSink(0);
+
+		return new TokenBuilder() {
+			private Object key = null;
+
+			public FixtureType nextType(final String name) {
+				key = SourceContexts.of(helper).unmarshallValue(name, keyType);
+				return (key == null) ? null : valueType;
+			}
+
+			public void addScalar(final Object rawValue) {
+				addValue(SourceContexts.of(helper).unmarshallValue(rawValue, valueType));
+			}
+
+			public void addValue(final Object value) {
+				if (value != null) {
+					sink.put(key, value);
+				}
+			}
+
+			public Object build() {
+				return getReturnType().cast(sink.build());
+			}
+		};
+	}
+
+	/**
+	 * Creates the sink that builds the resulting map.
+	 *
+	 * @param expectedSize number of source entries
+	 * @return new sink
+	 */
+	protected abstract EntrySink<? extends M> newSink(int expectedSize);
+}
@@ -17,15 +17,13 @@
 package com.bigfatgun.fixjures.handlers;
 
 import com.bigfatgun.fixjures.FixtureType;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 
 /**
  * Simple object pass-through for when no conversion is necessary.
  *
  * @author Steve Reed
  */
-public final class NoConversionUnmarshaller<T> extends AbstractUnmarshaller<T> {
+public final class NoConversionUnmarshaller<T> extends AbstractEagerUnmarshaller<T> {
 
 	/**
 	 * Static factory method for better type inference.
@@ -47,7 +45,7 @@ public final class NoConversionUnmarshaller<T> extends AbstractUnmarshaller<T> {
 		super(type, type);
 	}
 
-	public Supplier<? extends T> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-		return Suppliers.ofInstance(castSourceValue(getReturnType(), source));
+	public T unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		return castSourceValue(getReturnType(), source);
 	}
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.FixtureType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Parses character sequences directly into a numeric type. Integral types are parsed exactly and rejected when out of
+ * range; decimal text is truncated towards zero as the numeric handlers do, but without passing through a
+ * {@code double}.
+ *
+ * @author Steve Reed
+ */
+abstract class NumberParsingUnmarshaller<T extends Number> extends AbstractEagerUnmarshaller<T> {
+
+	/** Longest plain integer text that is certain to fit in a {@code long}. */
+	private static final int MAX_SAFE_LONG_LENGTH = 18;
+
+	/** Base of parsers for types that have a primitive counterpart. */
+	abstract static class Primitive<T extends Number> extends NumberParsingUnmarshaller<T> implements PrimitiveUnmarshaller<T> {
+
+		private final Class<T> primitiveType;
+
+		protected Primitive(final Class<T> returnType, final Class<T> primitiveType) {
+			super(returnType);
+			this.primitiveType = primitiveType;
+		}
+
+		public final Class<T> getPrimitiveType() {
+			return primitiveType;
+		}
+
+		@Override
+		public final boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredTypeDef) {
+			return super.canUnmarshallObjectToType(obj, desiredTypeDef) || (isSource(obj) && primitiveType == desiredTypeDef.getType());
+		}
+	}
+
+	protected NumberParsingUnmarshaller(final Class<T> returnType) {
+		super(CharSequence.class, returnType);
+	}
+
+	@Override
+	public boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredTypeDef) {
+		return isSource(obj) && getReturnType() == desiredTypeDef.getType();
+	}
+
+	public final T unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		if (source == null) {
+			return null;
+		}
+
+		final String text = castSourceValue(CharSequence.class, source).toString().trim();
+		try {
+			return parse(text);
+		} catch (NumberFormatException e) {
+			throw FixtureException.convert(String.format("Cannot parse '%s' as %s.", text, getReturnType().getSimpleName()), e);
+		}
+	}
+
+	/**
+	 * Parses trimmed text.
+	 *
+	 * @param text text to parse
+	 * @return parsed value
+	 * @throws NumberFormatException if the text is not a number or is out of range
+	 */
+	protected abstract T parse(String text);
+
+	/**
+	 * Parses an integral value within the given bounds.
+	 *
+	 * @param text text to parse
+	 * @param min minimum value
+	 * @param max maximum value
+	 * @return parsed value
+	 */
+	static long parseIntegral(final String text, final long min, final long max) {
+		final long value;
+		if (isPlainInteger(text) && text.length() <= MAX_SAFE_LONG_LENGTH) {
+			value = parseDigits(text);
+		} else {
+			final BigInteger bigValue = parseBigInteger(text);
+			if (bigValue.bitLength() > 63) {
+				throw new NumberFormatException("Out of range: " + text);
+			}
+			value = bigValue.longValue();
+		}
+
+		if (value < min || value > max) {
+			throw new NumberFormatException("Out of range: " + text);
+		}
+		return value;
+	}
+
+	static BigInteger parseBigInteger(final String text) {
+		return isPlainInteger(text) ? new BigInteger(text) : new BigDecimal(text).toBigInteger();
+	}
+
+	private static boolean isSource(final Object obj) {
+		return obj == null || obj instanceof CharSequence;
+	}
+
+	private static boolean isPlainInteger(final String text) {
+		final int start = (text.startsWith("-") || text.startsWith("+")) ? 1 : 0;
+		if (text.length() == start) {
+			return false;
+		}
+		for (int i = start; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long parseDigits(final String text) {
+		final boolean negative = text.charAt(0) == '-';
+		final int start = (negative || text.charAt(0) == '+') ? 1 : 0;
+		long value = 0;
+		for (int i = start; i < text.length(); i++) {
+			value = value * 10 + (text.charAt(i) - '0');
+		}
+		return negative ? -value : value;
+	}
+}
@@ -17,15 +17,13 @@
 package com.bigfatgun.fixjures.handlers;
 
 import com.bigfatgun.fixjures.FixtureType;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 
 /**
  * Handles {@code Number}s.
  *
  * @author Steve Reed
  */
-abstract class NumberUnmarshaller<T extends Number> extends AbstractUnmarshaller<T> implements PrimitiveUnmarshaller<T> {
+abstract class NumberUnmarshaller<T extends Number> extends AbstractEagerUnmarshaller<T> implements PrimitiveUnmarshaller<T> {
 
 	private final Class<T> primitiveType;
 
@@ -55,8 +53,8 @@ abstract class NumberUnmarshaller<T extends Number> extends AbstractUnmarshaller
 				&& (getReturnType().equals(desiredType) || getPrimitiveType().equals(desiredType));
 	}
 
-	public final Supplier<T> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-		return Suppliers.ofInstance(narrowNumericValue(castSourceValue(Number.class, source)));
+	public final T unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		return narrowNumericValue(castSourceValue(Number.class, source));
 	}
 
 	protected abstract T narrowNumericValue(final Number number);
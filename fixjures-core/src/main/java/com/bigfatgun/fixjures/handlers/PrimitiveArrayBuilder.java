@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bigfatgun.fixjures.handlers;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates numbers straight into a primitive array of a numeric component type, narrowing them the same way the
+ * numeric unmarshallers do. Used by the primitive array unmarshallers, and available to parsers that produce numbers
+ * one at a time and want to avoid boxing them.
+ *
+ * @author Steve Reed
+ */
+public abstract class PrimitiveArrayBuilder {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * Returns true if the component type is one of the numeric primitives supported by this builder.
+	 *
+	 * @param componentType array component type
+	 * @return true if supported
+	 */
+	public static boolean supports(final Class<?> componentType) {
+		return componentType == Integer.TYPE
+				|| componentType == Long.TYPE
+				|| componentType == Double.TYPE
+				|| componentType == Float.TYPE
+				|| componentType == Short.TYPE
+				|| componentType == Byte.TYPE;
+	}
+
+	/**
+	 * Creates a builder for arrays of the given numeric primitive type.
+	 *
+	 * @param componentType array component type, such as {@code int.class}
+	 * @return new builder
+	 */
+	public static PrimitiveArrayBuilder newBuilder(final Class<?> componentType) {
+		return newBuilder(componentType, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a builder for arrays of the given numeric primitive type. If exactly {@code expectedSize} values are added,
+	 * {@link #build()} returns the backing array without copying it.
+	 *
+	 * @param componentType array component type, such as {@code int.class}
+	 * @param expectedSize expected number of values
+	 * @return new builder
+	 */
+	public static PrimitiveArrayBuilder newBuilder(final Class<?> componentType, final int expectedSize) {
+		checkArgument(expectedSize >= 0, "Expected size cannot be negative.");
+
+		if (componentType == Integer.TYPE) {
+			return new IntArrayBuilder(expectedSize);
+		} else if (componentType == Long.TYPE) {
+			return new LongArrayBuilder(expectedSize);
+		} else if (componentType == Double.TYPE) {
+			return new DoubleArrayBuilder(expectedSize);
+		} else if (componentType == Float.TYPE) {
+			return new FloatArrayBuilder(expectedSize);
+		} else if (componentType == Short.TYPE) {
+			return new ShortArrayBuilder(expectedSize);
+		} else if (componentType == Byte.TYPE) {
+			return new ByteArrayBuilder(expectedSize);
+		} else {
+			throw new IllegalArgumentException("Not a numeric primitive type: " + componentType);
+		}
+	}
+
+	private int size = 0;
+
+	private PrimitiveArrayBuilder() {}
+
+	public final int size() {
+		return size;
+	}
+
+	/**
+	 * Appends a value, narrowing it to the component type.
+	 *
+	 * @param value value to add, not null
+	 * @return this
+	 */
+	public abstract PrimitiveArrayBuilder add(Number value);
+
+	/**
+	 * Appends an integral value, narrowing it to the component type.
+	 *
+	 * @param value value to add
+	 * @return this
+	 */
+	public abstract PrimitiveArrayBuilder add(long value);
+
+	/**
+	 * Appends a floating point value, narrowing it to the component type.
+	 *
+	 * @param value value to add
+	 * @return this
+	 */
+	public abstract PrimitiveArrayBuilder add(double value);
+
+	/**
+	 * @return the primitive array holding every value added so far
+	 */
+	public abstract Object build();
+
+	/**
+	 * Reserves the next slot, returning its index.
+	 *
+	 * @param capacity current capacity
+	 * @return index of the next value
+	 */
+	final int next(final int capacity) {
+		if (size == capacity) {
+			grow(Math.max(DEFAULT_CAPACITY, capacity * 2));
+		}
+		return size++;
+	}
+
+	final boolean isFull(final int capacity) {
+		return size == capacity;
+	}
+
+	abstract void grow(int capacity);
+
+	private static final class IntArrayBuilder extends PrimitiveArrayBuilder {
+		private int[] values;
+
+		private IntArrayBuilder(final int capacity) {
+			values = new int[capacity];
+		}
+
+		public PrimitiveArrayBuilder add(final Number value) {
+			final int index = next(values.length);
+			values[index] = value.intValue();
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final long value) {
+			final int index = next(values.length);
+			values[index] = (int) value;
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final double value) {
+			final int index = next(values.length);
+			values[index] = (int) value;
+			return this;
+		}
+
+		public int[] build() {
+			return isFull(values.length) ? values : Arrays.copyOf(values, size());
+		}
+
+		void grow(final int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	private static final class LongArrayBuilder extends PrimitiveArrayBuilder {
+		private long[] values;
+
+		private LongArrayBuilder(final int capacity) {
+			values = new long[capacity];
+		}
+
+		public PrimitiveArrayBuilder add(final Number value) {
+			final int index = next(values.length);
+			values[index] = value.longValue();
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final long value) {
+			final int index = next(values.length);
+			values[index] = value;
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final double value) {
+			final int index = next(values.length);
+			values[index] = (long) value;
+			return this;
+		}
+
+		public long[] build() {
+			return isFull(values.length) ? values : Arrays.copyOf(values, size());
+		}
+
+		void grow(final int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	private static final class DoubleArrayBuilder extends PrimitiveArrayBuilder {
+		private double[] values;
+
+		private DoubleArrayBuilder(final int capacity) {
+			values = new double[capacity];
+		}
+
+		public PrimitiveArrayBuilder add(final Number value) {
+			final int index = next(values.length);
+			values[index] = value.doubleValue();
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final long value) {
+			final int index = next(values.length);
+			values[index] = (double) value;
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final double value) {
+			final int index = next(values.length);
+			values[index] = value;
+			return this;
+		}
+
+		public double[] build() {
+			return isFull(values.length) ? values : Arrays.copyOf(values, size());
+		}
+
+		void grow(final int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	private static final class FloatArrayBuilder extends PrimitiveArrayBuilder {
+		private float[] values;
+
+		private FloatArrayBuilder(final int capacity) {
+			values = new float[capacity];
+		}
+
+		public PrimitiveArrayBuilder add(final Number value) {
+			final int index = next(values.length);
+			values[index] = value.floatValue();
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final long value) {
+			final int index = next(values.length);
+			values[index] = (float) value;
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final double value) {
+			final int index = next(values.length);
+			values[index] = (float) value;
+			return this;
+		}
+
+		public float[] build() {
+			return isFull(values.length) ? values : Arrays.copyOf(values, size());
+		}
+
+		void grow(final int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	private static final class ShortArrayBuilder extends PrimitiveArrayBuilder {
+		private short[] values;
+
+		private ShortArrayBuilder(final int capacity) {
+			values = new short[capacity];
+		}
+
+		public PrimitiveArrayBuilder add(final Number value) {
+			final int index = next(values.length);
+			values[index] = value.shortValue();
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final long value) {
+			final int index = next(values.length);
+			values[index] = (short) value;
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final double value) {
+			final int index = next(values.length);
+			values[index] = (short) value;
+			return this;
+		}
+
+		public short[] build() {
+			return isFull(values.length) ? values : Arrays.copyOf(values, size());
+		}
+
+		void grow(final int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	private static final class ByteArrayBuilder extends PrimitiveArrayBuilder {
+		private byte[] values;
+
+		private ByteArrayBuilder(final int capacity) {
+			values = new byte[capacity];
+		}
+
+		public PrimitiveArrayBuilder add(final Number value) {
+			final int index = next(values.length);
+			values[index] = value.byteValue();
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final long value) {
+			final int index = next(values.length);
+			values[index] = (byte) value;
+			return this;
+		}
+
+		public PrimitiveArrayBuilder add(final double value) {
+			final int index = next(values.length);
+			values[index] = (byte) value;
+			return this;
+		}
+
+		public byte[] build() {
+			return isFull(values.length) ? values : Arrays.copyOf(values, size());
+		}
+
+		void grow(final int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.FixtureType;
+import com.bigfatgun.fixjures.TypeWrapper;
+
+import java.util.List;
+
+/**
+ * Unmarshalls lists into arrays of a numeric primitive type, writing numbers straight into the array instead of going
+ * through {@code java.lang.reflect.Array} one boxed element at a time. When streaming, numbers go into the array as
+ * they are parsed, without a source list.
+ */
+final class PrimitiveArrayUnmarshaller<T> extends AbstractEagerUnmarshaller<T> implements StreamingUnmarshaller<T> {
+
+	private final Class<?> componentType;
+	private final FixtureType componentTypeDef;
+
+	PrimitiveArrayUnmarshaller(final Class<T> arrayType) {
+		super(List.class, arrayType);
+		this.componentType = arrayType.getComponentType();
+		this.componentTypeDef = TypeWrapper.wrap(componentType);
+		assert PrimitiveArrayBuilder.supports(componentType) : "Not a numeric primitive array: " + arrayType;
+	}
+
+	@Override
+	public boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredType) {
+		return desiredType.getType() == getReturnType() && obj instanceof List;
+	}
+
+	public T unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		final List<?> list = castSourceValue(List.class, source);
+		final PrimitiveArrayBuilder builder = PrimitiveArrayBuilder.newBuilder(componentType, list.size());
+		for (final Object element : list) {
+			builder.add(toNumber(helper, element));
+		}
+		return getReturnType().cast(builder.build());
+	}
+
+	public TokenBuilder newBuilder(final UnmarshallingContext helper, final FixtureType typeDef) {
+		final PrimitiveArrayBuilder builder = PrimitiveArrayBuilder.newBuilder(componentType);
+
+		return new TokenBuilder() {
+			public FixtureType nextType(final String name) {
+				return componentTypeDef;
+			}
+
+			public void addScalar(final Object rawValue) {
+				builder.add(toNumber(helper, rawValue));
+			}
+
+			public void addValue(final Object value) {
+				builder.add(toNumber(helper, value));
+			}
+
+			public Object build() {
+				return getReturnType().cast(builder.build());
+			}
+		};
+	}
+
+	private Number toNumber(final UnmarshallingContext helper, final Object element) {
+		if (element instanceof Number) {
+			return (Number) element;
+		}
+
+		final Object value = SourceContexts.of(helper).unmarshallValue(element, componentTypeDef);
+		if (value instanceof Number) {
+			return (Number) value;
+		} else {
+			throw new FixtureException(String.format("Cannot store %s in an array of %s.", element, componentType));
+		}
+	}
+}
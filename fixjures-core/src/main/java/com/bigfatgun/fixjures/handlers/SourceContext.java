@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureType;
+import com.google.common.base.Supplier;
+
+/**
+ * The unmarshalling services a {@link com.bigfatgun.fixjures.FixtureSource} offers its handlers beyond those of a plain
+ * {@link UnmarshallingContext}. Handlers reach them through {@link SourceContexts#of(UnmarshallingContext)}, which
+ * adapts contexts that do not implement this interface, so third-party contexts keep working unchanged.
+ *
+ * @author Steve Reed
+ */
+public interface SourceContext extends UnmarshallingContext {
+
+	/**
+	 * Unmarshalls a raw value immediately, without wrapping it in a supplier when the unmarshaller is an {@link
+	 * EagerUnmarshaller}.
+	 *
+	 * @param rawValue raw value
+	 * @param type desired type
+	 * @return value, may be null
+	 * @throws com.bigfatgun.fixjures.FixtureException if no unmarshaller can produce a value
+	 */
+	Object unmarshallValue(Object rawValue, FixtureType type);
+
+	/**
+	 * Finds the unmarshaller that would be used for the given raw value and type.
+	 *
+	 * @param rawValue raw value
+	 * @param type desired type
+	 * @return unmarshaller, never null
+	 */
+	Unmarshaller<?> findUnmarshaller(Object rawValue, FixtureType type);
+
+	/**
+	 * Finds the unmarshaller for the given raw value and type, if the choice depends only on the value's class. When a
+	 * handler that may choose by the contents of a value took part in the search, such as one installed on the source,
+	 * returns null, since another value of the same class may get another unmarshaller.
+	 *
+	 * @param rawValue raw value
+	 * @param type desired type
+	 * @return unmarshaller, or null if it may depend on the value's contents
+	 */
+	Unmarshaller<?> findUnmarshallerByClass(Object rawValue, FixtureType type);
+
+	/**
+	 * Returns the compiled unmarshalling plan for an object type under the context's current options.
+	 *
+	 * @param type object type
+	 * @return plan
+	 */
+	UnmarshallingPlan getPlan(FixtureType type);
+
+	/**
+	 * Resolves an object by its raw identity value using the context's identity resolver.
+	 *
+	 * @param type object type
+	 * @param rawIdentityValue raw identity value
+	 * @return supplier of the resolved object, or null if the identity cannot be handled
+	 */
+	<T> Supplier<T> resolveIdentity(Class<T> type, Object rawIdentityValue);
+
+	/**
+	 * Wraps a computation in a supplier that runs it once, on first use, and then holds its value until a reference the
+	 * computation read, such as one from {@link #resolveIdentity}, is invalidated.
+	 *
+	 * @param computation value computation
+	 * @return memoizing supplier
+	 */
+	<T> Supplier<T> newLazyReference(Supplier<? extends T> computation);
+
+	/**
+	 * Returns true if the raw values handed to unmarshallers come from a parser that never modifies or shares them once
+	 * parsed, so they can be wrapped in read-only views instead of being copied.
+	 *
+	 * @return true if raw values are effectively immutable
+	 */
+	boolean isSourceDataImmutable();
+
+	/**
+	 * Creates a sink that unmarshalls a document to the given type from its parser tokens, for sources whose parser can
+	 * report tokens instead of building a tree.
+	 *
+	 * @param type desired type of the document's value
+	 * @return new token unmarshaller
+	 */
+	TokenUnmarshaller newTokenUnmarshaller(FixtureType type);
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.FixtureType;
+import com.bigfatgun.fixjures.LazyReference;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Gives handlers a {@link SourceContext} for any {@link UnmarshallingContext}.
+ *
+ * @author Steve Reed
+ */
+public final class SourceContexts {
+
+	/**
+	 * Returns the context itself if it is a {@link SourceContext}. Other contexts are adapted the way fixture sources
+	 * behaved before they offered these services: values are unmarshalled through {@link
+	 * UnmarshallingContext#unmarshall}, no unmarshaller is assumed to depend on the value class alone, plans are compiled
+	 * per call, identities are not resolved, and source data is copied.
+	 *
+	 * @param helper unmarshalling context
+	 * @return source context
+	 */
+	public static SourceContext of(final UnmarshallingContext helper) {
+		return (helper instanceof SourceContext) ? (SourceContext) helper : new PlainContext(helper);
+	}
+
+	/** Adapts a context that offers only the {@link UnmarshallingContext} methods. */
+	private static final class PlainContext implements SourceContext {
+
+		private final UnmarshallingContext delegate;
+
+		private PlainContext(final UnmarshallingContext delegate) {
+			this.delegate = checkNotNull(delegate);
+		}
+
+		public ImmutableSet<Fixjure.Option> getOptions() {
+			return delegate.getOptions();
+		}
+
+		public Supplier<?> unmarshall(final Object rawValue, final FixtureType type) {
+			return delegate.unmarshall(rawValue, type);
+		}
+
+		public Object unmarshallValue(final Object rawValue, final FixtureType type) {
+			final Supplier<?> supplier = delegate.unmarshall(rawValue, type);
+			if (supplier == null) {
+				throw new FixtureException(String.format("Cannot unmarshall %s to %s.", rawValue, type));
+			}
+			return supplier.get();
+		}
+
+		public Unmarshaller<?> findUnmarshaller(final Object rawValue, final FixtureType type) {
+			return new Unmarshaller<Object>() {
+				public boolean canUnmarshallObjectToType(final Object sourceObject, final FixtureType typeDef) {
+					return true;
+				}
+
+				public Class<Object> getReturnType() {
+					return Object.class;
+				}
+
+				public Supplier<?> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+					return delegate.unmarshall(source, typeDef);
+				}
+			};
+		}
+
+		public Unmarshaller<?> findUnmarshallerByClass(final Object rawValue, final FixtureType type) {
+			return null;
+		}
+
+		public UnmarshallingPlan getPlan(final FixtureType type) {
+			return UnmarshallingPlan.compile(type.getType(), getOptions(), false);
+		}
+
+		public <T> Supplier<T> resolveIdentity(final Class<T> type, final Object rawIdentityValue) {
+			return null;
+		}
+
+		public <T> Supplier<T> newLazyReference(final Supplier<? extends T> computation) {
+			return LazyReference.of(computation);
+		}
+
+		public boolean isSourceDataImmutable() {
+			return false;
+		}
+
+		public TokenUnmarshaller newTokenUnmarshaller(final FixtureType type) {
+			return new TokenUnmarshaller(this, type);
+		}
+	}
+
+	private SourceContexts() {
+		assert false : "Cannot instantiate!";
+	}
+}
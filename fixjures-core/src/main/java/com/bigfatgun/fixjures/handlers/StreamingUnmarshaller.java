@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureType;
+
+/**
+ * An unmarshaller for objects or arrays that can also build its value straight from parser tokens, without the source
+ * map or list being created first. A {@link TokenUnmarshaller} uses it whenever the registry resolves it for a map or
+ * list of the desired type; every other unmarshaller is handed a tree, as usual.
+ *
+ * @author Steve Reed
+ */
+public interface StreamingUnmarshaller<T> extends Unmarshaller<T> {
+
+	/**
+	 * Creates a builder for a single value.
+	 *
+	 * @param helper unmarshalling context
+	 * @param typeDef desired type
+	 * @return new builder
+	 */
+	TokenBuilder newBuilder(UnmarshallingContext helper, FixtureType typeDef);
+}
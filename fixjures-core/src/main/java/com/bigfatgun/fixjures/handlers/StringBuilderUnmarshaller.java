@@ -17,17 +17,15 @@
 package com.bigfatgun.fixjures.handlers;
 
 import com.bigfatgun.fixjures.FixtureType;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 
 /** Converts a {@code CharSequence} to a {@code StringBuilder}. */
-final class StringBuilderUnmarshaller extends AbstractUnmarshaller<StringBuilder> {
+final class StringBuilderUnmarshaller extends AbstractEagerUnmarshaller<StringBuilder> {
 
 	public StringBuilderUnmarshaller() {
 		super(CharSequence.class, StringBuilder.class);
 	}
 
-	public Supplier<? extends StringBuilder> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-		return Suppliers.ofInstance(new StringBuilder(castSourceValue(CharSequence.class, source)));
+	public StringBuilder unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+		return new StringBuilder(castSourceValue(CharSequence.class, source));
 	}
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureType;
+
+/**
+ * Builds one object, array or map value from the tokens nested in it, as they arrive. Created for each value by a
+ * {@link StreamingUnmarshaller}.
+ * <p/>
+ * Before each nested value the builder is asked for the value's type; it then receives the value either as a raw
+ * scalar or, for nested objects and arrays, already unmarshalled to that type.
+ *
+ * @author Steve Reed
+ */
+public interface TokenBuilder {
+
+	/**
+	 * Returns the type the next nested value should be unmarshalled to.
+	 *
+	 * @param name entry name inside objects, null inside arrays
+	 * @return desired type, or null if the value should be skipped
+	 */
+	FixtureType nextType(String name);
+
+	/**
+	 * Adds a raw scalar value.
+	 *
+	 * @param rawValue raw value, may be null
+	 */
+	void addScalar(Object rawValue);
+
+	/**
+	 * Adds a nested value that has already been unmarshalled to the type last returned by {@link #nextType(String)}.
+	 *
+	 * @param value unmarshalled value, may be null
+	 */
+	void addValue(Object value);
+
+	/**
+	 * @return the finished value
+	 */
+	Object build();
+}
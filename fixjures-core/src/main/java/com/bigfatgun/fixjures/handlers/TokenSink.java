@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+/**
+ * Receives a parsed document one token at a time, in document order. Parsers that can report tokens as they read them
+ * push them into a sink, such as a {@link TokenUnmarshaller}, instead of building a tree of maps and lists first.
+ * <p/>
+ * Every {@link #beginObject()} is matched by an {@link #endObject()} and every {@link #beginArray()} by an {@link
+ * #endArray()}. Inside an object, each value is preceded by a {@link #name(String)}.
+ *
+ * @author Steve Reed
+ */
+public interface TokenSink {
+
+	void beginObject();
+
+	/**
+	 * Receives the name of the object entry whose value follows.
+	 *
+	 * @param name entry name
+	 */
+	void name(String name);
+
+	void endObject();
+
+	void beginArray();
+
+	void endArray();
+
+	/**
+	 * Receives a scalar value, as the parser would have stored it in a tree: a string, number, boolean or other simple
+	 * value.
+	 *
+	 * @param rawValue raw scalar value, may be null
+	 */
+	void value(Object rawValue);
+}
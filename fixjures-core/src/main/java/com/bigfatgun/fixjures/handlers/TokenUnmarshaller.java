@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.FixtureType;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unmarshalls a document to a fixture type straight from parser tokens. Each object or array is handed to the
+ * unmarshaller the context resolves for a map or list of the desired type; if that is a {@link StreamingUnmarshaller},
+ * its {@link TokenBuilder} receives the nested values as they are parsed, and no map or list is ever created for it.
+ * <p/>
+ * Values bound to any other unmarshaller are collected into a map or list first and unmarshalled from that tree as
+ * usual. So are values whose unmarshaller may depend on their contents, such as when a handler installed on the source
+ * is considered, since the contents are not known until the value has been parsed. The whole document is collected this way under {@link
+ * Fixjure.Option#LAZY_REFERENCE_EVALUATION}, since lazily evaluated values need their raw data after parsing is done.
+ *
+ * @author Steve Reed
+ */
+public final class TokenUnmarshaller implements TokenSink {
+
+	/**
+	 * Empty values of the classes collected for non-streaming values, used to resolve unmarshallers before the value is
+	 * parsed. Never modified.
+	 */
+	private static final Map<String, Object> OBJECT_PROTOTYPE = new LinkedHashMap<String, Object>();
+	private static final List<Object> ARRAY_PROTOTYPE = new ArrayList<Object>();
+
+	/** The receiver of the tokens of one value. */
+	private abstract static class Frame {
+
+		abstract void name(String name);
+
+		abstract void value(Object rawValue);
+
+		/**
+		 * @param object true if an object begins, false for an array
+		 * @return frame receiving the tokens of the nested value
+		 */
+		abstract Frame open(boolean object);
+
+		/**
+		 * @param value value of the nested frame that just ended
+		 */
+		abstract void close(Object value);
+
+		abstract Object finish();
+	}
+
+	/** Receives the single top-level value. */
+	private final class RootFrame extends Frame {
+
+		private boolean complete = false;
+		private Object result = null;
+
+		void name(final String name) {
+			throw new FixtureException("Found name " + name + " outside of an object.");
+		}
+
+		void value(final Object rawValue) {
+			checkIncomplete();
+			close(helper.unmarshallValue(rawValue, type));
+		}
+
+		Frame open(final boolean object) {
+			checkIncomplete();
+			return frameFor(type, object);
+		}
+
+		void close(final Object value) {
+			result = value;
+			complete = true;
+		}
+
+		Object finish() {
+			throw new AssertionError("The root frame is never closed.");
+		}
+
+		private void checkIncomplete() {
+			if (complete) {
+				throw new FixtureException("Found more than one value in the document.");
+			}
+		}
+	}
+
+	/** Feeds a value's tokens to the builder of a streaming unmarshaller. */
+	private final class BuilderFrame extends Frame {
+
+		private final TokenBuilder builder;
+		private String pendingName = null;
+
+		private BuilderFrame(final TokenBuilder builder) {
+			this.builder = builder;
+		}
+
+		void name(final String name) {
+			pendingName = name;
+		}
+
+		void value(final Object rawValue) {
+			if (builder.nextType(pendingName) != null) {
+				builder.addScalar(rawValue);
+			}
+		}
+
+		Frame open(final boolean object) {
+			final FixtureType nestedType = builder.nextType(pendingName);
+			return (nestedType == null) ? skipFrame : frameFor(nestedType, object);
+		}
+
+		void close(final Object value) {
+			builder.addValue(value);
+		}
+
+		Object finish() {
+			return builder.build();
+		}
+	}
+
+	/** Collects a value into maps and lists, then unmarshalls it if it has a type. */
+	private final class TreeFrame extends Frame {
+
+		private final FixtureType treeType;
+		private final Map<String, Object> map;
+		private final List<Object> list;
+		private String pendingName = null;
+
+		private TreeFrame(final FixtureType treeType, final boolean object) {
+			this.treeType = treeType;
+			this.map = object ? Maps.<String, Object>newLinkedHashMap() : null;
+			this.list = object ? null : Lists.newArrayList();
+		}
+
+		void name(final String name) {
+			pendingName = name;
+		}
+
+		void value(final Object rawValue) {
+			close(rawValue);
+		}
+
+		Frame open(final boolean object) {
+			return new TreeFrame(null, object);
+		}
+
+		void close(final Object value) {
+			if (map != null) {
+				map.put(pendingName, value);
+			} else {
+				list.add(value);
+			}
+		}
+
+		Object finish() {
+			final Object tree = (map != null) ? map : list;
+			return (treeType == null) ? tree : helper.unmarshallValue(tree, treeType);
+		}
+	}
+
+	/** Ignores a value, including everything nested in it. */
+	private static final class SkipFrame extends Frame {
+
+		void name(final String name) {
+		}
+
+		void value(final Object rawValue) {
+		}
+
+		Frame open(final boolean object) {
+			return this;
+		}
+
+		void close(final Object value) {
+		}
+
+		Object finish() {
+			return null;
+		}
+	}
+
+	private final SourceContext helper;
+	private final FixtureType type;
+	private final boolean streaming;
+	private final Frame skipFrame;
+	private final RootFrame root;
+	private final LinkedList<Frame> frames;
+
+	/**
+	 * Creates an unmarshaller for a single document.
+	 *
+	 * @param helper unmarshalling context
+	 * @param type desired type of the document's value
+	 */
+	public TokenUnmarshaller(final UnmarshallingContext helper, final FixtureType type) {
+		this.helper = SourceContexts.of(helper);
+		this.type = checkNotNull(type);
+		this.streaming = !helper.getOptions().contains(Fixjure.Option.LAZY_REFERENCE_EVALUATION);
+		this.skipFrame = new SkipFrame();
+		this.root = new RootFrame();
+		this.frames = Lists.newLinkedList();
+		frames.push(root);
+	}
+
+	public void beginObject() {
+		frames.push(frames.peek().open(true));
+	}
+
+	public void name(final String name) {
+		frames.peek().name(name);
+	}
+
+	public void endObject() {
+		close();
+	}
+
+	public void beginArray() {
+		frames.push(frames.peek().open(false));
+	}
+
+	public void endArray() {
+		close();
+	}
+
+	public void value(final Object rawValue) {
+		frames.peek().value(rawValue);
+	}
+
+	/**
+	 * @return true once the document's value has been received
+	 */
+	public boolean isComplete() {
+		return root.complete && frames.size() == 1;
+	}
+
+	/**
+	 * Returns the unmarshalled value of the document.
+	 *
+	 * @return value, may be null
+	 * @throws FixtureException if the document has not been received completely
+	 */
+	public Object getValue() {
+		if (!isComplete()) {
+			throw new FixtureException("Document ended before its value was complete.");
+		}
+		return root.result;
+	}
+
+	private void close() {
+		if (frames.size() == 1) {
+			throw new FixtureException("Found the end of a value that was never started.");
+		}
+		final Frame frame = frames.pop();
+		if (frame != skipFrame) {
+			frames.peek().close(frame.finish());
+		}
+	}
+
+	private Frame frameFor(final FixtureType valueType, final boolean object) {
+		if (streaming) {
+			final Unmarshaller<?> unmarshaller = helper.findUnmarshallerByClass(object ? OBJECT_PROTOTYPE : ARRAY_PROTOTYPE, valueType);
+			if (unmarshaller instanceof StreamingUnmarshaller) {
+				return new BuilderFrame(((StreamingUnmarshaller<?>) unmarshaller).newBuilder(helper, valueType));
+			}
+		}
+		return new TreeFrame(valueType, object);
+	}
+}
@@ -18,19 +18,19 @@ package com.bigfatgun.fixjures.handlers;
 
 import com.bigfatgun.fixjures.Fixjure;
 import com.bigfatgun.fixjures.FixtureException;
-import static com.bigfatgun.fixjures.FixtureException.convert;
 import com.bigfatgun.fixjures.FixtureType;
 import com.bigfatgun.fixjures.proxy.ObjectProxy;
 import com.bigfatgun.fixjures.proxy.ObjectProxyData;
 import com.bigfatgun.fixjures.proxy.Proxies;
-import com.bigfatgun.fixjures.proxy.ProxyUtils;
-import com.google.common.base.Function;
+import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
@@ -42,35 +42,284 @@ import java.util.*;
 
 public final class Unmarshallers {
 
-	private static class ValueExtractor implements Function<Supplier<?>, Object> {
-		public Object apply(final Supplier<?> valueProvider) {
-			return valueProvider.get();
-		}
-	}
-
-	private static abstract class ListHandler<T> extends AbstractUnmarshaller<T> {
+	/**
+	 * Unmarshalls a source list into a collection in a single pass. Mutable collections are presized from the source list,
+	 * and immutable ones are filled through their builder. When streaming, elements are added to the collection as they
+	 * are parsed.
+	 */
+	private static abstract class ListHandler<T> extends AbstractEagerUnmarshaller<T> implements StreamingUnmarshaller<T> {
 		protected ListHandler(final Class<T> returnType) {
 			super(List.class, returnType);
 		}
 
-		public final Supplier<? extends T> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-			final List list = castSourceValue(List.class, source);
-			final ImmutableList<Supplier<?>> providers = objectsInArray(helper, list, typeDef);
-			return convertList(providers);
+		public final T unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+			final List<?> list = castSourceValue(List.class, source);
+			final FixtureType elementType = typeDef.collectionType();
+
+			if (helper.getOptions().contains(Fixjure.Option.IMMUTABLE_COLLECTIONS)) {
+				final ImmutableBuilder values = newImmutableBuilder();
+				for (final Object sourceValue : list) {
+					final Object value = SourceContexts.of(helper).unmarshallValue(sourceValue, elementType);
+					if (value == null) {
+						throw nullElement(elementType);
+					}
+					values.add(value);
+				}
+				return getReturnType().cast(values.build());
+			}
+
+			final Collection<Object> values = newCollection(list.size());
+			for (final Object sourceValue : list) {
+				values.add(SourceContexts.of(helper).unmarshallValue(sourceValue, elementType));
+			}
+			return getReturnType().cast(values);
 		}
 
-		private ImmutableList<Supplier<?>> objectsInArray(final UnmarshallingContext helper, final List array, final FixtureType collectionType) {
-			final List<Supplier<?>> source = Lists.newLinkedList();
+		public final TokenBuilder newBuilder(final UnmarshallingContext helper, final FixtureType typeDef) {
+			final FixtureType elementType = typeDef.collectionType();
+			final boolean immutable = helper.getOptions().contains(Fixjure.Option.IMMUTABLE_COLLECTIONS);
+			final ImmutableBuilder immutableValues = immutable ? newImmutableBuilder() : null;
+			final Collection<Object> values = immutable ? null : newCollection(0);
+
+			return new TokenBuilder() {
+				public FixtureType nextType(final String name) {
+					return elementType;
+				}
+
+				public void addScalar(final Object rawValue) {
+					addValue(SourceContexts.of(helper).unmarshallValue(rawValue, elementType));
+				}
+
+				public void addValue(final Object value) {
+					if (!immutable) {
+						values.add(value);
+					} else if (value == null) {
+						throw nullElement(elementType);
+					} else {
+						immutableValues.add(value);
+					}
+				}
+
+				public Object build() {
+					return getReturnType().cast(immutable ? immutableValues.build() : values);
+				}
+			};
+		}
+
+		private static FixtureException nullElement(final FixtureType elementType) {
+			return new FixtureException(String.format("Immutable collection of %s cannot contain null.", elementType.getType().getName()));
+		}
+
+		/**
+		 * @param expectedSize number of values that will be added
+		 * @return new mutable collection
+		 */
+		protected abstract Collection<Object> newCollection(final int expectedSize);
+
+		/**
+		 * @return new builder of the immutable collection
+		 */
+		protected abstract ImmutableBuilder newImmutableBuilder();
+	}
+
+	/** Accumulates the elements of an immutable collection. */
+	private static interface ImmutableBuilder {
+
+		void add(Object value);
 
-			for (final Object sourceValue : array) {
-				final Supplier<?> unmarshalled = helper.unmarshall(sourceValue, collectionType.collectionType());
-				source.add(unmarshalled);
+		Collection<Object> build();
+	}
+
+	private static ImmutableBuilder immutableListBuilder() {
+		final ImmutableList.Builder<Object> builder = ImmutableList.builder();
+		return new ImmutableBuilder() {
+			public void add(final Object value) {
+				builder.add(value);
+			}
+
+			public Collection<Object> build() {
+				return builder.build();
+			}
+		};
+	}
+
+	private static ImmutableBuilder immutableSetBuilder() {
+		final ImmutableSet.Builder<Object> builder = ImmutableSet.builder();
+		return new ImmutableBuilder() {
+			public void add(final Object value) {
+				builder.add(value);
+			}
+
+			public Collection<Object> build() {
+				return builder.build();
+			}
+		};
+	}
+
+	private static ImmutableBuilder immutableMultisetBuilder() {
+		final ImmutableMultiset.Builder<Object> builder = ImmutableMultiset.builder();
+		return new ImmutableBuilder() {
+			public void add(final Object value) {
+				builder.add(value);
+			}
+
+			public Collection<Object> build() {
+				return builder.build();
 			}
+		};
+	}
+
+	/** Unmarshalls a source list into an array of any non-primitive component type. */
+	private static final class ArrayHandler extends AbstractEagerUnmarshaller<Object> implements StreamingUnmarshaller<Object> {
+		private ArrayHandler() {
+			super(List.class, Object.class);
+		}
 
-			return ImmutableList.copyOf(source);
+		@Override
+		public boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredType) {
+			return desiredType.getType().isArray() && obj instanceof List;
 		}
 
-		protected abstract Supplier<? extends T> convertList(final ImmutableList<Supplier<?>> source);
+		public Object unmarshallValue(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+			final List array = (List) source;
+			final FixtureType definition = typeDef.collectionType();
+			final Class<?> collectionType = definition.getType();
+			final Object actualArray = Array.newInstance(collectionType, array.size());
+			for (int i = 0; i < array.size(); i++) {
+				Array.set(actualArray, i, SourceContexts.of(helper).unmarshallValue(array.get(i), definition));
+			}
+			return actualArray;
+		}
+
+		public TokenBuilder newBuilder(final UnmarshallingContext helper, final FixtureType typeDef) {
+			final FixtureType definition = typeDef.collectionType();
+			final List<Object> values = Lists.newArrayList();
+
+			return new TokenBuilder() {
+				public FixtureType nextType(final String name) {
+					return definition;
+				}
+
+				public void addScalar(final Object rawValue) {
+					values.add(SourceContexts.of(helper).unmarshallValue(rawValue, definition));
+				}
+
+				public void addValue(final Object value) {
+					values.add(value);
+				}
+
+				public Object build() {
+					final Object actualArray = Array.newInstance(definition.getType(), values.size());
+					for (int i = 0; i < values.size(); i++) {
+						Array.set(actualArray, i, values.get(i));
+					}
+					return actualArray;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Creates object proxies from source maps, or from the entries of an object as they are parsed. Either way the object
+	 * is built once, the first time it is needed, and the same instance is returned from then on.
+	 */
+	private static final class ObjectProxyHandler extends AbstractUnmarshaller<Object> implements StreamingUnmarshaller<Object> {
+		private ObjectProxyHandler() {
+			super(ObjectProxyData.class, Object.class);
+		}
+
+		public Supplier<?> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+			final ObjectProxy<?> proxy = Proxies.newProxy(typeDef.getType(), helper.getOptions());
+			configureProxy(helper, SourceContexts.of(helper).getPlan(typeDef), proxy, castSourceValue(ObjectProxyData.class, source).asMap());
+			return Suppliers.memoize(proxy);
+		}
+
+		public TokenBuilder newBuilder(final UnmarshallingContext helper, final FixtureType typeDef) {
+			final ObjectProxy<?> proxy = Proxies.newProxy(typeDef.getType(), helper.getOptions());
+			final UnmarshallingPlan plan = SourceContexts.of(helper).getPlan(typeDef);
+			final boolean skipUnmappable = helper.getOptions().contains(Fixjure.Option.SKIP_UNMAPPABLE);
+			final boolean lazy = helper.getOptions().contains(Fixjure.Option.LAZY_REFERENCE_EVALUATION);
+
+			return new TokenBuilder() {
+				private UnmarshallingPlan.Step step = null;
+
+				public FixtureType nextType(final String name) {
+					step = plan.getStep(name);
+					if (step.isMappable()) {
+						return step.getType();
+					} else if (skipUnmappable) {
+						return null;
+					} else {
+						throw new FixtureException("Could not find type of method for " + name);
+					}
+				}
+
+				public void addScalar(final Object rawValue) {
+					stub(helper, proxy, step, rawValue, skipUnmappable, lazy);
+				}
+
+				public void addValue(final Object value) {
+					Proxies.addValue(proxy, step.getMethodName(), value);
+				}
+
+				public Object build() {
+					return proxy.get();
+				}
+			};
+		}
+
+		private void configureProxy(final UnmarshallingContext helper, final UnmarshallingPlan plan, final ObjectProxy<?> proxy, final Map<?, ?> obj) {
+			final boolean skipUnmappable = helper.getOptions().contains(Fixjure.Option.SKIP_UNMAPPABLE);
+			final boolean lazy = helper.getOptions().contains(Fixjure.Option.LAZY_REFERENCE_EVALUATION);
+
+			for (final Map.Entry<?, ?> entry : obj.entrySet()) {
+				final String key = entry.getKey().toString();
+				final UnmarshallingPlan.Step step = plan.getStep(key);
+				if (!step.isMappable()) {
+					if (skipUnmappable) {
+						continue;
+					} else {
+						throw new FixtureException("Could not find type of method for " + key);
+					}
+				}
+
+				stub(helper, proxy, step, entry.getValue(), skipUnmappable, lazy);
+			}
+		}
+
+		private void stub(final UnmarshallingContext helper, final ObjectProxy<?> proxy, final UnmarshallingPlan.Step step, final Object value, final boolean skipUnmappable, final boolean lazy) {
+			if (!lazy && value != null && step.isEager(helper, value)) {
+				Proxies.addValue(proxy, step.getMethodName(), step.unmarshallValue(helper, value));
+				return;
+			}
+
+			final Supplier<?> stub;
+			if (lazy) {
+				stub = SourceContexts.of(helper).newLazyReference(new Supplier<Object>() {
+					public Object get() {
+						return step.unmarshallValue(helper, value);
+					}
+				});
+			} else {
+				stub = step.unmarshall(helper, value);
+			}
+
+			if (stub == null) {
+				if (skipUnmappable) {
+					return;
+				}
+
+				throw new FixtureException(String.format("Key [%s] (with value [%s] (%s)) found in source but " +
+						"could not stub. Could be its name or value type (%s) doesn't match methods in %s",
+						step.getKey(),
+						value,
+						(value == null) ? "??" : value.getClass().getSimpleName(),
+						step.getType(),
+						proxy.getType()));
+			} else {
+				proxy.addValueStub(step.getMethodName(), stub);
+			}
+		}
 	}
 
     public static Unmarshaller<Boolean> boolHandler() {
@@ -152,6 +401,94 @@ public final class Unmarshallers {
 		};
 	}
 
+	public static Unmarshaller<Byte> byteParser() {
+		return new NumberParsingUnmarshaller.Primitive<Byte>(Byte.class, Byte.TYPE) {
+			@Override
+			protected Byte parse(final String text) {
+				return (byte) parseIntegral(text, Byte.MIN_VALUE, Byte.MAX_VALUE);
+			}
+		};
+	}
+
+	public static Unmarshaller<Short> shortParser() {
+		return new NumberParsingUnmarshaller.Primitive<Short>(Short.class, Short.TYPE) {
+			@Override
+			protected Short parse(final String text) {
+				return (short) parseIntegral(text, Short.MIN_VALUE, Short.MAX_VALUE);
+			}
+		};
+	}
+
+	public static Unmarshaller<Integer> integerParser() {
+		return new NumberParsingUnmarshaller.Primitive<Integer>(Integer.class, Integer.TYPE) {
+			@Override
+			protected Integer parse(final String text) {
+				return (int) parseIntegral(text, Integer.MIN_VALUE, Integer.MAX_VALUE);
+			}
+		};
+	}
+
+	public static Unmarshaller<Long> longParser() {
+		return new NumberParsingUnmarshaller.Primitive<Long>(Long.class, Long.TYPE) {
+			@Override
+			protected Long parse(final String text) {
+				return parseIntegral(text, Long.MIN_VALUE, Long.MAX_VALUE);
+			}
+		};
+	}
+
+	public static Unmarshaller<Float> floatParser() {
+		return new NumberParsingUnmarshaller.Primitive<Float>(Float.class, Float.TYPE) {
+			@Override
+			protected Float parse(final String text) {
+				return Float.parseFloat(text);
+			}
+		};
+	}
+
+	public static Unmarshaller<Double> doubleParser() {
+		return new NumberParsingUnmarshaller.Primitive<Double>(Double.class, Double.TYPE) {
+			@Override
+			protected Double parse(final String text) {
+				return Double.parseDouble(text);
+			}
+		};
+	}
+
+	public static Unmarshaller<BigInteger> bigIntegerParser() {
+		return new NumberParsingUnmarshaller<BigInteger>(BigInteger.class) {
+			@Override
+			protected BigInteger parse(final String text) {
+				return parseBigInteger(text);
+			}
+		};
+	}
+
+	public static Unmarshaller<BigDecimal> bigDecimalParser() {
+		return new NumberParsingUnmarshaller<BigDecimal>(BigDecimal.class) {
+			@Override
+			protected BigDecimal parse(final String text) {
+				return new BigDecimal(text);
+			}
+		};
+	}
+
+	public static Unmarshaller<Enum> enumHandler() {
+		return new EnumUnmarshaller<Enum>(Enum.class, null);
+	}
+
+	/**
+	 * Creates an enum handler for a single enum type that maps unknown names and ordinals to a default constant.
+	 *
+	 * @param enumType enum type
+	 * @param defaultConstant constant used for unknown values, not null
+	 * @param <E> enum type
+	 * @return new handler
+	 */
+	public static <E extends Enum<E>> Unmarshaller<E> enumHandler(final Class<E> enumType, final E defaultConstant) {
+		return new EnumUnmarshaller<E>(enumType, checkNotNull(defaultConstant));
+	}
+
 	public static Unmarshaller<StringBuilder> stringBuilderHandler() {
 		return new StringBuilderUnmarshaller();
 	}
@@ -168,11 +505,20 @@ public final class Unmarshallers {
 		return new DateUnmarshaller();
 	}
 
+	public static Unmarshaller<Calendar> calendarHandler() {
+		return new CalendarUnmarshaller();
+	}
+
 	public static Unmarshaller<Set> newSetHandler() {
 		return new ListHandler<Set>(Set.class) {
 			@Override
-			protected Supplier<HashSet<Object>> convertList(final ImmutableList<Supplier<?>> source) {
-				return Suppliers.ofInstance(Sets.newHashSet(Iterables.transform(source, new ValueExtractor())));
+			protected Collection<Object> newCollection(final int expectedSize) {
+				return Sets.newHashSetWithExpectedSize(expectedSize);
+			}
+
+			@Override
+			protected ImmutableBuilder newImmutableBuilder() {
+				return immutableSetBuilder();
 			}
 		};
 	}
@@ -180,8 +526,13 @@ public final class Unmarshallers {
 	public static Unmarshaller<List> newListHandler() {
 		return new ListHandler<List>(List.class) {
 			@Override
-			protected Supplier<? extends List> convertList(final ImmutableList<Supplier<?>> source) {
-				return Suppliers.ofInstance(Lists.newArrayList(Iterables.transform(source, new ValueExtractor())));
+			protected Collection<Object> newCollection(final int expectedSize) {
+				return Lists.newArrayListWithCapacity(expectedSize);
+			}
+
+			@Override
+			protected ImmutableBuilder newImmutableBuilder() {
+				return immutableListBuilder();
 			}
 		};
 	}
@@ -189,8 +540,13 @@ public final class Unmarshallers {
 	public static Unmarshaller<Collection> newCollectionHandler() {
 		return new ListHandler<Collection>(Collection.class) {
 			@Override
-			protected Supplier<? extends Collection> convertList(final ImmutableList<Supplier<?>> source) {
-				return Suppliers.ofInstance(Lists.newArrayList(Iterables.transform(source, new ValueExtractor())));
+			protected Collection<Object> newCollection(final int expectedSize) {
+				return Lists.newArrayListWithCapacity(expectedSize);
+			}
+
+			@Override
+			protected ImmutableBuilder newImmutableBuilder() {
+				return immutableListBuilder();
 			}
 		};
 	}
@@ -198,120 +554,175 @@ public final class Unmarshallers {
 	public static Unmarshaller<Multiset> newMultisetHandler() {
 		return new ListHandler<Multiset>(Multiset.class) {
 			@Override
-			protected Supplier<? extends Multiset> convertList(final ImmutableList<Supplier<?>> source) {
-				return Suppliers.ofInstance(HashMultiset.create(Iterables.transform(source, new ValueExtractor())));
+			protected Collection<Object> newCollection(final int expectedSize) {
+				return HashMultiset.create(expectedSize);
+			}
+
+			@Override
+			protected ImmutableBuilder newImmutableBuilder() {
+				return immutableMultisetBuilder();
 			}
 		};
 	}
 
+	public static Unmarshaller<int[]> intArrayHandler() {
+		return new PrimitiveArrayUnmarshaller<int[]>(int[].class);
+	}
+
+	public static Unmarshaller<long[]> longArrayHandler() {
+		return new PrimitiveArrayUnmarshaller<long[]>(long[].class);
+	}
+
+	public static Unmarshaller<double[]> doubleArrayHandler() {
+		return new PrimitiveArrayUnmarshaller<double[]>(double[].class);
+	}
+
+	public static Unmarshaller<float[]> floatArrayHandler() {
+		return new PrimitiveArrayUnmarshaller<float[]>(float[].class);
+	}
+
+	public static Unmarshaller<short[]> shortArrayHandler() {
+		return new PrimitiveArrayUnmarshaller<short[]>(short[].class);
+	}
+
+	public static Unmarshaller<byte[]> byteArrayHandler() {
+		return new PrimitiveArrayUnmarshaller<byte[]>(byte[].class);
+	}
+
 	public static Unmarshaller<Object> newArrayHandler() {
-		return new Unmarshaller<Object>() {
-			public boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredType) {
-				return desiredType.getType().isArray() && obj instanceof List;
+		return new ArrayHandler();
+	}
+
+	/**
+	 * Creates the handler for maps declared as {@code Map}, which produces {@code ImmutableMap}s in source order.
+	 *
+	 * @return new handler
+	 */
+	public static Unmarshaller<Map> newMapHandler() {
+		return new MapUnmarshaller<Map>(Map.class) {
+			@Override
+			protected MapUnmarshaller.EntrySink<Map> newSink(final int expectedSize) {
+				return immutableMapSink(expectedSize);
 			}
+		};
+	}
 
-			public Class<Object> getReturnType() {
-				return Object.class;
+	public static Unmarshaller<ImmutableMap> newImmutableMapHandler() {
+		return new MapUnmarshaller<ImmutableMap>(ImmutableMap.class) {
+			@Override
+			protected MapUnmarshaller.EntrySink<ImmutableMap> newSink(final int expectedSize) {
+				return immutableMapSink(expectedSize);
 			}
+		};
+	}
 
-			public Supplier<Object> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-				final List array = (List) source;
-				final FixtureType definition = typeDef.collectionType();
-				final Class<?> collectionType = definition.getType();
-				final Object actualArray = Array.newInstance(collectionType, array.size());
-				for (int i = 0; i < array.size(); i++) {
-					final Supplier<?> arraySupplier = helper.unmarshall(array.get(i), definition);
-					final Object arrayValue = arraySupplier.get();
-					Array.set(actualArray, i, arrayValue);
-				}
-				return Suppliers.ofInstance(actualArray);
+	public static Unmarshaller<HashMap> newHashMapHandler() {
+		return new MapUnmarshaller<HashMap>(HashMap.class) {
+			@Override
+			protected MapUnmarshaller.EntrySink<HashMap> newSink(final int expectedSize) {
+				return into(new HashMap(capacity(expectedSize)));
 			}
 		};
 	}
 
-	public static Unmarshaller<Map> newMapHandler() {
-		return new AbstractUnmarshaller<Map>(Map.class, Map.class) {
-
-			public Supplier<ImmutableMap<Object, Object>> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-				final Map sourceObject = castSourceValue(Map.class, source);
-				final FixtureType keyType = typeDef.keyType();
-				final FixtureType valueType = typeDef.valueType();
-				ImmutableMap.Builder<Object, Object> builder = ImmutableMap.builder();
-				for (final Object lookupKey : sourceObject.keySet()) {
-					final Supplier<?> keyProvider = help(helper, lookupKey, keyType);
-					final Supplier<?> valueProvider = help(helper, sourceObject.get(String.valueOf(lookupKey)), valueType);
-					final Object key = keyProvider.get();
-					final Object keyValue = valueProvider.get();
-					if (key != null && keyValue != null) {
-						builder = builder.put(key, keyValue);
-					}
-				}
-				return Suppliers.ofInstance(builder.build());
+	public static Unmarshaller<LinkedHashMap> newLinkedHashMapHandler() {
+		return new MapUnmarshaller<LinkedHashMap>(LinkedHashMap.class) {
+			@Override
+			protected MapUnmarshaller.EntrySink<LinkedHashMap> newSink(final int expectedSize) {
+				return into(new LinkedHashMap(capacity(expectedSize)));
 			}
 		};
 	}
 
-	public static Unmarshaller<?> newObjectProxyHandler() {
-		return new AbstractUnmarshaller<Object>(ObjectProxyData.class, Object.class) {
-			public Supplier<?> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
-				final ObjectProxy<?> proxy = Proxies.newProxy(typeDef.getType(), helper.getOptions());
-				configureProxy(helper, proxy, castSourceValue(ObjectProxyData.class, source).get());
-				if (helper.getOptions().contains(Fixjure.Option.LAZY_REFERENCE_EVALUATION)) {
-					return proxy;
+	public static Unmarshaller<TreeMap> newTreeMapHandler() {
+		return new MapUnmarshaller<TreeMap>(TreeMap.class) {
+			@Override
+			protected MapUnmarshaller.EntrySink<TreeMap> newSink(final int expectedSize) {
+				return into(new TreeMap());
+			}
+		};
+	}
+
+	/**
+	 * Creates the handler for maps declared as {@code SortedMap}, which produces {@code ImmutableSortedMap}s in the
+	 * natural order of their keys.
+	 *
+	 * @return new handler
+	 */
+	public static Unmarshaller<SortedMap> newSortedMapHandler() {
+		return new MapUnmarshaller<SortedMap>(SortedMap.class) {
+			@Override
+			protected MapUnmarshaller.EntrySink<SortedMap> newSink(final int expectedSize) {
+				return immutableSortedMapSink();
+			}
+		};
+	}
+
+	public static Unmarshaller<ImmutableSortedMap> newImmutableSortedMapHandler() {
+		return new MapUnmarshaller<ImmutableSortedMap>(ImmutableSortedMap.class) {
+			@Override
+			protected MapUnmarshaller.EntrySink<ImmutableSortedMap> newSink(final int expectedSize) {
+				return immutableSortedMapSink();
+			}
+		};
+	}
+
+	/**
+	 * Creates a sink for an immutable map. Entries go straight into an {@link ImmutableMap.Builder}; the builder would
+	 * reject a repeated key, so keys are tracked and a repeated key's value is held aside until {@code build()}, where it
+	 * replaces the first value in place. A repeated key therefore keeps its last value at its first position.
+	 */
+	private static <M extends Map> MapUnmarshaller.EntrySink<M> immutableMapSink(final int expectedSize) {
+		final ImmutableMap.Builder<Object, Object> builder = ImmutableMap.builder();
+		final Set<Object> keys = new HashSet<Object>(MapUnmarshaller.capacity(expectedSize));
+		return new MapUnmarshaller.EntrySink<M>() {
+			private Map<Object, Object> repeated;
+
+			public void put(final Object key, final Object value) {
+				if (keys.add(key)) {
+					builder.put(key, value);
 				} else {
-					try {
-						return proxy;
-					} catch (Exception e) {
-						throw convert(e);
+					if (repeated == null) {
+						repeated = new HashMap<Object, Object>();
 					}
+					repeated.put(key, value);
 				}
 			}
 
-			private <T> void configureProxy(final UnmarshallingContext helper, final ObjectProxy<T> proxy, final Map<?, ?> obj) {
-				for (Object o : obj.keySet()) {
-					final String key = o.toString();
-					final String methodName = helper.getOptions().contains(Fixjure.Option.LITERAL_MAPPING) ? key : ProxyUtils.getterName(proxy.getType(), key);
-					final FixtureType getterTypeDef = proxy.suggestType(methodName);
-					if (getterTypeDef == null) {
-						if (helper.getOptions().contains(Fixjure.Option.SKIP_UNMAPPABLE)) {
-							continue;
-						} else {
-                            throw new FixtureException("Could not find type of method for " + key);
-                        }
-					}
+			@SuppressWarnings({"unchecked"})
+			public M build() {
+				final ImmutableMap<Object, Object> map = builder.build();
+				if (repeated == null) {
+					return (M) map;
+				}
+				final ImmutableMap.Builder<Object, Object> replaced = ImmutableMap.builder();
+				for (final Map.Entry<Object, Object> entry : map.entrySet()) {
+					final Object key = entry.getKey();
+					replaced.put(key, repeated.containsKey(key) ? repeated.get(key) : entry.getValue());
+				}
+				return (M) replaced.build();
+			}
+		};
+	}
 
-					final Supplier<?> stub;
-					if (helper.getOptions().contains(Fixjure.Option.LAZY_REFERENCE_EVALUATION)) {
-						stub = new Supplier<Object>() {
-							public Object get() {
-								Supplier<?> supplier = helper.unmarshall(obj.get(key), getterTypeDef);
-								if (supplier == null) {
-									throw new FixtureException(String.format("Could not find unmarshaller for %s (%s)", obj.get(key), getterTypeDef));
-								}
-								return supplier.get();
-							}
-						};
-					} else {
-						stub = helper.unmarshall(obj.get(key), getterTypeDef);
-					}
+	/**
+	 * Creates a sink for an immutable sorted map in the natural order of its keys. A repeated key keeps its last value.
+	 */
+	@SuppressWarnings({"unchecked"})
+	private static <M extends Map> MapUnmarshaller.EntrySink<M> immutableSortedMapSink() {
+		final TreeMap entries = new TreeMap();
+		return new MapUnmarshaller.EntrySink<M>() {
+			public void put(final Object key, final Object value) {
+				entries.put(key, value);
+			}
 
-					if (stub == null) {
-						if (helper.getOptions().contains(Fixjure.Option.SKIP_UNMAPPABLE)) {
-							continue;
-						}
-
-						throw new FixtureException(String.format("Key [%s] (with value [%s] (%s)) found in source but " +
-                                "could not stub. Could be its name or value type (%s) doesn't match methods in %s",
-                                key,
-                                obj.get(key),
-                                (obj.get(key) == null) ? "??" : obj.get(key).getClass().getSimpleName(),
-                                getterTypeDef,
-                                proxy.getType()));
-					} else {
-                        proxy.addValueStub(methodName, stub);
-                    }
-				}
+			public M build() {
+				return (M) ImmutableSortedMap.copyOfSorted(entries);
 			}
 		};
 	}
+
+	public static Unmarshaller<?> newObjectProxyHandler() {
+		return new ObjectProxyHandler();
+	}
 }
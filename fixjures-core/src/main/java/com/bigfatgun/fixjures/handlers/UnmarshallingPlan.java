@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.FixtureType;
+import com.bigfatgun.fixjures.proxy.ConstructorIndex;
+import com.bigfatgun.fixjures.proxy.PropertyIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A compiled description of how source data maps onto an object type. The type's getters are taken from its {@link
+ * PropertyIndex} when the plan is created, and every source key is bound to a {@link Step} holding its getter name,
+ * return type and the unmarshaller last used for it, so unmarshalling further objects of the type needs no reflection
+ * or handler search. With {@link Fixjure.Option#CONSTRUCTOR_BINDING}, the parameter names of the type's {@link
+ * ConstructorIndex annotated constructor} are bound as well, whether or not the type has getters for them.
+ * <p/>
+ * Plans are cached per type and option set by the {@link com.bigfatgun.fixjures.UnmarshallerRegistry} that resolved
+ * their unmarshallers. Plans of a registry with handlers installed on top of the defaults do not remember
+ * unmarshallers, since installed handlers may choose by the contents of a value rather than its class.
+ *
+ * @author Steve Reed
+ */
+public final class UnmarshallingPlan {
+
+	/** Most raw value classes a step remembers unmarshallers for; further classes are resolved through the context. */
+	private static final int MAX_BINDINGS = 4;
+
+	/**
+	 * Most source keys that map to no getter a plan remembers; plans are shared process-wide, so steps for further such
+	 * keys are created on each use instead.
+	 */
+	private static final int MAX_UNMAPPABLE_KEYS = 32;
+
+	private static final Binding[] NO_BINDINGS = new Binding[0];
+
+	/** A raw value class paired with the unmarshaller resolved for it. */
+	private static final class Binding {
+
+		private final Class<?> sourceType;
+		private final Unmarshaller<?> unmarshaller;
+
+		private Binding(final Class<?> sourceType, final Unmarshaller<?> unmarshaller) {
+			this.sourceType = sourceType;
+			this.unmarshaller = unmarshaller;
+		}
+	}
+
+	/** A single source key bound to the getter it stubs. */
+	public static final class Step {
+
+		private final String key;
+		private final String methodName;
+		private final FixtureType type;
+		private final boolean cacheBindings;
+		private volatile Binding[] bindings = NO_BINDINGS;
+
+		private Step(final String key, final String methodName, final FixtureType type, final boolean cacheBindings) {
+			this.key = key;
+			this.methodName = methodName;
+			this.type = type;
+			this.cacheBindings = cacheBindings;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public String getMethodName() {
+			return methodName;
+		}
+
+		/**
+		 * @return getter return type, or null if the key is not mappable to any getter
+		 */
+		public FixtureType getType() {
+			return type;
+		}
+
+		public boolean isMappable() {
+			return type != null;
+		}
+
+		/**
+		 * Unmarshalls a raw value to this step's type, reusing the unmarshallers resolved for the first few raw value
+		 * classes seen, including null.
+		 *
+		 * @param helper unmarshalling context
+		 * @param rawValue raw value
+		 * @return value supplier, null if the value cannot be unmarshalled
+		 */
+		public Supplier<?> unmarshall(final UnmarshallingContext helper, final Object rawValue) {
+			checkNotNull(type);
+
+			return unmarshallerFor(helper, rawValue).unmarshall(helper, rawValue, type);
+		}
+
+		/**
+		 * Unmarshalls a raw value to this step's type immediately.
+		 *
+		 * @param helper unmarshalling context
+		 * @param rawValue raw value
+		 * @return value, may be null
+		 * @throws FixtureException if the value cannot be unmarshalled
+		 */
+		public Object unmarshallValue(final UnmarshallingContext helper, final Object rawValue) {
+			checkNotNull(type);
+
+			final Unmarshaller<?> unmarshaller = unmarshallerFor(helper, rawValue);
+			if (unmarshaller instanceof EagerUnmarshaller) {
+				final Object value = ((EagerUnmarshaller<?>) unmarshaller).unmarshallValue(helper, rawValue, type);
+				if (value != null) {
+					return value;
+				}
+			}
+
+			final Supplier<?> supplier = unmarshaller.unmarshall(helper, rawValue, type);
+			if (supplier == null) {
+				throw new FixtureException(String.format("Could not find unmarshaller for %s (%s)", rawValue, type));
+			}
+			return supplier.get();
+		}
+
+		/**
+		 * Returns true if raw values like this one are unmarshalled by an {@link EagerUnmarshaller}, so {@link
+		 * #unmarshallValue} produces the value without creating a supplier.
+		 *
+		 * @param helper unmarshalling context
+		 * @param rawValue raw value
+		 * @return true if unmarshalled eagerly
+		 */
+		public boolean isEager(final UnmarshallingContext helper, final Object rawValue) {
+			checkNotNull(type);
+
+			return unmarshallerFor(helper, rawValue) instanceof EagerUnmarshaller;
+		}
+
+		private Unmarshaller<?> unmarshallerFor(final UnmarshallingContext helper, final Object rawValue) {
+			if (!cacheBindings) {
+				return SourceContexts.of(helper).findUnmarshaller(rawValue, type);
+			}
+
+			final Class<?> sourceType = (rawValue == null) ? null : rawValue.getClass();
+			final Binding[] current = bindings;
+			for (final Binding binding : current) {
+				if (binding.sourceType == sourceType) {
+					return binding.unmarshaller;
+				}
+			}
+
+			final Unmarshaller<?> unmarshaller = SourceContexts.of(helper).findUnmarshaller(rawValue, type);
+			if (current.length < MAX_BINDINGS) {
+				final Binding[] added = Arrays.copyOf(current, current.length + 1);
+				added[current.length] = new Binding(sourceType, unmarshaller);
+				bindings = added;
+			}
+			return unmarshaller;
+		}
+	}
+
+	/**
+	 * Compiles a plan for the given type.
+	 *
+	 * @param type object type
+	 * @param options options that affect key mapping
+	 * @return new plan
+	 */
+	public static UnmarshallingPlan compile(final Class<?> type, final ImmutableSet<Fixjure.Option> options) {
+		return compile(type, options, true);
+	}
+
+	/**
+	 * Compiles a plan for the given type.
+	 *
+	 * @param type object type
+	 * @param options options that affect key mapping
+	 * @param cacheBindings whether steps may remember the unmarshaller resolved for a raw value class
+	 * @return new plan
+	 */
+	public static UnmarshallingPlan compile(final Class<?> type, final ImmutableSet<Fixjure.Option> options, final boolean cacheBindings) {
+		return new UnmarshallingPlan(type, options.contains(Fixjure.Option.LITERAL_MAPPING), options.contains(Fixjure.Option.CONSTRUCTOR_BINDING), cacheBindings);
+	}
+
+	private final Class<?> type;
+	private final boolean literalMapping;
+	private final boolean cacheBindings;
+	private final PropertyIndex properties;
+	private final ConcurrentMap<String, Step> steps;
+	private final AtomicInteger unmappableKeys = new AtomicInteger();
+
+	private UnmarshallingPlan(final Class<?> type, final boolean literalMapping, final boolean constructorBinding, final boolean cacheBindings) {
+		this.type = checkNotNull(type);
+		this.literalMapping = literalMapping;
+		this.cacheBindings = cacheBindings;
+		this.properties = PropertyIndex.of(type);
+		this.steps = Maps.newConcurrentMap();
+
+		for (final PropertyIndex.Property property : properties.getProperties()) {
+			if (literalMapping) {
+				bind(property.getGetter().getName());
+			} else if (properties.forProperty(property.getName()) == property) {
+				bind(property.getName());
+			}
+		}
+
+		if (constructorBinding) {
+			for (final ConstructorIndex.Parameter parameter : ConstructorIndex.of(type).getParameters()) {
+				final PropertyIndex.Property property = properties.forProperty(parameter.getName());
+				final String methodName = (property == null) ? parameter.getName() : property.getGetter().getName();
+				steps.put(parameter.getName(), new Step(parameter.getName(), methodName, parameter.getType(), cacheBindings));
+			}
+		}
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the step for a source key. Keys that were not seen when the plan was compiled, such as differently
+	 * capitalized property names, are bound on first use. Only the first few keys that map to no getter are
+	 * remembered, so arbitrary source keys cannot grow the plan without limit.
+	 *
+	 * @param key source key
+	 * @return step, never null; check {@link Step#isMappable()}
+	 */
+	public Step getStep(final String key) {
+		final Step step = steps.get(key);
+		return (step == null) ? bind(key) : step;
+	}
+
+	private Step bind(final String key) {
+		final PropertyIndex.Property property = literalMapping ? properties.forMethod(key) : properties.forProperty(key);
+		if (property == null) {
+			final Step step = new Step(key, literalMapping ? key : null, null, cacheBindings);
+			if (unmappableKeys.get() >= MAX_UNMAPPABLE_KEYS || unmappableKeys.incrementAndGet() > MAX_UNMAPPABLE_KEYS) {
+				return step;
+			}
+			final Step existing = steps.putIfAbsent(key, step);
+			return (existing == null) ? step : existing;
+		}
+
+		final Step step = new Step(key, property.getGetter().getName(), property.getType(), cacheBindings);
+		final Step existing = steps.putIfAbsent(key, step);
+		return (existing == null) ? step : existing;
+	}
+}
@@ -17,16 +17,15 @@
 package com.bigfatgun.fixjures.proxy;
 
 import com.bigfatgun.fixjures.Fixjure;
-import static com.bigfatgun.fixjures.FixtureException.convert;
+import com.bigfatgun.fixjures.FixtureException;
 import com.bigfatgun.fixjures.FixtureType;
-import com.bigfatgun.fixjures.TypeWrapper;
 import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
-import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.Set;
 
@@ -52,22 +51,19 @@ abstract class AbstractObjectProxy<T> implements ObjectProxy<T> {
 	}
 
 	public final FixtureType suggestType(final String key) {
-        if (key == null) {
-            return null;
-        }
-        
-        final Method getter;
-        try {
-            getter = getType().getMethod(key);
-            return TypeWrapper.wrapMethodReturnType(getter);
-        } catch (NoSuchMethodException e) {
-            if (isOptionEnabled(Fixjure.Option.SKIP_UNMAPPABLE)) {
-                return null;
-            } else {
-                throw convert(e);
-            }
-        }
-    }
+		if (key == null) {
+			return null;
+		}
+
+		final PropertyIndex.Property property = PropertyIndex.of(getType()).forMethod(key);
+		if (property != null) {
+			return property.getType();
+		} else if (isOptionEnabled(Fixjure.Option.SKIP_UNMAPPABLE)) {
+			return null;
+		} else {
+			throw new FixtureException(String.format("Type %s has no method %s.", getType().getName(), key));
+		}
+	}
 
 	protected boolean isOptionEnabled(final Fixjure.Option option) {
 		return options.contains(option);
@@ -90,5 +86,36 @@ abstract class AbstractObjectProxy<T> implements ObjectProxy<T> {
 	 */
 	public final void addValueStub(final String methodName, final Supplier<?> valueStub) {
 		stubs.put(methodName, valueStub);
+		stubsChanged(methodName);
+	}
+
+	/**
+	 * Adds a fixed return value for a method with the given name. By default the value is wrapped in a stub; subclasses
+	 * may store it more compactly.
+	 *
+	 * @param methodName method name
+	 * @param value method return value
+	 */
+	public void addValue(final String methodName, final Object value) {
+		addValueStub(methodName, Suppliers.ofInstance(value));
+	}
+
+	/**
+	 * Removes the stub of a method, if there is one.
+	 *
+	 * @param methodName method name
+	 */
+	protected final void removeValueStub(final String methodName) {
+		if (stubs.remove(methodName) != null) {
+			stubsChanged(methodName);
+		}
+	}
+
+	/**
+	 * Called after a stub is added or removed, so subclasses can discard anything derived from the stubs.
+	 *
+	 * @param methodName method name of the stub
+	 */
+	protected void stubsChanged(final String methodName) {
 	}
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.ClassCache;
+import com.bigfatgun.fixjures.FixtureException;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+/**
+ * The reflective members needed to populate a bean: its no-arg constructor, for every getter the setter that accepts
+ * the getter's return type, and the instance fields declared by the class and its superclasses. Members are looked up
+ * and made accessible once per class and shared by every {@link ConcreteReflectionProxy} of that class.
+ *
+ * @author Steve Reed
+ */
+final class BeanMetadata {
+
+	private static final ClassCache<BeanMetadata> METADATA = ClassCache.of(new Function<Class<?>, BeanMetadata>() {
+		public BeanMetadata apply(final Class<?> type) {
+			return new BeanMetadata(type);
+		}
+	});
+
+	/**
+	 * Returns the metadata of a concrete class.
+	 *
+	 * @param type bean class
+	 * @return bean metadata
+	 */
+	static BeanMetadata of(final Class<?> type) {
+		return METADATA.get(type);
+	}
+
+	private final Class<?> type;
+	private final Constructor<?> constructor;
+	private final ImmutableMap<String, Method> settersByGetter;
+	private final ImmutableMap<String, Field> fieldsByName;
+
+	private BeanMetadata(final Class<?> type) {
+		this.type = type;
+		this.constructor = findConstructor(type);
+
+		final Map<String, Field> declaredFields = Maps.newHashMap();
+		for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+			for (final Field field : cls.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic() && !declaredFields.containsKey(field.getName())) {
+					declaredFields.put(field.getName(), accessible(field));
+				}
+			}
+		}
+
+		final ImmutableMap.Builder<String, Method> setters = ImmutableMap.builder();
+		final Map<String, Field> fields = Maps.newHashMap(declaredFields);
+		for (final PropertyIndex.Property property : PropertyIndex.of(type).getProperties()) {
+			if (property.getSetter() != null) {
+				setters.put(property.getGetter().getName(), accessible(property.getSetter()));
+			}
+
+			final Field field = declaredFields.get(property.getName());
+			if (field != null && field.getType().isAssignableFrom(property.getGetter().getReturnType())) {
+				fields.put(property.getGetter().getName(), field);
+			}
+		}
+		this.settersByGetter = setters.build();
+		this.fieldsByName = ImmutableMap.copyOf(fields);
+	}
+
+	/**
+	 * Invokes the class's no-arg constructor.
+	 *
+	 * @return new instance
+	 * @throws FixtureException if the class has no no-arg constructor or it fails
+	 */
+	Object newInstance() {
+		if (constructor == null) {
+			throw new FixtureException(String.format("Class %s has no no-arg constructor.", type.getName()));
+		}
+
+		try {
+			return constructor.newInstance();
+		} catch (InstantiationException e) {
+			throw FixtureException.convert(e);
+		} catch (IllegalAccessException e) {
+			throw FixtureException.convert(e);
+		} catch (InvocationTargetException e) {
+			throw FixtureException.convert(e);
+		}
+	}
+
+	/**
+	 * Returns the setter paired with a getter.
+	 *
+	 * @param getterName getter name, such as "getName"
+	 * @return setter, or null if the getter does not exist or has no matching setter
+	 */
+	Method setterFor(final String getterName) {
+		return settersByGetter.get(getterName);
+	}
+
+	/**
+	 * Returns the field backing a getter, or a field by name. A getter is backed by the field named after its property,
+	 * as long as the field can hold the getter's return type.
+	 *
+	 * @param name getter name, such as "getName", or field name
+	 * @return accessible field, or null if there is none
+	 */
+	Field fieldFor(final String name) {
+		return fieldsByName.get(name);
+	}
+
+	private static Constructor<?> findConstructor(final Class<?> type) {
+		try {
+			return accessible(type.getDeclaredConstructor());
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static <T extends AccessibleObject> T accessible(final T member) {
+		try {
+			member.setAccessible(true);
+		} catch (SecurityException e) {
+			// fall back to checked access
+		}
+		return member;
+	}
+}
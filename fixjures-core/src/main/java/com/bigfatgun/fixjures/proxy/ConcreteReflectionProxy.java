@@ -21,13 +21,14 @@ import com.bigfatgun.fixjures.FixtureException;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableSet;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Map;
 
 /**
- * "Proxies" concrete types by using reflection to instantiate the object and invoke property setters.
+ * "Proxies" concrete types by using reflection to instantiate the object and invoke property setters. With {@link
+ * Fixjure.Option#FIELD_INJECTION} enabled, values are written straight into the fields backing each getter instead,
+ * which also populates classes whose fields are final and have no setters.
  *
  * @author Steve Reed
  */
@@ -41,24 +42,36 @@ final class ConcreteReflectionProxy<T> extends AbstractObjectProxy<T> {
 	}
 
 	/**
-	 * Invokes the object's no-arg constructor and invokes setters for all of the known stubs. Returns null if there is any
-	 * sort of error while invoking said constructor.
+	 * Invokes the object's no-arg constructor and invokes setters, or sets fields, for all of the known stubs. The
+	 * constructor, setters and fields are looked up once per class, see {@link BeanMetadata}.
 	 * <p/>
 	 * {@inheritDoc}
 	 */
 	@Override
 	public T get() {
+		final BeanMetadata metadata = BeanMetadata.of(getType());
+		final boolean skipUnmappable = isOptionEnabled(Fixjure.Option.SKIP_UNMAPPABLE);
+		final boolean fieldInjection = isOptionEnabled(Fixjure.Option.FIELD_INJECTION);
+
 		try {
-			final Constructor<T> ctor = getType().getDeclaredConstructor();
-			ctor.setAccessible(true);
-			final T object = ctor.newInstance();
+			final T object = getType().cast(metadata.newInstance());
 
 			for (final Map.Entry<String, Supplier<?>> entry : getStubs().entrySet()) {
-                String setter = ProxyUtils.convertNameToSetter(entry.getKey());
-                if (setter == null && !this.isOptionEnabled(Fixjure.Option.SKIP_UNMAPPABLE)) {
-                    throw new FixtureException("Cannot find setter for " + entry.getKey());
-                }
-                setInstanceValue(object, entry.getKey(), setter, entry.getValue().get());
+				final Field field = fieldInjection ? metadata.fieldFor(entry.getKey()) : null;
+				if (field != null) {
+					final Object value = entry.getValue().get();
+					if (value != null || !field.getType().isPrimitive()) {
+						field.set(object, value);
+					}
+					continue;
+				}
+
+				final Method setter = metadata.setterFor(entry.getKey());
+				if (setter != null) {
+					setter.invoke(object, entry.getValue().get());
+				} else if (!skipUnmappable) {
+					throw new FixtureException("Cannot find setter for " + entry.getKey());
+				}
 			}
 
 			return object;
@@ -66,26 +79,4 @@ final class ConcreteReflectionProxy<T> extends AbstractObjectProxy<T> {
 			throw FixtureException.convert(e);
 		}
 	}
-
-	/**
-	 * Uses reflection to find the object's setter method, and invokes it with the given value.
-	 *
-	 * @param object object to invoke setter on
-	 * @param getterName name of getter method
-	 * @param setterName name of setter method
-	 * @param value value to set
-	 * @throws IllegalAccessException if getter or setter cannot be accessed
-	 * @throws java.lang.reflect.InvocationTargetException if setter cannot be invoked
-	 */
-	private void setInstanceValue(final T object, final String getterName, final String setterName, final Object value) throws InvocationTargetException, IllegalAccessException {
-        try {
-            final Method getter = getType().getMethod(getterName);
-            final Method setter = getType().getMethod(setterName, getter.getReturnType());
-            setter.invoke(object, value);
-        } catch (NoSuchMethodException e) {
-            if (!this.isOptionEnabled(Fixjure.Option.SKIP_UNMAPPABLE)) {
-                throw FixtureException.convert(e);
-            }
-        }
-    }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.ClassCache;
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.google.common.base.Defaults;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.beans.ConstructorProperties;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+
+/**
+ * "Proxies" concrete types that name their constructor parameters with {@link ConstructorProperties}, see {@link
+ * ConstructorIndex}. All stubs are evaluated first, and the constructor is then called once with the values as
+ * arguments, so immutable types need neither a no-arg constructor nor setters. Used when {@link
+ * Fixjure.Option#CONSTRUCTOR_BINDING} is enabled.
+ * <p/>
+ * Stubs are matched to parameters by parameter name, or through the getter of the property of that name, the same way
+ * source keys are matched to getters. Parameters without a stub receive null, or the default value of their primitive
+ * type.
+ *
+ * @author Steve Reed
+ */
+final class ConstructorBindingProxy<T> extends AbstractObjectProxy<T> {
+
+	/** The constructor chosen for a class, and the stub keys of each of its parameters. */
+	private static final class Binding {
+
+		private final Constructor<?> constructor;
+		private final Class<?>[] parameterTypes;
+		private final ImmutableMap<String, Integer> parameterIndexes;
+
+		private Binding(final Class<?> type) {
+			final ConstructorIndex index = ConstructorIndex.of(type);
+			this.constructor = index.getConstructor();
+			this.parameterTypes = constructor.getParameterTypes();
+
+			final PropertyIndex properties = PropertyIndex.of(type);
+			final Map<String, Integer> indexes = Maps.newHashMapWithExpectedSize(parameterTypes.length * 2);
+			for (final ConstructorIndex.Parameter parameter : index.getParameters()) {
+				indexes.put(parameter.getName(), parameter.getIndex());
+				final PropertyIndex.Property property = properties.forProperty(parameter.getName());
+				if (property != null) {
+					indexes.put(property.getGetter().getName(), parameter.getIndex());
+				}
+			}
+			this.parameterIndexes = ImmutableMap.copyOf(indexes);
+
+			try {
+				constructor.setAccessible(true);
+			} catch (SecurityException e) {
+				// fall back to checked access
+			}
+		}
+	}
+
+	private static final ClassCache<Binding> BINDINGS = ClassCache.of(new Function<Class<?>, Binding>() {
+		public Binding apply(final Class<?> type) {
+			return new Binding(type);
+		}
+	});
+
+	/**
+	 * Returns true if the class has a constructor annotated with {@link ConstructorProperties} that names every parameter.
+	 *
+	 * @param type concrete class
+	 * @return true if a constructor binding proxy can create the class
+	 */
+	static boolean supports(final Class<?> type) {
+		return ConstructorIndex.of(type).isBindable();
+	}
+
+	private final Binding binding;
+
+	ConstructorBindingProxy(final Class<T> cls, final ImmutableSet<Fixjure.Option> options) {
+		super(cls, options);
+		if (!supports(cls)) {
+			throw new IllegalStateException(String.format("Class %s has no constructor annotated with @ConstructorProperties.", cls.getName()));
+		}
+		this.binding = BINDINGS.get(cls);
+	}
+	/**
+	 * Evaluates every stub and invokes the bound constructor with the values.
+	 * <p/>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T get() {
+		final Object[] arguments = new Object[binding.parameterTypes.length];
+		final boolean skipUnmappable = isOptionEnabled(Fixjure.Option.SKIP_UNMAPPABLE);
+
+		for (final Map.Entry<String, Supplier<?>> entry : getStubs().entrySet()) {
+			final Integer index = binding.parameterIndexes.get(entry.getKey());
+			if (index != null) {
+				arguments[index] = entry.getValue().get();
+			} else if (!skipUnmappable) {
+				throw new FixtureException("Cannot find constructor parameter for " + entry.getKey());
+			}
+		}
+
+		for (int i = 0; i < arguments.length; i++) {
+			if (arguments[i] == null) {
+				arguments[i] = Defaults.defaultValue(binding.parameterTypes[i]);
+			}
+		}
+
+		try {
+			return getType().cast(binding.constructor.newInstance(arguments));
+		} catch (InstantiationException e) {
+			throw FixtureException.convert(e);
+		} catch (IllegalAccessException e) {
+			throw FixtureException.convert(e);
+		} catch (InvocationTargetException e) {
+			throw FixtureException.convert(e);
+		} catch (IllegalArgumentException e) {
+			throw FixtureException.convert(e);
+		}
+	}
+}
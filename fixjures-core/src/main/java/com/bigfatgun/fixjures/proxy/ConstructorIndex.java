@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.ClassCache;
+import com.bigfatgun.fixjures.FixtureType;
+import com.bigfatgun.fixjures.TypeWrapper;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.beans.ConstructorProperties;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * The parameters of the constructor a class names with {@link ConstructorProperties}, indexed by name. When several
+ * constructors are annotated, the one with the most parameters is chosen. A class's constructors are walked once, the
+ * first time its index is requested.
+ *
+ * @author Steve Reed
+ */
+public final class ConstructorIndex {
+
+	/** A named constructor parameter. */
+	public static final class Parameter {
+
+		private final String name;
+		private final int index;
+		private final FixtureType type;
+
+		private Parameter(final String name, final int index, final FixtureType type) {
+			this.name = name;
+			this.index = index;
+			this.type = type;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return position of the parameter in the constructor's parameter list
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return parameter type, including generic type arguments
+		 */
+		public FixtureType getType() {
+			return type;
+		}
+	}
+
+	private static final ClassCache<ConstructorIndex> INDEXES = ClassCache.of(new Function<Class<?>, ConstructorIndex>() {
+		public ConstructorIndex apply(final Class<?> type) {
+			return new ConstructorIndex(type);
+		}
+	});
+
+	/**
+	 * Returns the constructor index of a class.
+	 *
+	 * @param type class
+	 * @return constructor index, which is empty if the class has no annotated constructor
+	 */
+	public static ConstructorIndex of(final Class<?> type) {
+		return INDEXES.get(type);
+	}
+
+	private final Constructor<?> constructor;
+	private final ImmutableList<Parameter> parameters;
+	private final ImmutableMap<String, Parameter> byName;
+
+	private ConstructorIndex(final Class<?> type) {
+		Constructor<?> best = null;
+		String[] bestNames = null;
+		if (!type.isInterface()) {
+			for (final Constructor<?> candidate : type.getDeclaredConstructors()) {
+				final ConstructorProperties properties = candidate.getAnnotation(ConstructorProperties.class);
+				if (properties != null
+						&& properties.value().length == candidate.getParameterTypes().length
+						&& (best == null || bestNames.length < properties.value().length)) {
+					best = candidate;
+					bestNames = properties.value();
+				}
+			}
+		}
+
+		final ImmutableList.Builder<Parameter> list = ImmutableList.builder();
+		final Map<String, Parameter> names = Maps.newHashMap();
+		if (best != null) {
+			final Class<?>[] rawTypes = best.getParameterTypes();
+			final Type[] genericTypes = best.getGenericParameterTypes();
+			for (int i = 0; i < bestNames.length; i++) {
+				// inner class constructors may leave the enclosing instance out of their generic parameter types
+				final Type parameterType = (genericTypes.length == rawTypes.length) ? genericTypes[i] : rawTypes[i];
+				final Parameter parameter = new Parameter(bestNames[i], i, TypeWrapper.wrap(parameterType));
+				list.add(parameter);
+				names.put(parameter.getName(), parameter);
+			}
+		}
+
+		this.constructor = best;
+		this.parameters = list.build();
+		this.byName = ImmutableMap.copyOf(names);
+	}
+
+	/**
+	 * @return true if the class has an annotated constructor that names every parameter
+	 */
+	public boolean isBindable() {
+		return constructor != null;
+	}
+
+	/**
+	 * @return annotated constructor, or null if there is none
+	 */
+	Constructor<?> getConstructor() {
+		return constructor;
+	}
+
+	/**
+	 * @return parameters in constructor order
+	 */
+	public ImmutableList<Parameter> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * @param name parameter name
+	 * @return parameter, or null if the constructor has no parameter of that name
+	 */
+	public Parameter forName(final String name) {
+		return byName.get(name);
+	}
+}
@@ -0,0 +1,562 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.ClassCache;
+import com.bigfatgun.fixjures.FixtureException;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Primitives;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a concrete class per interface that stores each getter's value in a final field of the getter's own type,
+ * so calls involve no reflection and primitives are never boxed after construction. The class file is written
+ * directly; it extends {@link GeneratedFixture}, has a single constructor taking the values in getter order, and
+ * implements {@code hashCode} and {@code fieldValues} over its fields in that order.
+ * <p/>
+ * Only public interfaces whose methods are all public no-argument getters of public types are supported, as the
+ * generated classes live in their own class loader.
+ *
+ * @author Steve Reed
+ */
+final class FixtureClassGenerator {
+
+	/** A generated class and the getters whose values its constructor takes. */
+	static final class GeneratedType {
+
+		private final ImmutableList<Method> getters;
+		private final ImmutableMap<String, Integer> indexes;
+		private final Constructor<?> constructor;
+
+		private GeneratedType(final ImmutableList<Method> getters, final Constructor<?> constructor) {
+			this.getters = getters;
+			this.constructor = constructor;
+
+			final ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+			for (int i = 0; i < getters.size(); i++) {
+				builder.put(getters.get(i).getName(), i);
+			}
+			this.indexes = builder.build();
+		}
+
+		ImmutableList<Method> getGetters() {
+			return getters;
+		}
+
+		/**
+		 * @param getterName getter name
+		 * @return position of the getter in {@link #getGetters()}, or -1 if there is no such getter
+		 */
+		int indexOf(final String getterName) {
+			final Integer index = indexes.get(getterName);
+			return (index == null) ? -1 : index;
+		}
+
+		/**
+		 * Creates an instance of the generated class.
+		 *
+		 * @param values getter values in {@link #getGetters()} order; primitives must not be null
+		 * @return new instance
+		 */
+		Object newInstance(final Object[] values) {
+			try {
+				return constructor.newInstance((Object) values);
+			} catch (InvocationTargetException e) {
+				throw FixtureException.convert(e.getCause());
+			} catch (Exception e) {
+				throw FixtureException.convert(e);
+			}
+		}
+	}
+
+	/** Class loader of one generated class, which sees the interface's class loader and {@link GeneratedFixture}. */
+	private static final class DefiningClassLoader extends ClassLoader {
+
+		private DefiningClassLoader(final ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+			if (name.equals(GeneratedFixture.class.getName())) {
+				return GeneratedFixture.class;
+			}
+			return super.loadClass(name, resolve);
+		}
+
+		private Class<?> define(final String name, final byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+	private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+	/**
+	 * Generated types by interface. A generated type references its interface through its class loader, so types of
+	 * interfaces that may be unloaded are held softly, see {@link ClassCache}.
+	 */
+	private static final ClassCache<GeneratedType> GENERATED = ClassCache.of(new Function<Class<?>, GeneratedType>() {
+		public GeneratedType apply(final Class<?> type) {
+			return generate(type);
+		}
+	});
+
+	private FixtureClassGenerator() {}
+
+	/**
+	 * Returns true if a class can be generated for the given type.
+	 *
+	 * @param type fixture type
+	 * @return true if supported
+	 */
+	static boolean supports(final Class<?> type) {
+		if (!type.isInterface() || !Modifier.isPublic(type.getModifiers())) {
+			return false;
+		}
+
+		final Set<String> names = Sets.newHashSet();
+		for (final Method method : type.getMethods()) {
+			if (Modifier.isStatic(method.getModifiers()) || !Modifier.isAbstract(method.getModifiers())) {
+				continue;
+			}
+			if (method.getParameterTypes().length != 0
+					|| method.getReturnType() == Void.TYPE
+					|| !isAccessible(method.getReturnType())
+					|| method.getName().equals("hashCode")
+					|| method.getName().equals("toString")
+					|| method.getName().equals("fieldValues")
+					|| !names.add(method.getName())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the generated class for an interface, generating it on first use.
+	 *
+	 * @param type supported interface
+	 * @return generated type
+	 */
+	static GeneratedType generatedType(final Class<?> type) {
+		return GENERATED.get(type);
+	}
+
+	private static boolean isAccessible(final Class<?> type) {
+		Class<?> elementType = type;
+		while (elementType.isArray()) {
+			elementType = elementType.getComponentType();
+		}
+		return elementType.isPrimitive() || Modifier.isPublic(elementType.getModifiers());
+	}
+
+	private static GeneratedType generate(final Class<?> type) {
+		if (!supports(type)) {
+			throw new IllegalArgumentException("Cannot generate a fixture class for " + type);
+		}
+
+		final ImmutableList.Builder<Method> getters = ImmutableList.builder();
+		for (final Method method : type.getMethods()) {
+			if (!Modifier.isStatic(method.getModifiers()) && Modifier.isAbstract(method.getModifiers())) {
+				getters.add(method);
+			}
+		}
+
+		final String name = String.format("%s.Fixture$%d$%s", GeneratedFixture.class.getPackage().getName(), CLASS_COUNTER.incrementAndGet(), type.getName().replace('.', '_'));
+		final ImmutableList<Method> getterList = getters.build();
+		final byte[] bytes = new ClassFileWriter(internalName(name), type, getterList).toByteArray();
+
+		final ClassLoader parent = (type.getClassLoader() == null) ? FixtureClassGenerator.class.getClassLoader() : type.getClassLoader();
+		final Class<?> generated = new DefiningClassLoader(parent).define(name, bytes);
+		try {
+			return new GeneratedType(getterList, generated.getConstructor(Object[].class));
+		} catch (NoSuchMethodException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private static String internalName(final String className) {
+		return className.replace('.', '/');
+	}
+
+	private static String descriptor(final Class<?> type) {
+		if (type == Integer.TYPE) {
+			return "I";
+		} else if (type == Long.TYPE) {
+			return "J";
+		} else if (type == Boolean.TYPE) {
+			return "Z";
+		} else if (type == Double.TYPE) {
+			return "D";
+		} else if (type == Float.TYPE) {
+			return "F";
+		} else if (type == Short.TYPE) {
+			return "S";
+		} else if (type == Byte.TYPE) {
+			return "B";
+		} else if (type == Character.TYPE) {
+			return "C";
+		} else if (type.isArray()) {
+			return internalName(type.getName());
+		} else {
+			return "L" + internalName(type.getName()) + ";";
+		}
+	}
+
+	/** Writes the class file of one generated class. */
+	private static final class ClassFileWriter {
+
+		private static final int VERSION_JAVA_5 = 49;
+
+		private static final int ACC_PUBLIC = 0x0001;
+		private static final int ACC_PRIVATE = 0x0002;
+		private static final int ACC_FINAL = 0x0010;
+		private static final int ACC_SUPER = 0x0020;
+
+		private static final int CONSTANT_UTF8 = 1;
+		private static final int CONSTANT_INTEGER = 3;
+		private static final int CONSTANT_CLASS = 7;
+		private static final int CONSTANT_FIELDREF = 9;
+		private static final int CONSTANT_METHODREF = 10;
+		private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+		private static final int ALOAD_0 = 0x2a;
+		private static final int ALOAD_1 = 0x2b;
+		private static final int ICONST_0 = 0x03;
+		private static final int ICONST_1 = 0x04;
+		private static final int BIPUSH = 0x10;
+		private static final int SIPUSH = 0x11;
+		private static final int LDC_W = 0x13;
+		private static final int AALOAD = 0x32;
+		private static final int AASTORE = 0x53;
+		private static final int DUP = 0x59;
+		private static final int IRETURN = 0xac;
+		private static final int LRETURN = 0xad;
+		private static final int FRETURN = 0xae;
+		private static final int DRETURN = 0xaf;
+		private static final int ARETURN = 0xb0;
+		private static final int RETURN = 0xb1;
+		private static final int GETFIELD = 0xb4;
+		private static final int PUTFIELD = 0xb5;
+		private static final int INVOKEVIRTUAL = 0xb6;
+		private static final int INVOKESPECIAL = 0xb7;
+		private static final int INVOKESTATIC = 0xb8;
+		private static final int ANEWARRAY = 0xbd;
+		private static final int CHECKCAST = 0xc0;
+
+		private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+		private final DataOutputStream constants = new DataOutputStream(constantBytes);
+		private final Map<List<Object>, Integer> constantIndexes = Maps.newHashMap();
+		private int constantCount = 1;
+
+		private final String className;
+		private final Class<?> interfaceType;
+		private final ImmutableList<Method> getters;
+
+		private ClassFileWriter(final String className, final Class<?> interfaceType, final ImmutableList<Method> getters) {
+			this.className = className;
+			this.interfaceType = interfaceType;
+			this.getters = getters;
+		}
+
+		byte[] toByteArray() {
+			try {
+				final ByteArrayOutputStream body = new ByteArrayOutputStream();
+				final DataOutputStream out = new DataOutputStream(body);
+
+				out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+				out.writeShort(classRef(className));
+				out.writeShort(classRef(internalName(GeneratedFixture.class.getName())));
+				out.writeShort(1);
+				out.writeShort(classRef(internalName(interfaceType.getName())));
+
+				out.writeShort(getters.size());
+				for (final Method getter : getters) {
+					out.writeShort(ACC_PRIVATE | ACC_FINAL);
+					out.writeShort(utf8(getter.getName()));
+					out.writeShort(utf8(descriptor(getter.getReturnType())));
+					out.writeShort(0);
+				}
+
+				out.writeShort(getters.size() + 3);
+				writeConstructor(out);
+				for (final Method getter : getters) {
+					writeGetter(out, getter);
+				}
+				writeHashCode(out);
+				writeFieldValues(out);
+
+				out.writeShort(0);
+				out.flush();
+				constants.flush();
+
+				final ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+				final DataOutputStream header = new DataOutputStream(classFile);
+				header.writeInt(0xCAFEBABE);
+				header.writeShort(0);
+				header.writeShort(VERSION_JAVA_5);
+				header.writeShort(constantCount);
+				header.flush();
+				constantBytes.writeTo(classFile);
+				body.writeTo(classFile);
+				return classFile.toByteArray();
+			} catch (IOException e) {
+				throw new AssertionError(e);
+			}
+		}
+
+		private void writeConstructor(final DataOutputStream out) throws IOException {
+			final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+			final DataOutputStream code = new DataOutputStream(codeBytes);
+
+			code.writeByte(ALOAD_0);
+			code.writeByte(INVOKESPECIAL);
+			code.writeShort(methodRef(internalName(GeneratedFixture.class.getName()), "<init>", "()V"));
+
+			for (int i = 0; i < getters.size(); i++) {
+				final Method getter = getters.get(i);
+				code.writeByte(ALOAD_0);
+				code.writeByte(ALOAD_1);
+				pushInt(code, i);
+				code.writeByte(AALOAD);
+				convert(code, getter.getReturnType());
+				code.writeByte(PUTFIELD);
+				code.writeShort(fieldRef(getter));
+			}
+			code.writeByte(RETURN);
+			code.flush();
+
+			writeMethod(out, "<init>", "([Ljava/lang/Object;)V", 4, 2, codeBytes.toByteArray());
+		}
+
+		private void writeGetter(final DataOutputStream out, final Method getter) throws IOException {
+			final Class<?> type = getter.getReturnType();
+			final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+			final DataOutputStream code = new DataOutputStream(codeBytes);
+
+			code.writeByte(ALOAD_0);
+			code.writeByte(GETFIELD);
+			code.writeShort(fieldRef(getter));
+			if (type == Long.TYPE) {
+				code.writeByte(LRETURN);
+			} else if (type == Double.TYPE) {
+				code.writeByte(DRETURN);
+			} else if (type == Float.TYPE) {
+				code.writeByte(FRETURN);
+			} else if (type.isPrimitive()) {
+				code.writeByte(IRETURN);
+			} else {
+				code.writeByte(ARETURN);
+			}
+			code.flush();
+
+			writeMethod(out, getter.getName(), "()" + descriptor(type), 2, 1, codeBytes.toByteArray());
+		}
+
+		/** Writes {@code hashCode}, which folds every field into the hash with {@code GeneratedFixture.hash}. */
+		private void writeHashCode(final DataOutputStream out) throws IOException {
+			final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+			final DataOutputStream code = new DataOutputStream(codeBytes);
+
+			code.writeByte(ICONST_1);
+			for (final Method getter : getters) {
+				code.writeByte(ALOAD_0);
+				code.writeByte(GETFIELD);
+				code.writeShort(fieldRef(getter));
+				code.writeByte(INVOKESTATIC);
+				code.writeShort(methodRef(internalName(GeneratedFixture.class.getName()), "hash", "(I" + hashDescriptor(getter.getReturnType()) + ")I"));
+			}
+			code.writeByte(IRETURN);
+			code.flush();
+
+			writeMethod(out, "hashCode", "()I", 4, 1, codeBytes.toByteArray());
+		}
+
+		/** Writes {@code fieldValues}, which copies every field, boxed, into a new array. */
+		private void writeFieldValues(final DataOutputStream out) throws IOException {
+			final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+			final DataOutputStream code = new DataOutputStream(codeBytes);
+
+			pushInt(code, getters.size());
+			code.writeByte(ANEWARRAY);
+			code.writeShort(classRef("java/lang/Object"));
+			for (int i = 0; i < getters.size(); i++) {
+				final Method getter = getters.get(i);
+				code.writeByte(DUP);
+				pushInt(code, i);
+				code.writeByte(ALOAD_0);
+				code.writeByte(GETFIELD);
+				code.writeShort(fieldRef(getter));
+				box(code, getter.getReturnType());
+				code.writeByte(AASTORE);
+			}
+			code.writeByte(ARETURN);
+			code.flush();
+
+			writeMethod(out, "fieldValues", "()[Ljava/lang/Object;", 6, 1, codeBytes.toByteArray());
+		}
+
+		private void writeMethod(final DataOutputStream out, final String name, final String descriptor, final int maxStack, final int maxLocals, final byte[] code) throws IOException {
+			out.writeShort(ACC_PUBLIC);
+			out.writeShort(utf8(name));
+			out.writeShort(utf8(descriptor));
+			out.writeShort(1);
+			out.writeShort(utf8("Code"));
+			out.writeInt(12 + code.length);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(code.length);
+			out.write(code);
+			out.writeShort(0);
+			out.writeShort(0);
+		}
+
+		/** Casts or unboxes the array element on the stack to the field type. */
+		private void convert(final DataOutputStream code, final Class<?> type) throws IOException {
+			if (type == Boolean.TYPE) {
+				unbox(code, "java/lang/Boolean", "booleanValue", "()Z");
+			} else if (type == Character.TYPE) {
+				unbox(code, "java/lang/Character", "charValue", "()C");
+			} else if (type.isPrimitive()) {
+				unbox(code, "java/lang/Number", type.getName() + "Value", "()" + descriptor(type));
+			} else if (type != Object.class) {
+				code.writeByte(CHECKCAST);
+				code.writeShort(classRef(type.isArray() ? descriptor(type) : internalName(type.getName())));
+			}
+		}
+
+		/** Boxes the primitive on the stack, if the type is primitive. */
+		private void box(final DataOutputStream code, final Class<?> type) throws IOException {
+			if (type.isPrimitive()) {
+				final String owner = internalName(Primitives.wrap(type).getName());
+				code.writeByte(INVOKESTATIC);
+				code.writeShort(methodRef(owner, "valueOf", "(" + descriptor(type) + ")L" + owner + ";"));
+			}
+		}
+
+		/** Returns the parameter descriptor of the {@code GeneratedFixture.hash} overload for a field type. */
+		private static String hashDescriptor(final Class<?> type) {
+			if (type == Long.TYPE || type == Boolean.TYPE || type == Float.TYPE || type == Double.TYPE) {
+				return descriptor(type);
+			} else if (type.isPrimitive()) {
+				return "I";
+			} else {
+				return "Ljava/lang/Object;";
+			}
+		}
+
+		private void unbox(final DataOutputStream code, final String owner, final String method, final String descriptor) throws IOException {
+			code.writeByte(CHECKCAST);
+			code.writeShort(classRef(owner));
+			code.writeByte(INVOKEVIRTUAL);
+			code.writeShort(methodRef(owner, method, descriptor));
+		}
+
+		private void pushInt(final DataOutputStream code, final int value) throws IOException {
+			if (value <= 5) {
+				code.writeByte(ICONST_0 + value);
+			} else if (value <= Byte.MAX_VALUE) {
+				code.writeByte(BIPUSH);
+				code.writeByte(value);
+			} else if (value <= Short.MAX_VALUE) {
+				code.writeByte(SIPUSH);
+				code.writeShort(value);
+			} else {
+				code.writeByte(LDC_W);
+				code.writeShort(integer(value));
+			}
+		}
+
+		private int fieldRef(final Method getter) throws IOException {
+			return constant(CONSTANT_FIELDREF, classRef(className), nameAndType(getter.getName(), descriptor(getter.getReturnType())));
+		}
+
+		private int methodRef(final String owner, final String name, final String descriptor) throws IOException {
+			return constant(CONSTANT_METHODREF, classRef(owner), nameAndType(name, descriptor));
+		}
+
+		private int nameAndType(final String name, final String descriptor) throws IOException {
+			return constant(CONSTANT_NAME_AND_TYPE, utf8(name), utf8(descriptor));
+		}
+
+		private int classRef(final String internalName) throws IOException {
+			return constant(CONSTANT_CLASS, utf8(internalName));
+		}
+
+		private int integer(final int value) throws IOException {
+			final List<Object> key = ImmutableList.<Object>of(CONSTANT_INTEGER, value);
+			final Integer existing = constantIndexes.get(key);
+			if (existing != null) {
+				return existing;
+			}
+			constants.writeByte(CONSTANT_INTEGER);
+			constants.writeInt(value);
+			return register(key);
+		}
+
+		private int utf8(final String value) throws IOException {
+			final List<Object> key = ImmutableList.<Object>of(CONSTANT_UTF8, value);
+			final Integer existing = constantIndexes.get(key);
+			if (existing != null) {
+				return existing;
+			}
+			constants.writeByte(CONSTANT_UTF8);
+			constants.writeUTF(value);
+			return register(key);
+		}
+
+		private int constant(final int tag, final int... references) throws IOException {
+			final ImmutableList.Builder<Object> keyBuilder = ImmutableList.builder();
+			keyBuilder.add(tag);
+			for (final int reference : references) {
+				keyBuilder.add(reference);
+			}
+			final List<Object> key = keyBuilder.build();
+			final Integer existing = constantIndexes.get(key);
+			if (existing != null) {
+				return existing;
+			}
+			constants.writeByte(tag);
+			for (final int reference : references) {
+				constants.writeShort(reference);
+			}
+			return register(key);
+		}
+
+		private int register(final List<Object> key) {
+			final int index = constantCount++;
+			constantIndexes.put(key, index);
+			return index;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import java.util.Arrays;
+
+/**
+ * Base class of the interface implementations generated by {@link FixtureClassGenerator}. Subclasses hold one final
+ * field per getter and implement {@code hashCode} and {@link #fieldValues()} over those fields in getter order, using
+ * the static {@code hash} methods here so that primitives are hashed without boxing. Equality is identity, as with
+ * reflective interface proxies.
+ *
+ * @author Steve Reed
+ */
+public abstract class GeneratedFixture {
+
+	protected GeneratedFixture() {
+	}
+
+	/**
+	 * Returns the hash code of the list of field values in getter order.
+	 * <p/>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public abstract int hashCode();
+
+	@Override
+	public final String toString() {
+		return String.format("Proxy of %s; %s", getClass().getInterfaces()[0], Arrays.asList(fieldValues()));
+	}
+
+	/**
+	 * @return a new array of the field values in getter order, primitives boxed
+	 */
+	protected abstract Object[] fieldValues();
+
+	protected static int hash(final int hash, final Object value) {
+		return 31 * hash + ((value == null) ? 0 : value.hashCode());
+	}
+
+	protected static int hash(final int hash, final int value) {
+		return 31 * hash + value;
+	}
+
+	protected static int hash(final int hash, final long value) {
+		return 31 * hash + (int) (value ^ (value >>> 32));
+	}
+
+	protected static int hash(final int hash, final boolean value) {
+		return 31 * hash + (value ? 1231 : 1237);
+	}
+
+	protected static int hash(final int hash, final float value) {
+		return 31 * hash + Float.floatToIntBits(value);
+	}
+
+	protected static int hash(final int hash, final double value) {
+		return hash(hash, Double.doubleToLongBits(value));
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Interface proxy backed by a class generated by {@link FixtureClassGenerator}. Stubs are evaluated once, when the
+ * fixture is created, and stored in the generated class's fields. If a getter has no stub and {@link
+ * Fixjure.Option#NULL_ON_UNMAPPED} is disabled, or a getter with a primitive return type has no value, the fixture
+ * falls back to an {@link InterfaceProxy} so that calling the getter fails the same way.
+ *
+ * @author Steve Reed
+ */
+final class GeneratedInterfaceProxy<T> extends AbstractObjectProxy<T> {
+
+	private final ImmutableSet<Fixjure.Option> options;
+	private final FixtureClassGenerator.GeneratedType generatedType;
+	private final Object[] values;
+	private final BitSet assigned;
+
+	GeneratedInterfaceProxy(final Class<T> cls, final ImmutableSet<Fixjure.Option> options) {
+		super(cls, options);
+		this.options = options;
+		this.generatedType = FixtureClassGenerator.generatedType(cls);
+		this.values = new Object[generatedType.getGetters().size()];
+		this.assigned = new BitSet(values.length);
+	}
+
+	public T get() {
+		final ImmutableMap<String, Supplier<?>> stubs = getStubs();
+		final ImmutableList<Method> getters = generatedType.getGetters();
+		final Object[] arguments = new Object[getters.size()];
+
+		for (int i = 0; i < arguments.length; i++) {
+			final Method getter = getters.get(i);
+			final Supplier<?> stub = stubs.get(getter.getName());
+			if (stub == null && !assigned.get(i) && !isOptionEnabled(Fixjure.Option.NULL_ON_UNMAPPED)) {
+				return newReflectiveProxy(stubs);
+			}
+
+			final Object value = (stub != null) ? stub.get() : values[i];
+			if (value == null && getter.getReturnType().isPrimitive()) {
+				return newReflectiveProxy(stubs);
+			}
+			arguments[i] = value;
+		}
+
+		return getType().cast(generatedType.newInstance(arguments));
+	}
+
+	/**
+	 * Holds the value until the fixture is created, without a stub.
+	 * <p/>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addValue(final String methodName, final Object value) {
+		final int index = generatedType.indexOf(methodName);
+		if (index < 0) {
+			super.addValue(methodName, value);
+			return;
+		}
+
+		removeValueStub(methodName);
+		values[index] = value;
+		assigned.set(index);
+	}
+
+	@Override
+	protected void stubsChanged(final String methodName) {
+		final int index = generatedType.indexOf(methodName);
+		if (index >= 0) {
+			values[index] = null;
+			assigned.clear(index);
+		}
+	}
+
+	private T newReflectiveProxy(final ImmutableMap<String, Supplier<?>> stubs) {
+		final InterfaceProxy<T> proxy = new InterfaceProxy<T>(getType(), options);
+		for (final Map.Entry<String, Supplier<?>> stub : stubs.entrySet()) {
+			proxy.addValueStub(stub.getKey(), stub.getValue());
+		}
+		for (int i = assigned.nextSetBit(0); i >= 0; i = assigned.nextSetBit(i + 1)) {
+			proxy.addValue(generatedType.getGetters().get(i).getName(), values[i]);
+		}
+		return proxy.get();
+	}
+}
@@ -18,22 +18,30 @@ package com.bigfatgun.fixjures.proxy;
 
 import com.bigfatgun.fixjures.Fixjure;
 import com.bigfatgun.fixjures.FixtureException;
-import com.google.common.base.Function;
+import com.bigfatgun.fixjures.LazyReference;
 import com.google.common.base.Supplier;
 import com.google.common.collect.*;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Map;
 
 /**
  * Simple interface getter proxy using {@code java.lang.reflect.Proxy}. This will only proxy methods that take no
- * arguments.
+ * arguments. Fixed values added with {@link #addValue} are kept in the interface's packed layout rather than as stubs.
  *
  * @author Steve Reed
  */
 final class InterfaceProxy<T> extends AbstractObjectProxy<T> implements InvocationHandler {
 
+	/** Marks a slot that has neither a stub nor a packed value, or that holds the hashCode or toString stub. */
+	private static final Object NO_VALUE = new Object();
+
+	/**
+	 * Computes the hash of a proxy. Value-semantic proxies hash like a map of method name to value. Other proxies hash
+	 * like the list of their getter values in slot order, whether a value is stubbed or packed.
+	 */
 	private static final class HashCodeSupplier implements Supplier<Integer> {
 
 		private final InterfaceProxy<?> proxy;
@@ -43,18 +51,83 @@ final class InterfaceProxy<T> extends AbstractObjectProxy<T> implements Invocati
 		}
 
 		public Integer get() {
-			return ImmutableList.copyOf(Iterables.transform(proxy.getStubs().values(), new Function<Supplier<?>, Object>() {
-				public Object apply(final Supplier<?> valueProvider) {
-					if (valueProvider == HashCodeSupplier.this || valueProvider instanceof ToStringSupplier) {
-						return 0;
-					} else {
-						return valueProvider.get();
-					}
+			final Supplier<?>[] table = proxy.table();
+			int hash = proxy.valueSemantics ? 0 : 1;
+			for (int slot = 0; slot < table.length; slot++) {
+				final Object value = proxy.slotValue(table, slot);
+				if (value == NO_VALUE) {
+					continue;
+				} else if (proxy.valueSemantics) {
+					hash += proxy.methodIndex.nameOf(slot).hashCode() ^ boundaryHash(value);
+				} else {
+					hash = 31 * hash + ((value == null) ? 0 : value.hashCode());
 				}
-			})).hashCode();
+			}
+			return hash;
+		}
+	}
+
+	/**
+	 * Returns the interface proxy handling a value, if the value is a {@code java.lang.reflect.Proxy} created by one.
+	 *
+	 * @param value stub or packed value
+	 * @return invocation handler, or null
+	 */
+	private static InterfaceProxy<?> handlerOf(final Object value) {
+		if (value != null && Proxy.isProxyClass(value.getClass()) && Proxy.getInvocationHandler(value) instanceof InterfaceProxy) {
+			return (InterfaceProxy<?>) Proxy.getInvocationHandler(value);
 		}
+		return null;
 	}
 
+	/**
+	 * Returns the hash of a value held by a value-semantic proxy without descending into nested interface proxies, so
+	 * cyclic fixture graphs can be hashed. Nested value-semantic proxies hash by type, which is consistent with their
+	 * equality; other nested proxies hash by identity, as they compare.
+	 *
+	 * @param value stub or packed value
+	 * @return hash code
+	 */
+	private static int boundaryHash(final Object value) {
+		final InterfaceProxy<?> nested = handlerOf(value);
+		if (value == null) {
+			return 0;
+		} else if (nested != null) {
+			return nested.valueSemantics ? nested.getType().getName().hashCode() : System.identityHashCode(value);
+		} else {
+			return value.hashCode();
+		}
+	}
+
+	/**
+	 * Compares values held by value-semantic proxies the way {@link #boundaryHash} hashes them: nested value-semantic
+	 * proxies are equal if they have the same type, other nested proxies if they are the same instance.
+	 *
+	 * @param value value of one proxy
+	 * @param other value of the other proxy
+	 * @return true if equal
+	 */
+	private static boolean boundaryEquals(final Object value, final Object other) {
+		if (value == other) {
+			return true;
+		} else if (value == null || other == null) {
+			return false;
+		}
+
+		final InterfaceProxy<?> nested = handlerOf(value);
+		final InterfaceProxy<?> otherNested = handlerOf(other);
+		if (nested == null && otherNested == null) {
+			return value.equals(other);
+		}
+		return nested != null && otherNested != null
+				&& nested.valueSemantics && otherNested.valueSemantics
+				&& nested.getType() == otherNested.getType();
+	}
+
+	/**
+	 * Describes a proxy as its type and its method name to value pairs in slot order, whether a value is stubbed or
+	 * packed. Nested proxies are described by their type only, so cyclic fixture graphs can be printed.
+	 */
 	private static final class ToStringSupplier implements Supplier<String> {
 
 		private final InterfaceProxy<?> proxy;
@@ -64,18 +137,46 @@ final class InterfaceProxy<T> extends AbstractObjectProxy<T> implements Invocati
 		}
 
 		public String get() {
-			return String.format("Proxy of %s; %s", proxy.getType(), proxy.getStubs().values());
+			final Supplier<?>[] table = proxy.table();
+			final StringBuilder str = new StringBuilder();
+			for (int slot = 0; slot < table.length; slot++) {
+				final Object value = proxy.slotValue(table, slot);
+				if (value == NO_VALUE) {
+					continue;
+				}
+				final InterfaceProxy<?> nested = handlerOf(value);
+				str.append((str.length() == 0) ? "" : ", ").append(proxy.methodIndex.nameOf(slot)).append('=')
+						.append((nested == null) ? value : "Proxy of " + nested.getType());
+			}
+			return String.format("Proxy of %s; {%s}", proxy.getType(), str);
 		}
 	}
 
+	private final MethodIndex methodIndex;
+	private final PackedValues values;
+	private final boolean valueSemantics;
+	private final Supplier<Integer> hashCode;
+	private final Supplier<String> toString;
+	private volatile Supplier<?>[] dispatchTable;
+
 	InterfaceProxy(final Class<T> cls, final ImmutableSet<Fixjure.Option> options) {
 		super(cls, options);
 		if (!cls.isInterface()) {
 			throw new RuntimeException(String.format("Class %s is not an interface.", cls.getName()));
 		}
 
-		addValueStub("hashCode", new HashCodeSupplier(this));
-		addValueStub("toString", new ToStringSupplier(this));
+		methodIndex = MethodIndex.of(cls);
+		values = new PackedValues(methodIndex);
+		valueSemantics = options.contains(Fixjure.Option.VALUE_SEMANTICS);
+		if (valueSemantics) {
+			hashCode = LazyReference.of(new HashCodeSupplier(this));
+			toString = LazyReference.of(new ToStringSupplier(this));
+		} else {
+			hashCode = new HashCodeSupplier(this);
+			toString = new ToStringSupplier(this);
+		}
+		addValueStub("hashCode", hashCode);
+		addValueStub("toString", toString);
 	}
 
 	/**
@@ -85,12 +186,13 @@ final class InterfaceProxy<T> extends AbstractObjectProxy<T> implements Invocati
 	 */
 	@Override
 	public T get() {
+		freeze();
 		return getType().cast(Proxy.newProxyInstance(getType().getClassLoader(), new Class[]{getType()}, this));
 	}
 
 	public Object invoke(final Object object, final Method method, final Object[] parameters) throws Throwable {
 		if (parameters != null && parameters.length == 1 && method.getName().equals("equals")) {
-			return object == parameters[0];
+			return object == parameters[0] || (valueSemantics && hasEqualValues(parameters[0]));
 		}
 
 		if (parameters != null) {
@@ -98,10 +200,13 @@ final class InterfaceProxy<T> extends AbstractObjectProxy<T> implements Invocati
 			throw new RuntimeException("Proxied methods shall take no arguments. Call: " + callToString(method, parameters));
 		}
 
-		final ImmutableMap<String, Supplier<?>> stubs = getStubs();
-
-		if (stubs.containsKey(method.getName())) {
-			return stubs.get(method.getName()).get();
+		final Supplier<?>[] table = table();
+		final int slot = methodIndex.slotOf(method);
+		final Supplier<?> stub = (slot < 0) ? null : table[slot];
+		if (stub != null) {
+			return stub.get();
+		} else if (slot >= 0 && values.isSet(slot)) {
+			return values.get(slot);
 		} else if (isOptionEnabled(Fixjure.Option.NULL_ON_UNMAPPED)) {
 			return null;
 		} else {
@@ -109,6 +214,118 @@ final class InterfaceProxy<T> extends AbstractObjectProxy<T> implements Invocati
 		}
 	}
 
+	/**
+	 * Stores the value unboxed when the method returns a primitive, and without a stub either way.
+	 * <p/>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addValue(final String methodName, final Object value) {
+		final int slot = methodIndex.slotOf(methodName);
+		if (slot < 0) {
+			super.addValue(methodName, value);
+			return;
+		}
+
+		removeValueStub(methodName);
+		values.set(slot, value);
+		valuesChanged();
+	}
+
+	@Override
+	protected void stubsChanged(final String methodName) {
+		final int slot = methodIndex.slotOf(methodName);
+		if (slot >= 0) {
+			values.clear(slot);
+		}
+		valuesChanged();
+	}
+
+	private void valuesChanged() {
+		dispatchTable = null;
+		if (valueSemantics) {
+			((LazyReference<?>) hashCode).invalidate();
+			((LazyReference<?>) toString).invalidate();
+		}
+	}
+
+	/**
+	 * Returns true if the other object is a value-semantic proxy of the same type whose getters return equal values,
+	 * compared slot by slot. Nested interface proxies are compared at the boundary, as they are hashed, so cyclic
+	 * fixture graphs can be compared.
+	 *
+	 * @param other object being compared
+	 * @return true if equal
+	 */
+	private boolean hasEqualValues(final Object other) {
+		final InterfaceProxy<?> that = handlerOf(other);
+		if (that == null) {
+			return false;
+		} else if (that == this) {
+			return true;
+		} else if (!that.valueSemantics || that.getType() != getType() || !that.hashCode.get().equals(hashCode.get())) {
+			return false;
+		}
+
+		final Supplier<?>[] table = table();
+		final Supplier<?>[] otherTable = that.table();
+		for (int slot = 0; slot < table.length; slot++) {
+			if (table[slot] != null && table[slot] == otherTable[slot]) {
+				continue;
+			}
+			final Object value = slotValue(table, slot);
+			final Object otherValue = that.slotValue(otherTable, slot);
+			if ((value == NO_VALUE || otherValue == NO_VALUE) ? value != otherValue : !boundaryEquals(value, otherValue)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param table dispatch table of this proxy
+	 * @param slot method slot
+	 * @return value of the slot's stub or packed value, or {@link #NO_VALUE} for none and for the hashCode and toString
+	 * stubs
+	 */
+	private Object slotValue(final Supplier<?>[] table, final int slot) {
+		final Supplier<?> stub = table[slot];
+		if (stub == hashCode || stub == toString) {
+			return NO_VALUE;
+		} else if (stub != null) {
+			return stub.get();
+		} else if (values.isSet(slot)) {
+			return values.get(slot);
+		} else {
+			return NO_VALUE;
+		}
+	}
+
+	/**
+	 * @return dispatch table, frozen if stubs changed since it was last built
+	 */
+	private Supplier<?>[] table() {
+		final Supplier<?>[] table = dispatchTable;
+		return (table == null) ? freeze() : table;
+	}
+
+	/**
+	 * Copies the stubs into an array indexed by method slot.
+	 *
+	 * @return dispatch table
+	 */
+	private Supplier<?>[] freeze() {
+		final Supplier<?>[] table = new Supplier<?>[methodIndex.size()];
+		for (final Map.Entry<String, Supplier<?>> entry : getStubs().entrySet()) {
+			final int slot = methodIndex.slotOf(entry.getKey());
+			if (slot >= 0) {
+				table[slot] = entry.getValue();
+			}
+		}
+		dispatchTable = table;
+		return table;
+	}
+
 	/**
 	 * Stringifies a method invocation in the form "Class.method([arg1, arg2, arg3])".
 	 *
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.ClassCache;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns a slot number to every no-argument method name of an interface, plus {@code hashCode} and {@code toString},
+ * so proxies can keep their stubs in an array. Each slot is also given a position in a packed value layout: slots whose
+ * methods return a primitive share one {@code long[]}, and all other slots share one {@code Object[]}, see {@link
+ * PackedValues}. Indexes are computed once per interface and shared.
+ *
+ * @author Steve Reed
+ */
+final class MethodIndex {
+
+	private static final ClassCache<MethodIndex> INDEXES = ClassCache.of(new Function<Class<?>, MethodIndex>() {
+		public MethodIndex apply(final Class<?> type) {
+			return new MethodIndex(type);
+		}
+	});
+
+	/**
+	 * Returns the method index of an interface.
+	 *
+	 * @param type interface
+	 * @return method index
+	 */
+	static MethodIndex of(final Class<?> type) {
+		return INDEXES.get(type);
+	}
+
+	private final ImmutableMap<String, Integer> slotsByName;
+	private final ImmutableMap<Method, Integer> slotsByMethod;
+	private final String[] names;
+	private final Class<?>[] primitiveTypes;
+	private final int[] packedIndexes;
+	private final int primitiveCount;
+
+	private MethodIndex(final Class<?> type) {
+		final Map<String, Integer> names = Maps.newLinkedHashMap();
+		final Map<String, Class<?>> returnTypes = Maps.newHashMap();
+		final ImmutableMap.Builder<Method, Integer> methods = ImmutableMap.builder();
+
+		final List<Method> candidates = Lists.newArrayList(type.getMethods());
+		try {
+			candidates.add(Object.class.getMethod("hashCode"));
+			candidates.add(Object.class.getMethod("toString"));
+		} catch (NoSuchMethodException e) {
+			throw new AssertionError(e);
+		}
+
+		for (final Method method : candidates) {
+			if (method.getParameterTypes().length == 0) {
+				methods.put(method, slotFor(names, method.getName()));
+
+				// a name is packed as a primitive only if every method of that name returns the same primitive
+				final Class<?> previous = returnTypes.get(method.getName());
+				returnTypes.put(method.getName(), (previous == null || previous == method.getReturnType()) ? method.getReturnType() : Object.class);
+			}
+		}
+
+		this.slotsByName = ImmutableMap.copyOf(names);
+		this.slotsByMethod = methods.build();
+		this.names = names.keySet().toArray(new String[names.size()]);
+		this.primitiveTypes = new Class<?>[this.names.length];
+		this.packedIndexes = new int[this.names.length];
+
+		int primitives = 0;
+		int references = 0;
+		for (int slot = 0; slot < this.names.length; slot++) {
+			final Class<?> returnType = returnTypes.get(this.names[slot]);
+			if (returnType.isPrimitive() && returnType != Void.TYPE) {
+				primitiveTypes[slot] = returnType;
+				packedIndexes[slot] = primitives++;
+			} else {
+				packedIndexes[slot] = references++;
+			}
+		}
+		this.primitiveCount = primitives;
+	}
+
+	/**
+	 * @return number of slots
+	 */
+	int size() {
+		return slotsByName.size();
+	}
+
+	/**
+	 * @param methodName method name
+	 * @return slot of the method name, or -1 if the interface has no such no-argument method
+	 */
+	int slotOf(final String methodName) {
+		final Integer slot = slotsByName.get(methodName);
+		return (slot == null) ? -1 : slot;
+	}
+
+	/**
+	 * @param method method being invoked
+	 * @return slot of the method, or -1 if it is not indexed
+	 */
+	int slotOf(final Method method) {
+		final Integer slot = slotsByMethod.get(method);
+		return (slot == null) ? -1 : slot;
+	}
+
+	/**
+	 * @param slot slot
+	 * @return method name of the slot
+	 */
+	String nameOf(final int slot) {
+		return names[slot];
+	}
+
+	/**
+	 * @param slot slot
+	 * @return primitive return type of the slot, or null if its values are references
+	 */
+	Class<?> primitiveTypeOf(final int slot) {
+		return primitiveTypes[slot];
+	}
+
+	/**
+	 * @param slot slot
+	 * @return index of the slot's value in the packed primitive or reference array
+	 */
+	int packedIndexOf(final int slot) {
+		return packedIndexes[slot];
+	}
+
+	/**
+	 * @return number of slots packed as primitives
+	 */
+	int primitiveCount() {
+		return primitiveCount;
+	}
+
+	/**
+	 * @return number of slots packed as references
+	 */
+	int referenceCount() {
+		return names.length - primitiveCount;
+	}
+
+	private static Integer slotFor(final Map<String, Integer> names, final String methodName) {
+		Integer slot = names.get(methodName);
+		if (slot == null) {
+			slot = names.size();
+			names.put(methodName, slot);
+		}
+		return slot;
+	}
+}
@@ -18,17 +18,60 @@ package com.bigfatgun.fixjures.proxy;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.util.Collections;
 import java.util.Map;
 
+/**
+ * The raw key/value data of one object node, to be turned into a proxy. Data is either an immutable copy of the parsed
+ * map or, for parsers that never modify or share the maps they produce, a read-only view of it, so large parse trees
+ * are not held in memory twice. Handlers read the data through {@link #asMap()}, which never copies it.
+ */
 public class ObjectProxyData {
 
-	private final ImmutableMap<?, ?> data;
+	/**
+	 * Creates object data holding an immutable copy of the map.
+	 *
+	 * @param map parsed object data
+	 * @return new object data
+	 */
+	public static ObjectProxyData copyOf(final Map<?, ?> map) {
+		return new ObjectProxyData(map);
+	}
+
+	/**
+	 * Creates object data holding a read-only view of the map, without copying it. Only safe when nothing else modifies
+	 * the map.
+	 *
+	 * @param map parsed object data
+	 * @return new object data
+	 */
+	public static ObjectProxyData view(final Map<?, ?> map) {
+		return new ObjectProxyData(map, false);
+	}
+
+	private final Map<?, ?> data;
 
-	public ObjectProxyData(Map<?, ?> map) {
-		this.data = ImmutableMap.copyOf(map);
+	public ObjectProxyData(final Map<?, ?> map) {
+		this(map, true);
 	}
 
+	private ObjectProxyData(final Map<?, ?> map, final boolean copy) {
+		this.data = copy ? ImmutableMap.copyOf(map) : Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * Returns the data as an immutable map. Data held as a view is copied on every call, see {@link #asMap()}.
+	 *
+	 * @return immutable object data
+	 */
 	public ImmutableMap<?, ?> get() {
+		return (data instanceof ImmutableMap) ? (ImmutableMap<?, ?>) data : ImmutableMap.copyOf(data);
+	}
+
+	/**
+	 * @return read-only object data, without copying it
+	 */
+	public Map<?, ?> asMap() {
 		return data;
 	}
 }
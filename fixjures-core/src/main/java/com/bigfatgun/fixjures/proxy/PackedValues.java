@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.FixtureException;
+
+import java.util.BitSet;
+
+/**
+ * Method return values stored in the packed layout of a {@link MethodIndex}: primitives are kept unboxed in a single
+ * {@code long[]} and everything else in a single {@code Object[]}, so a proxy's values cost two arrays rather than a map
+ * entry, a supplier and a box per method.
+ *
+ * @author Steve Reed
+ */
+final class PackedValues {
+
+	private final MethodIndex index;
+	private final long[] primitives;
+	private final Object[] references;
+	private final BitSet assigned;
+	private final BitSet nulls;
+
+	PackedValues(final MethodIndex index) {
+		this.index = index;
+		this.primitives = new long[index.primitiveCount()];
+		this.references = new Object[index.referenceCount()];
+		this.assigned = new BitSet(index.size());
+		this.nulls = new BitSet();
+	}
+
+	/**
+	 * @param slot method slot
+	 * @return true if a value has been set for the slot
+	 */
+	boolean isSet(final int slot) {
+		return assigned.get(slot);
+	}
+
+	/**
+	 * Sets the value of a slot.
+	 *
+	 * @param slot method slot
+	 * @param value value, which must be convertible to the slot's primitive type if it has one
+	 * @throws FixtureException if the value does not fit a primitive slot
+	 */
+	void set(final int slot, final Object value) {
+		final Class<?> primitiveType = index.primitiveTypeOf(slot);
+		final int packedIndex = index.packedIndexOf(slot);
+
+		if (primitiveType == null) {
+			references[packedIndex] = value;
+		} else if (value == null) {
+			nulls.set(slot);
+		} else {
+			primitives[packedIndex] = pack(primitiveType, value, index.nameOf(slot));
+			nulls.clear(slot);
+		}
+		assigned.set(slot);
+	}
+
+	/**
+	 * Clears the value of a slot.
+	 *
+	 * @param slot method slot
+	 */
+	void clear(final int slot) {
+		if (index.primitiveTypeOf(slot) == null) {
+			references[index.packedIndexOf(slot)] = null;
+		}
+		assigned.clear(slot);
+		nulls.clear(slot);
+	}
+
+	/**
+	 * Returns the value of a slot, boxing it if the slot is primitive.
+	 *
+	 * @param slot method slot
+	 * @return value, or null if none has been set
+	 */
+	Object get(final int slot) {
+		if (!assigned.get(slot) || nulls.get(slot)) {
+			return null;
+		}
+
+		final Class<?> primitiveType = index.primitiveTypeOf(slot);
+		final int packedIndex = index.packedIndexOf(slot);
+		return (primitiveType == null) ? references[packedIndex] : unpack(primitiveType, primitives[packedIndex]);
+	}
+
+	private static long pack(final Class<?> primitiveType, final Object value, final String methodName) {
+		if (primitiveType == Boolean.TYPE && value instanceof Boolean) {
+			return ((Boolean) value) ? 1L : 0L;
+		} else if (primitiveType == Character.TYPE && value instanceof Character) {
+			return (Character) value;
+		} else if (value instanceof Number) {
+			final Number number = (Number) value;
+			if (primitiveType == Double.TYPE) {
+				return Double.doubleToRawLongBits(number.doubleValue());
+			} else if (primitiveType == Float.TYPE) {
+				return Float.floatToRawIntBits(number.floatValue());
+			} else if (primitiveType != Boolean.TYPE && primitiveType != Character.TYPE) {
+				return number.longValue();
+			}
+		}
+		throw new FixtureException(String.format("Value %s (%s) cannot be returned from %s %s().", value, value.getClass().getName(), primitiveType, methodName));
+	}
+
+	private static Object unpack(final Class<?> primitiveType, final long bits) {
+		if (primitiveType == Integer.TYPE) {
+			return (int) bits;
+		} else if (primitiveType == Long.TYPE) {
+			return bits;
+		} else if (primitiveType == Boolean.TYPE) {
+			return bits != 0L;
+		} else if (primitiveType == Double.TYPE) {
+			return Double.longBitsToDouble(bits);
+		} else if (primitiveType == Float.TYPE) {
+			return Float.intBitsToFloat((int) bits);
+		} else if (primitiveType == Short.TYPE) {
+			return (short) bits;
+		} else if (primitiveType == Byte.TYPE) {
+			return (byte) bits;
+		} else {
+			return (char) bits;
+		}
+	}
+}
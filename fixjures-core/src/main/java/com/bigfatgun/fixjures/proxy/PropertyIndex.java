@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.ClassCache;
+import com.bigfatgun.fixjures.FixtureType;
+import com.bigfatgun.fixjures.TypeWrapper;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+/**
+ * The getters of a class, indexed by property name and by method name. A class's methods are walked once, the first
+ * time its index is requested, and the index is shared by every source and proxy afterwards; looking up a source key is
+ * a hash lookup rather than a series of {@link Class#getMethod} probes.
+ *
+ * @author Steve Reed
+ */
+public final class PropertyIndex {
+
+	/** A getter, along with its setter if the class has one. */
+	public static final class Property {
+
+		private final String name;
+		private final Method getter;
+		private final Method setter;
+		private final FixtureType type;
+
+		private Property(final String name, final Method getter, final Method setter) {
+			this.name = name;
+			this.getter = getter;
+			this.setter = setter;
+			this.type = TypeWrapper.wrapMethodReturnType(getter);
+		}
+
+		/**
+		 * @return property name, such as "firstName"; for getters without a "get" or "is" prefix, the method name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		public Method getGetter() {
+			return getter;
+		}
+
+		/**
+		 * @return setter accepting the getter's return type, or null if there is none
+		 */
+		public Method getSetter() {
+			return setter;
+		}
+
+		/**
+		 * @return getter return type, including generic type arguments
+		 */
+		public FixtureType getType() {
+			return type;
+		}
+
+		public boolean isBoolean() {
+			return getter.getReturnType() == Boolean.TYPE || getter.getReturnType() == Boolean.class;
+		}
+	}
+
+	private static final ClassCache<PropertyIndex> INDEXES = ClassCache.of(new Function<Class<?>, PropertyIndex>() {
+		public PropertyIndex apply(final Class<?> type) {
+			return new PropertyIndex(type);
+		}
+	});
+
+	/**
+	 * Returns the property index of a class.
+	 *
+	 * @param type class or interface
+	 * @return property index
+	 */
+	public static PropertyIndex of(final Class<?> type) {
+		return INDEXES.get(type);
+	}
+
+	private final ImmutableMap<String, Property> byMethodName;
+	private final ImmutableMap<String, Property> byPropertyName;
+
+	private PropertyIndex(final Class<?> type) {
+		final Map<String, Property> methods = Maps.newHashMap();
+		final Map<String, Property> properties = Maps.newHashMap();
+
+		// getMethods() lists a covariant override next to the method it overrides, in no set order; keep the override
+		final Map<String, Method> getters = Maps.newHashMap();
+		for (final Method method : type.getMethods()) {
+			if (method.getParameterTypes().length != 0 || method.getReturnType() == Void.TYPE || Modifier.isStatic(method.getModifiers()) || method.isBridge()) {
+				continue;
+			}
+
+			final Method other = getters.get(method.getName());
+			if (other == null || other.getReturnType().isAssignableFrom(method.getReturnType())) {
+				getters.put(method.getName(), method);
+			}
+		}
+
+		for (final Method method : getters.values()) {
+			final String suffix = getterSuffix(method.getName());
+			final Property property = new Property(
+					(suffix == null) ? method.getName() : Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1),
+					method,
+					findSetter(type, method));
+			methods.put(method.getName(), property);
+
+			// "getX" wins over "isX" when a class declares both
+			if (suffix != null && (method.getName().startsWith("get") || !properties.containsKey(suffix))) {
+				properties.put(suffix, property);
+				properties.put(property.getName(), property);
+			}
+		}
+
+		this.byMethodName = ImmutableMap.copyOf(methods);
+		this.byPropertyName = ImmutableMap.copyOf(properties);
+	}
+
+	/**
+	 * Finds the getter of a property. Both "firstName" and "FirstName" find {@code getFirstName()} or, failing that,
+	 * {@code isFirstName()}.
+	 *
+	 * @param propertyName property name
+	 * @return property, or null if the class has no such getter
+	 */
+	public Property forProperty(final String propertyName) {
+		return byPropertyName.get(propertyName);
+	}
+
+	/**
+	 * Finds a no-arg, non-void method by name.
+	 *
+	 * @param methodName method name, such as "getFirstName"
+	 * @return property, or null if the class has no such method
+	 */
+	public Property forMethod(final String methodName) {
+		return byMethodName.get(methodName);
+	}
+
+	/**
+	 * @return every no-arg, non-void method of the class
+	 */
+	public ImmutableCollection<Property> getProperties() {
+		return byMethodName.values();
+	}
+
+	/**
+	 * Returns the part of a getter name after its "get" or "is" prefix.
+	 *
+	 * @param methodName method name
+	 * @return capitalized property name, or null if no property name maps onto the method
+	 */
+	private static String getterSuffix(final String methodName) {
+		for (final String prefix : new String[] { "get", "is" }) {
+			if (methodName.length() > prefix.length() && methodName.startsWith(prefix)
+					&& Character.toUpperCase(methodName.charAt(prefix.length())) == methodName.charAt(prefix.length())) {
+				return methodName.substring(prefix.length());
+			}
+		}
+		return null;
+	}
+
+	private static Method findSetter(final Class<?> type, final Method getter) {
+		final String setterName = ProxyUtils.convertNameToSetter(getter.getName());
+		if (setterName == null || type.isInterface()) {
+			return null;
+		}
+
+		try {
+			return type.getMethod(setterName, getter.getReturnType());
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
@@ -17,6 +17,7 @@
 package com.bigfatgun.fixjures.proxy;
 
 import com.bigfatgun.fixjures.Fixjure;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
 
 /** Static proxy factory. */
@@ -41,7 +42,9 @@ public final class Proxies {
 	}
 
 	/**
-	 * Creates a new interface proxy.
+	 * Creates a new interface proxy. With {@link Fixjure.Option#GENERATED_PROXIES} enabled, and lazy reference
+	 * evaluation and value semantics disabled, interfaces supported by the class generator get a generated
+	 * implementation; all others use {@code java.lang.reflect.Proxy}.
 	 *
 	 * @param cls proxy object type
 	 * @param <T> proxy object type
@@ -49,20 +52,47 @@ public final class Proxies {
 	 * @return new object proxy
 	 */
 	public static <T> ObjectProxy<T> newInterfaceProxy(final Class<T> cls, final ImmutableSet<Fixjure.Option> options) {
+		if (options.contains(Fixjure.Option.GENERATED_PROXIES)
+				&& !options.contains(Fixjure.Option.LAZY_REFERENCE_EVALUATION)
+				&& !options.contains(Fixjure.Option.VALUE_SEMANTICS)
+				&& FixtureClassGenerator.supports(cls)) {
+			return new GeneratedInterfaceProxy<T>(cls, options);
+		}
 		return new InterfaceProxy<T>(cls, options);
 	}
 
 	/**
-	 * Creates a new concrete java bean proxy.
+	 * Creates a new concrete java bean proxy. With {@link Fixjure.Option#CONSTRUCTOR_BINDING} enabled, classes with a
+	 * constructor annotated with {@link java.beans.ConstructorProperties} are created by calling that constructor once
+	 * with every value; all others are created with their no-arg constructor and then populated.
 	 *
 	 * @param cls proxy object type
 	 * @param <T> proxy object type
 	 * @return new object proxy
 	 */
 	public static <T> ObjectProxy<T> newJavaBeanProxy(final Class<T> cls, final ImmutableSet<Fixjure.Option> options) {
+		if (options.contains(Fixjure.Option.CONSTRUCTOR_BINDING) && ConstructorBindingProxy.supports(cls)) {
+			return new ConstructorBindingProxy<T>(cls, options);
+		}
 		return new ConcreteReflectionProxy<T>(cls, options);
 	}
 
+	/**
+	 * Adds a fixed return value for a method of a proxy. Proxies created by this class store the value without wrapping
+	 * it in a stub; other proxies get a constant stub.
+	 *
+	 * @param proxy object proxy
+	 * @param methodName method name
+	 * @param value method return value
+	 */
+	public static void addValue(final ObjectProxy<?> proxy, final String methodName, final Object value) {
+		if (proxy instanceof AbstractObjectProxy) {
+			((AbstractObjectProxy<?>) proxy).addValue(methodName, value);
+		} else {
+			proxy.addValueStub(methodName, Suppliers.ofInstance(value));
+		}
+	}
+
 	/** Private util ctor. */
 	private Proxies() {
 		assert false : "Cannot instantiate!";
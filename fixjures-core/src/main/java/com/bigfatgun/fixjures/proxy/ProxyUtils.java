@@ -20,20 +20,18 @@ public final class ProxyUtils {
 	private ProxyUtils() {}
 
 	/**
-	 * Converts a property name into a getter name. For example, "firstName" will be transformed into "getFirstName".
+	 * Converts a property name into a getter name. For example, "firstName" will be transformed into "getFirstName", or
+	 * "isFirstName" if the class has no "getFirstName" method.
+	 *
+	 * @param cls class declaring the getter
+	 * @param propertyName property name
+	 * @return getter name, or null if the class has no such getter
+	 * @see PropertyIndex
 	 */
 	public static String getterName(final Class<?> cls, final String propertyName) {
-        String normalGetter = "get" + Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
-        String booleanGetter = "is" + normalGetter.substring(3);
-        for (String getter : new String[] { normalGetter, booleanGetter }) {
-            try {
-                return cls.getMethod(getter).getName();
-            } catch (NoSuchMethodException e) {
-                // ignore
-            }
-        }
-        return null;
-    }
+		final PropertyIndex.Property property = PropertyIndex.of(cls).forProperty(propertyName);
+		return (property == null) ? null : property.getGetter().getName();
+	}
 
 	/**
 	 * Converts getter name to setter name by replacing the first "g" with an "s".
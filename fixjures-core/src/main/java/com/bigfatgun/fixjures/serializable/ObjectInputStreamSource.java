@@ -16,6 +16,7 @@
 
 package com.bigfatgun.fixjures.serializable;
 
+import com.bigfatgun.fixjures.FileSources;
 import com.bigfatgun.fixjures.FixtureException;
 import com.bigfatgun.fixjures.FixtureSource;
 import com.bigfatgun.fixjures.FixtureStream;
@@ -38,7 +39,7 @@ public class ObjectInputStreamSource extends FixtureSource implements FixtureStr
 
 	public static ObjectInputStreamSource newFile(final File file) throws FileNotFoundException {
 		checkNotNull(file);
-		return new ObjectInputStreamSource(new RandomAccessFile(file, "r").getChannel());
+		return new ObjectInputStreamSource(FileSources.open(file));
 	}
 
 	public static ObjectInputStreamSource newResource(final ClassLoader clsLoader, final String resourceName) throws FileNotFoundException {
@@ -71,7 +72,7 @@ public class ObjectInputStreamSource extends FixtureSource implements FixtureStr
 	public Object createFixture(final FixtureType type) {
 		try {
 			if (objIn == null) {
-				objIn = new ObjectInputStream(Channels.newInputStream(getSource()));
+				objIn = new ObjectInputStream(FileSources.newInputStream(getSource()));
 			}
 			return type.getType().cast(objIn.readObject());
 		} catch (Exception e) {
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures;
+
+import com.google.common.base.Function;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ClassCacheTest {
+
+	public static final class Leaf {
+	}
+
+	private static ClassCache<String> newCountingCache(final AtomicInteger computations) {
+		return ClassCache.of(new Function<Class<?>, String>() {
+			public String apply(final Class<?> cls) {
+				computations.incrementAndGet();
+				return cls.getName();
+			}
+		});
+	}
+
+	@Test
+	public void valuesAreComputedOncePerClass() {
+		final AtomicInteger computations = new AtomicInteger();
+		final ClassCache<String> cache = newCountingCache(computations);
+		assertEquals(Leaf.class.getName(), cache.get(Leaf.class));
+		assertEquals(Leaf.class.getName(), cache.get(Leaf.class));
+		assertEquals(String.class.getName(), cache.get(String.class));
+		assertEquals(2, computations.get());
+	}
+
+	@Test
+	public void classesOfOtherLoadersAreNotPinned() throws Exception {
+		final URL classes = Leaf.class.getProtectionDomain().getCodeSource().getLocation();
+		final Class<?> isolated = new URLClassLoader(new URL[] { classes }, null).loadClass(Leaf.class.getName());
+		assertNotSame(Leaf.class, isolated);
+
+		assertTrue(ClassCache.isPinned(String.class));
+		assertTrue(ClassCache.isPinned(Leaf.class));
+		assertFalse(ClassCache.isPinned(isolated));
+
+		final AtomicInteger computations = new AtomicInteger();
+		final ClassCache<String> cache = newCountingCache(computations);
+		assertEquals(Leaf.class.getName(), cache.get(isolated));
+		assertEquals(Leaf.class.getName(), cache.get(Leaf.class));
+		assertEquals(2, computations.get());
+	}
+}
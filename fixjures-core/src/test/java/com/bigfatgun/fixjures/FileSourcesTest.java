@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures;
+
+import com.bigfatgun.fixjures.serializable.ObjectInputStreamSource;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FileSourcesTest {
+
+	private long threshold;
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		threshold = FileSources.getMmapThreshold();
+		file = File.createTempFile("fixjures", ".dat");
+		file.deleteOnExit();
+	}
+
+	@After
+	public void tearDown() {
+		FileSources.setMmapThreshold(threshold);
+		file.delete();
+	}
+
+	@Test
+	public void filesAreMappedFromThreshold() throws IOException {
+		Files.write(new byte[100], file);
+
+		FileSources.setMmapThreshold(101);
+		final ReadableByteChannel small = FileSources.open(file);
+		assertFalse(FileSources.isMapped(small));
+		small.close();
+
+		FileSources.setMmapThreshold(100);
+		final ReadableByteChannel large = FileSources.open(file);
+		assertTrue(FileSources.isMapped(large));
+		large.close();
+	}
+
+	@Test
+	public void mappedChannelsReadWholeFile() throws IOException {
+		Files.write("0123456789", file, Charsets.UTF_8);
+		FileSources.setMmapThreshold(0);
+
+		final ReadableByteChannel channel = FileSources.open(file);
+		final ByteBuffer dst = ByteBuffer.allocate(4);
+		assertEquals(4, channel.read(dst));
+		dst.clear();
+		assertEquals(4, channel.read(dst));
+		dst.clear();
+		assertEquals(2, channel.read(dst));
+		assertEquals(-1, channel.read(dst));
+
+		channel.close();
+		assertFalse(channel.isOpen());
+		try {
+			channel.read(dst);
+			fail();
+		} catch (ClosedChannelException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void readersDecodeMappedFiles() throws IOException {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			text.append("caf\u00e9 \u00fcber \u20ac").append(i).append('\n');
+		}
+		Files.write(text, file, Charsets.UTF_8);
+		FileSources.setMmapThreshold(0);
+
+		final ReadableByteChannel channel = FileSources.open(file);
+		assertTrue(FileSources.isMapped(channel));
+		assertEquals(text.toString(), CharStreams.toString(FileSources.newReader(channel, Charsets.UTF_8.newDecoder(), -1)));
+	}
+
+	@Test
+	public void serializedFixturesAreReadFromMappedFiles() throws IOException {
+		final ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+		out.writeObject("first");
+		out.writeObject("second");
+		out.close();
+		FileSources.setMmapThreshold(0);
+
+		final ObjectInputStreamSource source = ObjectInputStreamSource.newFile(file);
+		final List<String> list = Lists.newArrayList();
+		Iterables.addAll(list, Fixjure.of(String.class).fromStream(source).createAll());
+		assertEquals(ImmutableList.of("first", "second"), list);
+		source.close();
+	}
+}
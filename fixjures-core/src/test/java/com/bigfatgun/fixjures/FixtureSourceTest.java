@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bigfatgun.fixjures;
+
+import com.bigfatgun.fixjures.handlers.AbstractUnmarshaller;
+import com.bigfatgun.fixjures.handlers.EagerUnmarshaller;
+import com.bigfatgun.fixjures.handlers.UnmarshallingContext;
+import com.bigfatgun.fixjures.handlers.UnmarshallingPlan;
+import com.bigfatgun.fixjures.proxy.ObjectProxyData;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.beans.ConstructorProperties;
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class FixtureSourceTest {
+
+	/** Source that "parses" to a fixed raw value. */
+	private static final class RawValueSource extends FixtureSource {
+
+		private final Object rawValue;
+
+		private RawValueSource(final Object rawValue) {
+			super(Channels.newChannel(new ByteArrayInputStream(new byte[0])));
+			this.rawValue = rawValue;
+		}
+
+		@Override
+		protected Object createFixture(final FixtureType type) {
+			return findValue(type, rawValue).get();
+		}
+	}
+
+	@Test
+	public void resolutionsAreCached() {
+		final RawValueSource source = new RawValueSource(ImmutableList.of(1L, 2L, 3L, 4L));
+		final List<Integer> ints = Fixjure.listOf(Integer.class).from(source).create();
+		assertEquals(ImmutableList.of(1, 2, 3, 4), ints);
+		assertEquals(2, source.getResolutionCacheMisses());
+		assertEquals(3, source.getResolutionCacheHits());
+	}
+
+	@Test
+	public void resolutionCountersArePerSource() {
+		final ImmutableList<Long> raw = ImmutableList.of(1L, 2L, 3L, 4L);
+		final RawValueSource first = new RawValueSource(raw);
+		assertEquals(ImmutableList.of(1, 2, 3, 4), Fixjure.listOf(Integer.class).from(first).create());
+
+		final RawValueSource second = new RawValueSource(raw);
+		assertEquals(ImmutableList.of(1, 2, 3, 4), Fixjure.listOf(Integer.class).from(second).create());
+		assertEquals(2, first.getResolutionCacheMisses());
+		assertEquals(3, first.getResolutionCacheHits());
+		assertEquals(2, second.getResolutionCacheMisses());
+		assertEquals(3, second.getResolutionCacheHits());
+	}
+
+	public static interface Named {
+		String getName();
+
+		boolean isActive();
+	}
+
+	public static interface Holder {
+		Named getNamed();
+	}
+
+	@Test
+	public void nestedObjectsAreBuiltOnce() {
+		final RawValueSource source = new RawValueSource(ObjectProxyData.copyOf(ImmutableMap.of("named", ImmutableMap.of("name", "inner", "active", true))));
+		final Holder holder = Fixjure.of(Holder.class).from(source).create();
+		assertEquals("inner", holder.getNamed().getName());
+		assertSame(holder.getNamed(), holder.getNamed());
+	}
+
+	@Test
+	public void handlersWorkWithPlainContexts() {
+		final RawValueSource source = new RawValueSource(null);
+		final UnmarshallingContext plain = new UnmarshallingContext() {
+			public ImmutableSet<Fixjure.Option> getOptions() {
+				return source.getOptions();
+			}
+
+			public Supplier<?> unmarshall(final Object rawValue, final FixtureType type) {
+				return source.unmarshall(rawValue, type);
+			}
+		};
+
+		final FixtureType longs = TypeWrapper.wrap(List.class).of(Long.class);
+		final Object rawLongs = ImmutableList.of("1", "2");
+		assertEquals(ImmutableList.of(1L, 2L), source.findUnmarshaller(rawLongs, longs).unmarshall(plain, rawLongs, longs).get());
+
+		final FixtureType holder = TypeWrapper.wrap(Holder.class);
+		final Object rawHolder = ObjectProxyData.copyOf(ImmutableMap.of("named", ObjectProxyData.copyOf(ImmutableMap.of("name", "inner", "active", true))));
+		assertEquals("inner", ((Holder) source.findUnmarshaller(rawHolder, holder).unmarshall(plain, rawHolder, holder).get()).getNamed().getName());
+	}
+
+	@Test
+	public void plansAreSharedPerTypeAndOptions() {
+		final FixtureType type = TypeWrapper.wrap(Named.class);
+		final UnmarshallingPlan plan = new RawValueSource(null).getPlan(type);
+		assertSame(plan, new RawValueSource(null).getPlan(type));
+
+		final UnmarshallingPlan.Step step = plan.getStep("name");
+		assertSame(step, plan.getStep("name"));
+		assertEquals("getName", step.getMethodName());
+		assertEquals(TypeWrapper.wrap(String.class), step.getType());
+		assertEquals("isActive", plan.getStep("active").getMethodName());
+		assertFalse(plan.getStep("bogus").isMappable());
+
+		final RawValueSource literal = new RawValueSource(null);
+		literal.addOption(Fixjure.Option.LITERAL_MAPPING);
+		assertNotSame(plan, literal.getPlan(type));
+		assertEquals("getName", literal.getPlan(type).getStep("getName").getMethodName());
+		assertFalse(literal.getPlan(type).getStep("name").isMappable());
+	}
+
+	@Test
+	public void onlyTheFirstUnmappableKeysAreRemembered() {
+		final UnmarshallingPlan plan = UnmarshallingPlan.compile(Named.class, ImmutableSet.<Fixjure.Option>of());
+		final UnmarshallingPlan.Step first = plan.getStep("unknown0");
+		assertSame(first, plan.getStep("unknown0"));
+		for (int i = 1; i < 1000; i++) {
+			assertFalse(plan.getStep("unknown" + i).isMappable());
+		}
+
+		final UnmarshallingPlan.Step last = plan.getStep("unknown999");
+		assertEquals("unknown999", last.getKey());
+		assertNotSame(last, plan.getStep("unknown999"));
+		assertSame(first, plan.getStep("unknown0"));
+		assertSame(plan.getStep("Name"), plan.getStep("Name"));
+	}
+
+	public static final class Span {
+		private final long start;
+		private final long end;
+
+		@ConstructorProperties({ "start", "end" })
+		public Span(final long start, final long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		public long duration() {
+			return end - start;
+		}
+	}
+
+	@Test
+	public void constructorParametersAreBoundWithoutGetters() {
+		final RawValueSource source = new RawValueSource(ObjectProxyData.copyOf(ImmutableMap.of("start", 3L, "end", 10L)));
+		source.addOption(Fixjure.Option.CONSTRUCTOR_BINDING);
+		final UnmarshallingPlan.Step step = source.getPlan(TypeWrapper.wrap(Span.class)).getStep("end");
+		assertTrue(step.isMappable());
+		assertEquals(TypeWrapper.wrap(Long.TYPE), step.getType());
+		assertEquals(7L, Fixjure.of(Span.class).from(source).create().duration());
+	}
+
+	public static interface Measured {
+		double getValue();
+	}
+
+	@Test
+	public void stepsRememberSeveralRawClasses() {
+		final RawValueSource source = new RawValueSource(null);
+		final UnmarshallingPlan.Step step = UnmarshallingPlan.compile(Measured.class, source.getOptions()).getStep("value");
+		for (int i = 0; i < 3; i++) {
+			assertEquals(1.0, step.unmarshallValue(source, 1L));
+			assertEquals(2.5, step.unmarshallValue(source, 2.5));
+		}
+		assertEquals(2, source.getResolutionCacheMisses());
+		assertEquals(0, source.getResolutionCacheHits());
+	}
+
+	@Test
+	public void installingHandlerInvalidatesCache() {
+		final String id = "00000000-0000-0000-0000-000000000001";
+		final RawValueSource source = new RawValueSource(id);
+		assertNull(source.unmarshall(id, TypeWrapper.wrap(UUID.class)));
+
+		Fixjure.of(UUID.class).from(source).with(new AbstractUnmarshaller<UUID>(String.class, UUID.class) {
+			public Supplier<? extends UUID> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+				return Suppliers.ofInstance(UUID.fromString(castSourceValue(String.class, source)));
+			}
+		});
+		assertEquals(UUID.fromString(id), source.unmarshall(id, TypeWrapper.wrap(UUID.class)).get());
+	}
+
+	private static AbstractUnmarshaller<UUID> prefixHandler(final String prefix, final long id) {
+		return new AbstractUnmarshaller<UUID>(String.class, UUID.class) {
+			@Override
+			public boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredType) {
+				return super.canUnmarshallObjectToType(obj, desiredType) && String.valueOf(obj).startsWith(prefix);
+			}
+
+			public Supplier<? extends UUID> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+				return Suppliers.ofInstance(new UUID(0, id));
+			}
+		};
+	}
+
+	@Test
+	public void installedHandlersChooseByContents() {
+		final RawValueSource source = new RawValueSource(null);
+		Fixjure.of(UUID.class).from(source).with(prefixHandler("a", 1)).with(prefixHandler("", 2));
+
+		final FixtureType type = TypeWrapper.wrap(UUID.class);
+		assertEquals(new UUID(0, 1), source.unmarshall("a", type).get());
+		assertEquals(new UUID(0, 2), source.unmarshall("b", type).get());
+		assertEquals(new UUID(0, 1), source.unmarshall("a", type).get());
+	}
+
+	public static interface Tagged {
+		UUID getId();
+	}
+
+	@Test
+	public void installedHandlersChooseByContentsInPlans() {
+		final RawValueSource source = new RawValueSource(ImmutableList.of(ImmutableMap.of("id", "a"), ImmutableMap.of("id", "b")));
+		final List<Tagged> tagged = Fixjure.listOf(Tagged.class).from(source).with(prefixHandler("a", 1)).with(prefixHandler("", 2)).create();
+		assertEquals(new UUID(0, 1), tagged.get(0).getId());
+		assertEquals(new UUID(0, 2), tagged.get(1).getId());
+	}
+
+	@Test
+	public void eagerValuesAreReturnedDirectly() {
+		final RawValueSource source = new RawValueSource(null);
+		assertTrue(source.findUnmarshaller("12", TypeWrapper.wrap(Integer.TYPE)) instanceof EagerUnmarshaller);
+		assertEquals(12, source.unmarshallValue("12", TypeWrapper.wrap(Integer.TYPE)));
+		assertEquals(ImmutableList.of(1L, 2L), source.unmarshallValue(ImmutableList.of("1", "2"), TypeWrapper.wrap(List.class).of(Long.class)));
+	}
+
+	@Test(expected = FixtureException.class)
+	public void unresolvableEagerValuesFail() {
+		new RawValueSource(null).unmarshallValue("00000000-0000-0000-0000-000000000001", TypeWrapper.wrap(UUID.class));
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.TypeWrapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.List;
+import java.util.ArrayList;
+
+public class DateUnmarshallerTest {
+
+	private final DateUnmarshaller handler = new DateUnmarshaller();
+
+	@Test
+	public void isoDateTimesWithOffsets() {
+		assertEquals(1239485360000L, DateParser.parse("2009-04-11T21:29:20Z").getTime());
+		assertEquals(1239485360250L, DateParser.parse("2009-04-11T21:29:20.25Z").getTime());
+		assertEquals(1239485360000L, DateParser.parse("2009-04-11T23:29:20+02:00").getTime());
+		assertEquals(1239485360000L, DateParser.parse("2009-04-11T16:29:20-0500").getTime());
+	}
+
+	@Test
+	public void unknownFormatsReturnNull() {
+		assertNull(DateParser.parse("not a date"));
+	}
+
+	@Test(expected = FixtureException.class)
+	public void unparseableDateThrows() {
+		handler.unmarshall(null, "not a date", TypeWrapper.wrap(Date.class));
+	}
+
+	@Test
+	public void nullDatesCannotBeStubbed() {
+		assertNull(handler.unmarshall(null, null, TypeWrapper.wrap(Date.class)));
+		assertNull(new CalendarUnmarshaller().unmarshall(null, null, TypeWrapper.wrap(Calendar.class)));
+	}
+
+	@Test
+	public void epochMillisAndSqlTypes() {
+		assertEquals(new Date(1000L), handler.unmarshall(null, 1000L, TypeWrapper.wrap(Date.class)).get());
+		final Date timestamp = handler.unmarshall(null, "2009-04-11T21:29:20Z", TypeWrapper.wrap(Timestamp.class)).get();
+		assertSame(Timestamp.class, timestamp.getClass());
+		assertEquals(1239485360000L, timestamp.getTime());
+	}
+
+	@Test
+	public void calendars() {
+		final Calendar calendar = new CalendarUnmarshaller().unmarshall(null, 1239485360000L, TypeWrapper.wrap(Calendar.class)).get();
+		assertSame(GregorianCalendar.class, calendar.getClass());
+		assertEquals(1239485360000L, calendar.getTimeInMillis());
+	}
+
+	@Test
+	public void concurrentParsing() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Long>> results = new ArrayList<Future<Long>>();
+			for (int i = 0; i < 200; i++) {
+				results.add(executor.submit(new Callable<Long>() {
+					public Long call() {
+						return handler.unmarshall(null, "1976-10-12", null).get().getTime();
+					}
+				}));
+			}
+			for (final Future<Long> result : results) {
+				assertEquals(new GregorianCalendar(1976, Calendar.OCTOBER, 12).getTimeInMillis(), result.get().longValue());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.TypeWrapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+public class NumberParsingUnmarshallerTest {
+
+	@Test
+	public void largeValuesKeepTheirPrecision() {
+		assertEquals(Long.MAX_VALUE, Unmarshallers.longParser().unmarshall(null, "9223372036854775807", TypeWrapper.wrap(Long.class)).get().longValue());
+		assertEquals(Long.MIN_VALUE, Unmarshallers.longParser().unmarshall(null, "-9223372036854775808", TypeWrapper.wrap(Long.TYPE)).get().longValue());
+		assertEquals(new BigInteger("123456789012345678901234567890"), Unmarshallers.bigIntegerParser().unmarshall(null, "123456789012345678901234567890", TypeWrapper.wrap(BigInteger.class)).get());
+		assertEquals(new BigDecimal("0.1000000000000000000001"), Unmarshallers.bigDecimalParser().unmarshall(null, "0.1000000000000000000001", TypeWrapper.wrap(BigDecimal.class)).get());
+	}
+
+	@Test
+	public void integralTypesAcceptDecimalText() {
+		assertEquals(Integer.valueOf(12), Unmarshallers.integerParser().unmarshall(null, " 12.75 ", TypeWrapper.wrap(Integer.TYPE)).get());
+		assertEquals(Short.valueOf((short) 1000), Unmarshallers.shortParser().unmarshall(null, "1e3", TypeWrapper.wrap(Short.class)).get());
+	}
+
+	@Test(expected = FixtureException.class)
+	public void outOfRangeValuesAreRejected() {
+		Unmarshallers.byteParser().unmarshall(null, "300", TypeWrapper.wrap(Byte.class));
+	}
+
+	@Test(expected = FixtureException.class)
+	public void garbageIsRejected() {
+		Unmarshallers.doubleParser().unmarshall(null, "twelve", TypeWrapper.wrap(Double.class));
+	}
+
+	@Test
+	public void onlyCharSequencesAreParsed() {
+		assertTrue(Unmarshallers.floatParser().canUnmarshallObjectToType("1.5", TypeWrapper.wrap(Float.TYPE)));
+		assertFalse(Unmarshallers.floatParser().canUnmarshallObjectToType(1.5, TypeWrapper.wrap(Float.TYPE)));
+		assertFalse(Unmarshallers.floatParser().canUnmarshallObjectToType("1.5", TypeWrapper.wrap(Double.TYPE)));
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.TypeWrapper;
+import com.google.common.collect.ImmutableList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class PrimitiveArrayUnmarshallerTest {
+
+	@Test
+	public void numbersAreNarrowedWithoutBoxing() {
+		final ImmutableList<Number> source = ImmutableList.<Number>of(1L, 2.5, 3);
+		assertArrayEquals(new int[] { 1, 2, 3 }, Unmarshallers.intArrayHandler().unmarshall(null, source, TypeWrapper.wrap(int[].class)).get());
+		assertArrayEquals(new long[] { 1, 2, 3 }, Unmarshallers.longArrayHandler().unmarshall(null, source, TypeWrapper.wrap(long[].class)).get());
+		assertArrayEquals(new byte[] { 1, 2, 3 }, Unmarshallers.byteArrayHandler().unmarshall(null, source, TypeWrapper.wrap(byte[].class)).get());
+		assertArrayEquals(new double[] { 1.0, 2.5, 3.0 }, Unmarshallers.doubleArrayHandler().unmarshall(null, source, TypeWrapper.wrap(double[].class)).get(), 0.0);
+	}
+
+	@Test
+	public void builderGrowsAndTrims() {
+		final PrimitiveArrayBuilder builder = PrimitiveArrayBuilder.newBuilder(Short.TYPE, 1);
+		for (int i = 0; i < 40; i++) {
+			builder.add(i);
+		}
+		final short[] values = (short[]) builder.build();
+		assertEquals(40, values.length);
+		assertEquals(39, values[39]);
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.handlers;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.FixtureSource;
+import com.bigfatgun.fixjures.FixtureType;
+import com.bigfatgun.fixjures.TypeWrapper;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+public class TokenUnmarshallerTest {
+
+	/** Source whose fixtures are only ever created from tokens pushed by the test. */
+	private static final class TokenSource extends FixtureSource {
+
+		private TokenSource() {
+			super(Channels.newChannel(new ByteArrayInputStream(new byte[0])));
+		}
+
+		@Override
+		protected Object createFixture(final FixtureType type) {
+			throw new UnsupportedOperationException();
+		}
+
+		private void install(final Unmarshaller<?> handler) {
+			installTypeHandler(handler);
+		}
+	}
+
+	public static interface Point {
+		long getX();
+
+		long getY();
+	}
+
+	public static interface Shape {
+		String getName();
+
+		List<Integer> getSizes();
+
+		int[] getCounts();
+
+		Map<String, Long> getTotals();
+
+		Set<String> getTags();
+
+		Point getOrigin();
+	}
+
+	private static void point(final TokenSink sink, final long x, final long y) {
+		sink.beginObject();
+		sink.name("x");
+		sink.value(x);
+		sink.name("y");
+		sink.value(y);
+		sink.endObject();
+	}
+
+	public static interface Dated {
+		String getName();
+
+		Date getDate();
+	}
+
+	private static TokenUnmarshaller datedWithNulls(final TokenSource source) {
+		final TokenUnmarshaller sink = source.newTokenUnmarshaller(TypeWrapper.wrap(Dated.class));
+		sink.beginObject();
+		sink.name("name");
+		sink.value(null);
+		sink.name("date");
+		sink.value(null);
+		sink.endObject();
+		return sink;
+	}
+
+	@Test(expected = FixtureException.class)
+	public void nullDatesCannotBeStubbed() {
+		datedWithNulls(new TokenSource());
+	}
+
+	@Test
+	public void nullDatesAreSkippedWhenUnmappable() {
+		final TokenSource source = new TokenSource();
+		source.addOption(Fixjure.Option.SKIP_UNMAPPABLE);
+		final Dated dated = (Dated) datedWithNulls(source).getValue();
+		assertNull(dated.getName());
+	}
+
+	@Test
+	public void repeatedMapKeysKeepTheLastValue() {
+		final TokenSource source = new TokenSource();
+		final TokenUnmarshaller sink = source.newTokenUnmarshaller(TypeWrapper.wrap(Map.class).of(String.class, Long.class));
+		sink.beginObject();
+		sink.name("a");
+		sink.value(1L);
+		sink.name("b");
+		sink.value(2L);
+		sink.name("a");
+		sink.value(3L);
+		sink.endObject();
+		assertEquals(ImmutableMap.of("a", 3L, "b", 2L), sink.getValue());
+		assertEquals(ImmutableList.of("a", "b"), ImmutableList.copyOf(((Map<?, ?>) sink.getValue()).keySet()));
+
+		final FixtureType sorted = TypeWrapper.wrap(SortedMap.class).of(Integer.class, String.class);
+		assertEquals(ImmutableSortedMap.of(1, "y", 2, "z"), source.unmarshallValue(ImmutableMap.of("1", "x", "2", "z", "01", "y"), sorted));
+		final FixtureType map = TypeWrapper.wrap(Map.class).of(Integer.class, String.class);
+		assertEquals(ImmutableMap.of(1, "y", 2, "z"), source.unmarshallValue(ImmutableMap.of("1", "x", "2", "z", "01", "y"), map));
+	}
+
+	@Test
+	public void objectsAndCollectionsAreBuiltFromTokens() {
+		final TokenUnmarshaller sink = new TokenSource().newTokenUnmarshaller(TypeWrapper.wrap(Shape.class));
+		sink.beginObject();
+		sink.name("name");
+		sink.value("square");
+		sink.name("sizes");
+		sink.beginArray();
+		sink.value(1L);
+		sink.value("2");
+		sink.endArray();
+		sink.name("counts");
+		sink.beginArray();
+		sink.value(3L);
+		sink.value(4.5);
+		sink.endArray();
+		sink.name("totals");
+		sink.beginObject();
+		sink.name("a");
+		sink.value(10L);
+		sink.endObject();
+		sink.name("tags");
+		sink.beginArray();
+		sink.value("x");
+		sink.value("x");
+		sink.endArray();
+		sink.name("origin");
+		point(sink, 1, 2);
+		assertFalse(sink.isComplete());
+		sink.endObject();
+		assertTrue(sink.isComplete());
+
+		final Shape shape = (Shape) sink.getValue();
+		assertEquals("square", shape.getName());
+		assertEquals(ImmutableList.of(1, 2), shape.getSizes());
+		assertArrayEquals(new int[] { 3, 4 }, shape.getCounts());
+		assertEquals(ImmutableMap.of("a", 10L), shape.getTotals());
+		assertEquals(ImmutableSet.of("x"), shape.getTags());
+		assertEquals(2L, shape.getOrigin().getY());
+	}
+
+	@Test
+	public void customHandlersAreGivenTrees() {
+		final TokenSource source = new TokenSource();
+		source.install(new AbstractUnmarshaller<Point>(Map.class, Point.class) {
+			public Supplier<? extends Point> unmarshall(final UnmarshallingContext helper, final Object src, final FixtureType typeDef) {
+				final Map<?, ?> map = castSourceValue(Map.class, src);
+				assertEquals(ImmutableMap.of("x", 5L, "y", ImmutableList.of(6L)), map);
+				return Suppliers.ofInstance(null);
+			}
+		});
+
+		final TokenUnmarshaller sink = source.newTokenUnmarshaller(TypeWrapper.wrap(List.class).of(Point.class));
+		sink.beginArray();
+		sink.beginObject();
+		sink.name("x");
+		sink.value(5L);
+		sink.name("y");
+		sink.beginArray();
+		sink.value(6L);
+		sink.endArray();
+		sink.endObject();
+		sink.endArray();
+		assertEquals(1, ((List<?>) sink.getValue()).size());
+	}
+
+	@Test
+	public void unmappableValuesAreSkippedWithEverythingInThem() {
+		final TokenSource source = new TokenSource();
+		source.addOption(Fixjure.Option.SKIP_UNMAPPABLE);
+		final TokenUnmarshaller sink = source.newTokenUnmarshaller(TypeWrapper.wrap(Point.class));
+		sink.beginObject();
+		sink.name("bogus");
+		sink.beginObject();
+		sink.name("x");
+		point(sink, 7, 8);
+		sink.endObject();
+		sink.name("x");
+		sink.value(3L);
+		sink.endObject();
+		assertEquals(3L, ((Point) sink.getValue()).getX());
+	}
+
+	@Test(expected = FixtureException.class)
+	public void incompleteDocumentsHaveNoValue() {
+		final TokenUnmarshaller sink = new TokenSource().newTokenUnmarshaller(TypeWrapper.wrap(List.class).of(Long.class));
+		sink.beginArray();
+		sink.value(1L);
+		sink.getValue();
+	}
+}
@@ -17,7 +17,10 @@ package com.bigfatgun.fixjures.proxy;
 
 import com.bigfatgun.fixjures.Fixjure;
 import com.bigfatgun.fixjures.FixtureException;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
@@ -59,4 +62,101 @@ public class ConcreteReflectionProxyTest {
 		FooTwo two = proxy.get();
 		assertNotNull(two);
     }
+
+	public static class Bean {
+		private String name;
+		private int count;
+
+		private Bean() {}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(final String name) {
+			this.name = name;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public void setCount(final int count) {
+			this.count = count;
+		}
+
+		public String getReadOnly() {
+			return "read only";
+		}
+	}
+
+	@Test
+	public void beanMetadataIsSharedPerClass() {
+		final BeanMetadata metadata = BeanMetadata.of(Bean.class);
+		assertSame(metadata, BeanMetadata.of(Bean.class));
+		assertNotNull(metadata.setterFor("getName"));
+		assertNull(metadata.setterFor("getReadOnly"));
+		assertNull(metadata.setterFor("bogus"));
+
+		for (int i = 0; i < 2; i++) {
+			final ConcreteReflectionProxy<Bean> proxy = new ConcreteReflectionProxy<Bean>(Bean.class, ImmutableSet.<Fixjure.Option>of());
+			proxy.addValueStub("getName", Suppliers.ofInstance("bean " + i));
+			proxy.addValueStub("getCount", Suppliers.ofInstance(i));
+			final Bean bean = proxy.get();
+			assertEquals("bean " + i, bean.getName());
+			assertEquals(i, bean.getCount());
+		}
+	}
+
+	@Test(expected = FixtureException.class)
+	public void readOnlyPropertyIsUnmappable() {
+		final ConcreteReflectionProxy<Bean> proxy = new ConcreteReflectionProxy<Bean>(Bean.class, ImmutableSet.<Fixjure.Option>of());
+		proxy.addValueStub("getReadOnly", Suppliers.ofInstance("dude"));
+		proxy.get();
+	}
+
+	public static final class Immutable {
+		private final String name;
+		private final int count;
+
+		private Immutable() {
+			name = null;
+			count = -1;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getCount() {
+			return count;
+		}
+	}
+
+	@Test
+	public void fieldInjectionSetsFinalFields() {
+		final ConcreteReflectionProxy<Immutable> proxy = new ConcreteReflectionProxy<Immutable>(Immutable.class, ImmutableSet.of(Fixjure.Option.FIELD_INJECTION));
+		proxy.addValueStub("getName", Suppliers.ofInstance("immutable"));
+		proxy.addValueStub("getCount", Suppliers.ofInstance(7));
+		final Immutable immutable = proxy.get();
+		assertEquals("immutable", immutable.getName());
+		assertEquals(7, immutable.getCount());
+	}
+
+	@Test
+	public void fieldInjectionLeavesPrimitiveFieldsForNullValues() {
+		final ConcreteReflectionProxy<Bean> proxy = new ConcreteReflectionProxy<Bean>(Bean.class, ImmutableSet.of(Fixjure.Option.FIELD_INJECTION));
+		proxy.addValueStub("getName", Suppliers.ofInstance("bean"));
+		proxy.addValueStub("count", Suppliers.<Integer>ofInstance(null));
+		final Bean bean = proxy.get();
+		assertEquals("bean", bean.getName());
+		assertEquals(0, bean.getCount());
+	}
+
+	@Test(expected = FixtureException.class)
+	public void immutableClassesNeedFieldInjection() {
+		final ConcreteReflectionProxy<Immutable> proxy = new ConcreteReflectionProxy<Immutable>(Immutable.class, ImmutableSet.<Fixjure.Option>of());
+		proxy.addValueStub("getName", Suppliers.ofInstance("immutable"));
+		proxy.get();
+	}
 }
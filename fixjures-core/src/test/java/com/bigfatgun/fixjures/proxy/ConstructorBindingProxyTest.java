@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.beans.ConstructorProperties;
+
+public class ConstructorBindingProxyTest {
+
+	private static final ImmutableSet<Fixjure.Option> BINDING = ImmutableSet.of(Fixjure.Option.CONSTRUCTOR_BINDING);
+
+	public static final class Point {
+		private final String label;
+		private final int x;
+		private final int y;
+
+		@ConstructorProperties({ "label", "x", "y" })
+		public Point(final String label, final int x, final int y) {
+			this.label = label;
+			this.x = x;
+			this.y = y;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public int getX() {
+			return x;
+		}
+
+		public int getY() {
+			return y;
+		}
+	}
+
+	public static class Plain {
+	}
+
+	public static final class Segment {
+		private final int from;
+		private final int to;
+
+		@ConstructorProperties({ "from", "to" })
+		public Segment(final int from, final int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		public int length() {
+			return to - from;
+		}
+	}
+
+	@Test
+	public void annotatedConstructorsAreChosenWhenEnabled() {
+		assertTrue(Proxies.newProxy(Point.class, BINDING) instanceof ConstructorBindingProxy);
+		assertTrue(Proxies.newProxy(Plain.class, BINDING) instanceof ConcreteReflectionProxy);
+		assertTrue(Proxies.newProxy(Point.class, ImmutableSet.<Fixjure.Option>of()) instanceof ConcreteReflectionProxy);
+	}
+
+	@Test
+	public void parametersWithoutGettersAreBoundByName() {
+		final ObjectProxy<Segment> proxy = Proxies.newProxy(Segment.class, BINDING);
+		Proxies.addValue(proxy, "from", 2);
+		proxy.addValueStub("to", Suppliers.ofInstance(7));
+		assertEquals(5, proxy.get().length());
+	}
+
+	@Test
+	public void stubsAreBoundToParameters() {
+		final ObjectProxy<Point> proxy = Proxies.newProxy(Point.class, BINDING);
+		proxy.addValueStub("getLabel", Suppliers.ofInstance("origin"));
+		proxy.addValueStub("x", Suppliers.ofInstance(3));
+		final Point point = proxy.get();
+		assertEquals("origin", point.getLabel());
+		assertEquals(3, point.getX());
+		assertEquals(0, point.getY());
+	}
+
+	@Test(expected = FixtureException.class)
+	public void unknownStubsFail() {
+		final ObjectProxy<Point> proxy = Proxies.newProxy(Point.class, BINDING);
+		proxy.addValueStub("getZ", Suppliers.ofInstance(3));
+		proxy.get();
+	}
+
+	@Test
+	public void unknownStubsAreSkippedWhenEnabled() {
+		final ObjectProxy<Point> proxy = Proxies.newProxy(Point.class, ImmutableSet.of(Fixjure.Option.CONSTRUCTOR_BINDING, Fixjure.Option.SKIP_UNMAPPABLE));
+		proxy.addValueStub("getZ", Suppliers.ofInstance(3));
+		assertNull(proxy.get().getLabel());
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+public class GeneratedInterfaceProxyTest {
+
+	private static final ImmutableSet<Fixjure.Option> GENERATED = ImmutableSet.of(Fixjure.Option.GENERATED_PROXIES);
+
+	public static interface Person {
+		String getName();
+
+		int getAge();
+
+		long getId();
+
+		boolean isActive();
+
+		double getScore();
+
+		char getInitial();
+
+		List<String> getTags();
+
+		int[] getNumbers();
+
+		Person getFriend();
+	}
+
+	private static interface Hidden {
+		String getName();
+	}
+
+	private static ObjectProxy<Person> newPerson(final ImmutableSet<Fixjure.Option> options) {
+		final ObjectProxy<Person> proxy = Proxies.newProxy(Person.class, options);
+		proxy.addValueStub("getName", Suppliers.ofInstance("Steve"));
+		proxy.addValueStub("getAge", Suppliers.ofInstance(33));
+		proxy.addValueStub("getId", Suppliers.ofInstance(1L << 40));
+		proxy.addValueStub("isActive", Suppliers.ofInstance(true));
+		proxy.addValueStub("getScore", Suppliers.ofInstance(2.5));
+		proxy.addValueStub("getInitial", Suppliers.ofInstance('S'));
+		proxy.addValueStub("getTags", Suppliers.ofInstance(ImmutableList.of("a", "b")));
+		proxy.addValueStub("getNumbers", Suppliers.ofInstance(new int[] { 1, 2 }));
+		proxy.addValueStub("getFriend", Suppliers.<Person>ofInstance(null));
+		return proxy;
+	}
+
+	@Test
+	public void generatedClassHoldsTypedValues() {
+		final ObjectProxy<Person> proxy = newPerson(GENERATED);
+		assertTrue(proxy instanceof GeneratedInterfaceProxy);
+
+		final Person person = proxy.get();
+		assertFalse(Proxy.isProxyClass(person.getClass()));
+		assertTrue(person instanceof GeneratedFixture);
+		assertEquals("Steve", person.getName());
+		assertEquals(33, person.getAge());
+		assertEquals(1L << 40, person.getId());
+		assertTrue(person.isActive());
+		assertEquals(2.5, person.getScore(), 0.0);
+		assertEquals('S', person.getInitial());
+		assertEquals(ImmutableList.of("a", "b"), person.getTags());
+		assertArrayEquals(new int[] { 1, 2 }, person.getNumbers());
+		assertNull(person.getFriend());
+
+		assertSame(person.getClass(), proxy.get().getClass());
+		assertEquals(person.hashCode(), proxy.get().hashCode());
+		assertFalse(person.equals(proxy.get()));
+		assertTrue(person.toString().startsWith("Proxy of " + Person.class));
+	}
+
+	@Test
+	public void hashCodeAndToStringFollowGetterOrder() throws Exception {
+		final Person person = newPerson(GENERATED).get();
+		final List<Object> expected = Lists.newArrayList();
+		for (final Method getter : FixtureClassGenerator.generatedType(Person.class).getGetters()) {
+			expected.add(getter.invoke(person));
+		}
+
+		assertEquals(expected, Arrays.asList(((GeneratedFixture) person).fieldValues()));
+		assertEquals(expected.hashCode(), person.hashCode());
+		assertEquals(String.format("Proxy of %s; %s", Person.class, expected), person.toString());
+	}
+
+	@Test
+	public void unmappedGettersFallBackToReflectiveProxy() {
+		final ObjectProxy<Person> proxy = Proxies.newProxy(Person.class, GENERATED);
+		proxy.addValueStub("getName", Suppliers.ofInstance("Steve"));
+		final Person person = proxy.get();
+		assertTrue(Proxy.isProxyClass(person.getClass()));
+		assertEquals("Steve", person.getName());
+		try {
+			person.getAge();
+			fail();
+		} catch (FixtureException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void unmappedGettersAreNullWhenNullOnUnmapped() {
+		final ObjectProxy<Person> proxy = Proxies.newProxy(Person.class, ImmutableSet.of(Fixjure.Option.GENERATED_PROXIES, Fixjure.Option.NULL_ON_UNMAPPED));
+		proxy.addValueStub("getName", Suppliers.ofInstance("Steve"));
+		Proxies.addValue(proxy, "getAge", 33);
+		Proxies.addValue(proxy, "getId", 1L);
+		Proxies.addValue(proxy, "isActive", true);
+		Proxies.addValue(proxy, "getScore", 2.5);
+		Proxies.addValue(proxy, "getInitial", 'S');
+		final Person person = proxy.get();
+		assertTrue(person instanceof GeneratedFixture);
+		assertEquals("Steve", person.getName());
+		assertNull(person.getTags());
+	}
+
+	@Test
+	public void unmappedPrimitivesFailLikeReflectiveProxies() {
+		final ObjectProxy<Person> proxy = Proxies.newProxy(Person.class, ImmutableSet.of(Fixjure.Option.GENERATED_PROXIES, Fixjure.Option.NULL_ON_UNMAPPED));
+		proxy.addValueStub("getName", Suppliers.ofInstance("Steve"));
+		final Person person = proxy.get();
+		assertTrue(Proxy.isProxyClass(person.getClass()));
+		assertEquals("Steve", person.getName());
+		assertNull(person.getTags());
+		try {
+			person.getAge();
+			fail();
+		} catch (NullPointerException e) {
+			// expected, as with InterfaceProxy
+		}
+	}
+
+	@Test
+	public void nullPrimitivesFailLikeReflectiveProxies() {
+		final ObjectProxy<Person> proxy = newPerson(GENERATED);
+		proxy.addValueStub("getAge", Suppliers.<Integer>ofInstance(null));
+		final Person person = proxy.get();
+		assertTrue(Proxy.isProxyClass(person.getClass()));
+		assertEquals("Steve", person.getName());
+		try {
+			person.getAge();
+			fail();
+		} catch (NullPointerException e) {
+			// expected, as with InterfaceProxy
+		}
+	}
+
+	@Test
+	public void unsupportedInterfacesUseReflectiveProxies() {
+		assertTrue(Proxies.newProxy(Hidden.class, GENERATED) instanceof InterfaceProxy);
+		assertTrue(newPerson(ImmutableSet.of(Fixjure.Option.GENERATED_PROXIES, Fixjure.Option.LAZY_REFERENCE_EVALUATION)) instanceof InterfaceProxy);
+		assertTrue(newPerson(ImmutableSet.<Fixjure.Option>of()) instanceof InterfaceProxy);
+	}
+
+	@Test
+	public void addedValuesReachGeneratedAndReflectiveFixtures() {
+		final ObjectProxy<Person> proxy = newPerson(GENERATED);
+		Proxies.addValue(proxy, "getAge", 34);
+		assertEquals(34, proxy.get().getAge());
+
+		final ObjectProxy<Person> partial = Proxies.newProxy(Person.class, GENERATED);
+		Proxies.addValue(partial, "getName", "Steve");
+		final Person person = partial.get();
+		assertTrue(Proxy.isProxyClass(person.getClass()));
+		assertEquals("Steve", person.getName());
+	}
+}
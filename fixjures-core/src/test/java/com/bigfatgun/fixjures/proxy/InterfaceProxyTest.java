@@ -17,10 +17,20 @@
 package com.bigfatgun.fixjures.proxy;
 
 import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class InterfaceProxyTest {
 
 	private static class Foo {
@@ -64,4 +74,224 @@ public class InterfaceProxyTest {
 	public void proxiesHaveToStr() {
 		assertTrue(new InterfaceProxy<Foo3>(Foo3.class, ImmutableSet.<Fixjure.Option>of()).get().toString().startsWith("Proxy of " + Foo3.class));
 	}
+
+	private static interface Foo4 extends Foo3 {
+		int getNum();
+	}
+
+	@Test
+	public void stubsAddedAfterCreationAreDispatched() {
+		final InterfaceProxy<Foo4> proxy = new InterfaceProxy<Foo4>(Foo4.class, ImmutableSet.of(Fixjure.Option.NULL_ON_UNMAPPED));
+		proxy.addValueStub("getStr", Suppliers.ofInstance("one"));
+		final Foo4 foo = proxy.get();
+		assertEquals("one", foo.getStr());
+
+		proxy.addValueStub("getNum", Suppliers.ofInstance(2));
+		proxy.addValueStub("getStr", Suppliers.ofInstance("two"));
+		assertEquals(2, foo.getNum());
+		assertEquals("two", ((Foo3) foo).getStr());
+	}
+
+	@Test
+	public void unmappedMethodsReturnNullWhenEnabled() {
+		assertNull(new InterfaceProxy<Foo3>(Foo3.class, ImmutableSet.of(Fixjure.Option.NULL_ON_UNMAPPED)).get().getStr());
+	}
+
+	private static Foo4 newValueFoo(final String str, final Supplier<Integer> num) {
+		final InterfaceProxy<Foo4> proxy = new InterfaceProxy<Foo4>(Foo4.class, ImmutableSet.of(Fixjure.Option.VALUE_SEMANTICS));
+		proxy.addValueStub("getStr", Suppliers.ofInstance(str));
+		proxy.addValueStub("getNum", num);
+		return proxy.get();
+	}
+
+	@Test
+	public void valueSemanticProxiesCompareStubValues() {
+		final Foo4 foo1 = newValueFoo("one", Suppliers.ofInstance(1));
+		final Foo4 foo2 = newValueFoo("one", Suppliers.ofInstance(1));
+		assertEquals(foo1, foo2);
+		assertEquals(foo1.hashCode(), foo2.hashCode());
+		assertFalse(foo1.equals(newValueFoo("two", Suppliers.ofInstance(1))));
+		assertFalse(foo1.equals(newValueFoo(null, Suppliers.ofInstance(1))));
+		assertFalse(foo1.equals(new InterfaceProxy<Foo4>(Foo4.class, ImmutableSet.<Fixjure.Option>of()).get()));
+		assertFalse(foo1.equals(null));
+		assertEquals(ImmutableSet.of(foo1), ImmutableSet.of(foo2));
+	}
+
+	@Test
+	public void valueSemanticHashAndStringAreComputedOnce() {
+		final AtomicInteger reads = new AtomicInteger();
+		final Foo4 foo = newValueFoo("one", new Supplier<Integer>() {
+			public Integer get() {
+				return reads.incrementAndGet();
+			}
+		});
+		assertEquals(0, reads.get());
+
+		final int hash = foo.hashCode();
+		assertEquals(1, reads.get());
+		assertEquals(hash, foo.hashCode());
+		assertEquals(1, reads.get());
+		assertSame(foo.toString(), foo.toString());
+		assertEquals(2, reads.get());
+		assertEquals(hash, foo.hashCode());
+		assertEquals(2, reads.get());
+	}
+
+	private static interface Node {
+		String getName();
+
+		Node getParent();
+	}
+
+	private static InterfaceProxy<Node> newValueNode(final String name, final Supplier<Node> parent) {
+		final InterfaceProxy<Node> proxy = new InterfaceProxy<Node>(Node.class, ImmutableSet.of(Fixjure.Option.VALUE_SEMANTICS));
+		proxy.addValueStub("getName", Suppliers.ofInstance(name));
+		proxy.addValueStub("getParent", parent);
+		return proxy;
+	}
+
+	@Test
+	public void valueSemanticHashStopsAtNestedProxies() {
+		final AtomicReference<Node> rootRef = new AtomicReference<Node>();
+		final Supplier<Node> root = new Supplier<Node>() {
+			public Node get() {
+				return rootRef.get();
+			}
+		};
+		final Node child = newValueNode("child", root).get();
+		rootRef.set(newValueNode("root", Suppliers.ofInstance(child)).get());
+
+		final int hash = child.hashCode();
+		assertEquals(hash, child.hashCode());
+		assertEquals(rootRef.get().hashCode(), rootRef.get().hashCode());
+		assertEquals(child, child);
+		assertEquals(hash, newValueNode("child", Suppliers.ofInstance(newValueNode("other root", Suppliers.<Node>ofInstance(null)).get())).get().hashCode());
+	}
+
+	@Test
+	public void valueSemanticEqualsStopsAtNestedProxies() {
+		final AtomicReference<Node> firstRef = new AtomicReference<Node>();
+		final AtomicReference<Node> secondRef = new AtomicReference<Node>();
+		final Node first = newValueNode("node", new Supplier<Node>() {
+			public Node get() {
+				return firstRef.get();
+			}
+		}).get();
+		final Node second = newValueNode("node", new Supplier<Node>() {
+			public Node get() {
+				return secondRef.get();
+			}
+		}).get();
+		firstRef.set(first);
+		secondRef.set(second);
+
+		assertEquals(first.hashCode(), second.hashCode());
+		assertEquals(first, second);
+		assertEquals(second, first);
+		assertFalse(first.equals(newValueNode("other", Suppliers.ofInstance(first)).get()));
+		assertFalse(first.equals(newValueNode("node", Suppliers.<Node>ofInstance(null)).get()));
+	}
+
+	@Test
+	public void toStringPairsMethodsWithValues() {
+		final AtomicReference<Node> selfRef = new AtomicReference<Node>();
+		final Node node = newValueNode("node", new Supplier<Node>() {
+			public Node get() {
+				return selfRef.get();
+			}
+		}).get();
+		selfRef.set(node);
+
+		final String str = node.toString();
+		assertTrue(str, str.contains("getName=node"));
+		assertTrue(str, str.contains("getParent=Proxy of " + Node.class));
+		assertFalse(str, str.contains("hashCode"));
+		assertFalse(str, str.contains("toString"));
+
+		final InterfaceProxy<Measurements> proxy = new InterfaceProxy<Measurements>(Measurements.class, ImmutableSet.<Fixjure.Option>of());
+		proxy.addValue("getCount", 12);
+		proxy.addValueStub("getLabel", Suppliers.ofInstance("label"));
+		assertEquals("Proxy of " + Measurements.class + "; {getCount=12, getLabel=label}", proxy.get().toString());
+	}
+
+	private static interface Measurements {
+		int getCount();
+
+		double getRatio();
+
+		boolean isValid();
+
+		char getGrade();
+
+		String getLabel();
+	}
+
+	@Test
+	public void valuesArePackedByReturnType() {
+		final MethodIndex index = MethodIndex.of(Measurements.class);
+		assertEquals(Integer.TYPE, index.primitiveTypeOf(index.slotOf("getCount")));
+		assertNull(index.primitiveTypeOf(index.slotOf("getLabel")));
+		assertEquals(5, index.primitiveCount());
+		assertEquals(2, index.referenceCount());
+
+		final InterfaceProxy<Measurements> proxy = new InterfaceProxy<Measurements>(Measurements.class, ImmutableSet.<Fixjure.Option>of());
+		proxy.addValue("getCount", 12L);
+		proxy.addValue("getRatio", 0.25f);
+		proxy.addValue("isValid", true);
+		proxy.addValue("getGrade", 'A');
+		proxy.addValue("getLabel", "label");
+		final Measurements measurements = proxy.get();
+		assertEquals(12, measurements.getCount());
+		assertEquals(0.25, measurements.getRatio(), 0.0);
+		assertTrue(measurements.isValid());
+		assertEquals('A', measurements.getGrade());
+		assertEquals("label", measurements.getLabel());
+		assertTrue(measurements.toString().contains("label"));
+	}
+
+	@Test
+	public void hashFollowsSlotOrderWhetherStubbedOrPacked() {
+		final Map<String, Object> values = ImmutableMap.<String, Object>of("getCount", 12, "getRatio", 0.25, "isValid", true, "getGrade", 'A', "getLabel", "label");
+		final InterfaceProxy<Measurements> stubbed = new InterfaceProxy<Measurements>(Measurements.class, ImmutableSet.<Fixjure.Option>of());
+		final InterfaceProxy<Measurements> packed = new InterfaceProxy<Measurements>(Measurements.class, ImmutableSet.<Fixjure.Option>of());
+		for (final Map.Entry<String, Object> value : values.entrySet()) {
+			stubbed.addValueStub(value.getKey(), Suppliers.ofInstance(value.getValue()));
+			packed.addValue(value.getKey(), value.getValue());
+		}
+
+		final MethodIndex index = MethodIndex.of(Measurements.class);
+		final List<Object> expected = Lists.newArrayList();
+		for (int slot = 0; slot < index.size(); slot++) {
+			if (values.containsKey(index.nameOf(slot))) {
+				expected.add(values.get(index.nameOf(slot)));
+			}
+		}
+		assertEquals(expected.hashCode(), stubbed.get().hashCode());
+		assertEquals(expected.hashCode(), packed.get().hashCode());
+	}
+
+	@Test
+	public void stubsReplacePackedValues() {
+		final InterfaceProxy<Measurements> proxy = new InterfaceProxy<Measurements>(Measurements.class, ImmutableSet.<Fixjure.Option>of());
+		proxy.addValue("getCount", 1);
+		final Measurements measurements = proxy.get();
+		proxy.addValueStub("getCount", Suppliers.ofInstance(2));
+		assertEquals(2, measurements.getCount());
+		proxy.addValue("getCount", 3);
+		assertEquals(3, measurements.getCount());
+	}
+
+	@Test
+	public void packedValuesTakePartInValueSemantics() {
+		final InterfaceProxy<Foo4> proxy1 = new InterfaceProxy<Foo4>(Foo4.class, ImmutableSet.of(Fixjure.Option.VALUE_SEMANTICS));
+		proxy1.addValue("getStr", "one");
+		proxy1.addValue("getNum", 1);
+		assertEquals(newValueFoo("one", Suppliers.ofInstance(1)), proxy1.get());
+		assertEquals(newValueFoo("one", Suppliers.ofInstance(1)).hashCode(), proxy1.get().hashCode());
+	}
+
+	@Test(expected = FixtureException.class)
+	public void packedValuesMustFitTheirType() {
+		new InterfaceProxy<Measurements>(Measurements.class, ImmutableSet.<Fixjure.Option>of()).addValue("getCount", "twelve");
+	}
 }
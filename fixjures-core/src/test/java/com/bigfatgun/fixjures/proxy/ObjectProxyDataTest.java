@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class ObjectProxyDataTest {
+
+	@Test
+	public void copiesAreIndependentOfTheParsedMap() {
+		final Map<String, Object> parsed = Maps.newHashMap();
+		parsed.put("name", "copy");
+		final ObjectProxyData data = ObjectProxyData.copyOf(parsed);
+		parsed.put("name", "changed");
+		assertEquals("copy", data.get().get("name"));
+	}
+
+	@Test
+	public void viewsShareTheParsedMap() {
+		final Map<String, Object> parsed = Maps.newHashMap();
+		parsed.put("name", "view");
+		final ObjectProxyData data = ObjectProxyData.view(parsed);
+		parsed.put("name", "changed");
+		assertEquals("changed", data.asMap().get("name"));
+	}
+
+	@Test
+	public void getReturnsImmutableMapsInBothModes() {
+		final Map<String, Object> parsed = Maps.newHashMap();
+		parsed.put("name", "view");
+		final ImmutableMap<?, ?> copy = ObjectProxyData.copyOf(parsed).get();
+		final ObjectProxyData view = ObjectProxyData.view(parsed);
+		final ImmutableMap<?, ?> snapshot = view.get();
+		parsed.put("name", "changed");
+		assertEquals("view", copy.get("name"));
+		assertEquals("view", snapshot.get("name"));
+		assertEquals("changed", view.get().get("name"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void viewsAreReadOnly() {
+		final Map<String, Object> parsed = Maps.newHashMap();
+		@SuppressWarnings({"unchecked"})
+		final Map<String, Object> view = (Map<String, Object>) ObjectProxyData.view(parsed).asMap();
+		view.put("name", "view");
+	}
+}
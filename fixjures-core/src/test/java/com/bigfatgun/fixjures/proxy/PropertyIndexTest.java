@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.proxy;
+
+import com.bigfatgun.fixjures.TypeWrapper;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.List;
+
+public class PropertyIndexTest {
+
+	public static class Thing {
+		public String getFirstName() {
+			return null;
+		}
+
+		public void setFirstName(final String firstName) {
+		}
+
+		public boolean isActive() {
+			return false;
+		}
+
+		public boolean getVisible() {
+			return false;
+		}
+
+		public boolean isVisible() {
+			return true;
+		}
+
+		public List<String> getTags() {
+			return null;
+		}
+
+		public String describe() {
+			return null;
+		}
+
+		public void getNothing() {
+		}
+	}
+
+	@Test
+	public void indexIsSharedPerClass() {
+		assertSame(PropertyIndex.of(Thing.class), PropertyIndex.of(Thing.class));
+	}
+
+	@Test
+	public void propertiesAreFoundByEitherCapitalization() {
+		final PropertyIndex index = PropertyIndex.of(Thing.class);
+		final PropertyIndex.Property firstName = index.forProperty("firstName");
+		assertNotNull(firstName);
+		assertSame(firstName, index.forProperty("FirstName"));
+		assertSame(firstName, index.forMethod("getFirstName"));
+		assertEquals("firstName", firstName.getName());
+		assertEquals("setFirstName", firstName.getSetter().getName());
+		assertFalse(firstName.isBoolean());
+
+		assertEquals("isActive", index.forProperty("active").getGetter().getName());
+		assertTrue(index.forProperty("active").isBoolean());
+		assertNull(index.forProperty("active").getSetter());
+		assertEquals("getVisible", index.forProperty("visible").getGetter().getName());
+		assertEquals(TypeWrapper.wrap(List.class).of(String.class), index.forProperty("tags").getType());
+	}
+
+	@Test
+	public void unknownNamesAreNotFound() {
+		final PropertyIndex index = PropertyIndex.of(Thing.class);
+		assertNull(index.forProperty("bogus"));
+		assertNull(index.forProperty("describe"));
+		assertNull(index.forProperty("nothing"));
+		assertNull(index.forProperty(""));
+		assertNotNull(index.forMethod("describe"));
+		assertNull(index.forMethod("getNothing"));
+	}
+
+	public static interface Animal {
+		Object getOffspring();
+	}
+
+	public static interface Cat extends Animal {
+		Cat getOffspring();
+	}
+
+	public static abstract class Kitten implements Cat {
+		public Kitten getOffspring() {
+			return null;
+		}
+	}
+
+	@Test
+	public void covariantOverridesWin() {
+		assertEquals(Cat.class, PropertyIndex.of(Cat.class).forProperty("offspring").getType().getType());
+		assertEquals(Kitten.class, PropertyIndex.of(Kitten.class).forProperty("offspring").getType().getType());
+		assertEquals(Kitten.class, PropertyIndex.of(Kitten.class).forMethod("getOffspring").getGetter().getReturnType());
+	}
+}
@@ -16,8 +16,10 @@
 
 package com.bigfatgun.fixjures.dao;
 
+import com.bigfatgun.fixjures.FixtureException;
 import com.bigfatgun.fixjures.IdentifierProvider;
 import com.bigfatgun.fixjures.Strategies;
+import com.bigfatgun.fixjures.json.JSONSource;
 import com.bigfatgun.fixjures.json.JsonSourceFactory;
 import com.bigfatgun.fixjures.yaml.YamlSource;
 import com.google.common.base.Function;
@@ -233,4 +235,14 @@ public class DAOHelperTest {
         assertNotNull(mbo6);
         assertEquals(106, mbo6.getAccountBalance().longValue());
     }
+
+    @Test(expected = FixtureException.class)
+    public void badElementsFailSingleSourceDAOs() {
+        DAOHelper.forClassFromSingleSource(MyBusinessObject.class, JSONSource.newJsonString("[ { \"id\" : \"1\" }, { \"id\" : }, { \"id\" : \"3\" } ]"), new Function<MyBusinessObject, String>() {
+            @Override
+            public String apply(MyBusinessObject myBusinessObject) {
+                return myBusinessObject.getId();
+            }
+        });
+    }
 }
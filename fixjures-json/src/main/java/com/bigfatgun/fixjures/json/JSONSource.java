@@ -15,43 +15,78 @@
  */
 package com.bigfatgun.fixjures.json;
 
+import com.bigfatgun.fixjures.FileSources;
 import com.bigfatgun.fixjures.FixtureException;
 import static com.bigfatgun.fixjures.FixtureException.convert;
 import com.bigfatgun.fixjures.FixtureSource;
+import com.bigfatgun.fixjures.FixtureStream;
 import com.bigfatgun.fixjures.FixtureType;
+import com.bigfatgun.fixjures.handlers.TokenUnmarshaller;
 import com.google.common.base.Charsets;
-import com.google.common.base.Supplier;
-import com.google.common.io.CharStreams;
-import org.json.simple.JSONValue;
-import org.json.simple.parser.ParseException;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.RandomAccessFile;
 import java.net.URL;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 
-/** Mocks objects based on JSON fixture data. */
-public final class JSONSource extends FixtureSource {
+/**
+ * Mocks objects based on JSON fixture data.
+ * <p/>
+ * As a {@link FixtureStream}, the source creates one fixture per element of a top-level array, parsing each element
+ * only when it is requested, so arrays of any size can be iterated with {@link
+ * com.bigfatgun.fixjures.Fixjure.StreamedFixtureBuilder#createAll()}. A document that is not an array yields a single
+ * fixture.
+ */
+public final class JSONSource extends FixtureSource implements FixtureStream {
 
 	public static FixtureSource newJsonStream(final ReadableByteChannel channel) {
-		return new JSONSource(channel);
+		return streamJson(channel);
 	}
 
 	public static FixtureSource newJsonFile(final File jsonFile) throws FileNotFoundException {
-		return new JSONSource(new RandomAccessFile(jsonFile, "r").getChannel());
+		return streamJsonFile(jsonFile);
 	}
 
 	public static FixtureSource newJsonResource(final String resourceName) throws FileNotFoundException {
-		return newJsonResource(FixtureSource.class.getClassLoader(), resourceName);
+		return streamJsonResource(resourceName);
 	}
 
 	public static FixtureSource newJsonResource(final ClassLoader clsLoader, final String resourceName) {
+		return streamJsonResource(clsLoader, resourceName);
+	}
+
+	public static FixtureSource newJsonString(final String json) {
+		return streamJsonString(json);
+	}
+
+	public static FixtureSource newRemoteUrl(final URL url) {
+		return streamRemoteUrl(url);
+	}
+
+	/**
+	 * Like {@link #newJsonStream(ReadableByteChannel)}, typed so the source can be passed to {@link
+	 * com.bigfatgun.fixjures.Fixjure.FixtureBuilder#fromStream(FixtureStream)}.
+	 *
+	 * @param channel json channel
+	 * @return new json source
+	 */
+	public static JSONSource streamJson(final ReadableByteChannel channel) {
+		return new JSONSource(channel);
+	}
+
+	public static JSONSource streamJsonFile(final File jsonFile) throws FileNotFoundException {
+		return new JSONSource(FileSources.open(jsonFile));
+	}
+
+	public static JSONSource streamJsonResource(final String resourceName) throws FileNotFoundException {
+		return streamJsonResource(FixtureSource.class.getClassLoader(), resourceName);
+	}
+
+	public static JSONSource streamJsonResource(final ClassLoader clsLoader, final String resourceName) {
 		final InputStream input = clsLoader.getResourceAsStream(resourceName);
 		if (input == null) {
 			throw new FixtureException("Unable to locate resource: " + resourceName);
@@ -60,11 +95,11 @@ public final class JSONSource extends FixtureSource {
 		}
 	}
 
-	public static FixtureSource newJsonString(final String json) {
-        return new JSONSource(new ByteArrayInputStream(json.getBytes(Charsets.UTF_8)));
-    }
+	public static JSONSource streamJsonString(final String json) {
+		return new JSONSource(new ByteArrayInputStream(json.getBytes(Charsets.UTF_8)));
+	}
 
-	public static FixtureSource newRemoteUrl(final URL url) {
+	public static JSONSource streamRemoteUrl(final URL url) {
 		try {
 			return new JSONSource(url.openStream());
 		} catch (IOException e) {
@@ -72,6 +107,10 @@ public final class JSONSource extends FixtureSource {
 		}
 	}
 
+	private boolean streaming = false;
+	private JsonReader streamReader = null;
+	private boolean streamingArray = false;
+
 	private JSONSource(final InputStream input) {
 		this(Channels.newChannel(input));
 	}
@@ -82,26 +121,50 @@ public final class JSONSource extends FixtureSource {
 
 	public Object createFixture(final FixtureType type) {
 		try {
-			final String sourceJson = loadSource();
-			Object jsonValue = parseJson(sourceJson);
-			final Supplier<?> provider = findValue(type, jsonValue);
-			final Object value = provider.get();
-			return type.getType().cast(value);
+			final TokenUnmarshaller unmarshaller = newTokenUnmarshaller(type);
+			if (streaming) {
+				nextStreamValue(unmarshaller);
+			} else {
+				JsonReader.newReader(getSource(), getCharset()).readDocument(unmarshaller);
+			}
+			return type.getType().cast(unmarshaller.getValue());
 		} catch (Exception e) {
 			throw convert(e);
 		}
 	}
 
-	private Object parseJson(final String json) {
-		assert json != null : "JSON data cannot be null.";
-		try {
-			return JSONValue.parseWithException(json);
-		} catch (ParseException e) {
-			return FixtureException.convertAndThrowAs(e);
-		}
+	/**
+	 * Returns true; any tree handed to an unmarshaller is parsed for one fixture alone.
+	 * <p/>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSourceDataImmutable() {
+		return true;
+	}
+
+	/**
+	 * Switches this source to creating one fixture per element of the top-level array.
+	 *
+	 * @return this source
+	 */
+	public FixtureSource asSourceStream() {
+		streaming = true;
+		return this;
 	}
 
-	private String loadSource() throws IOException {
-        return CharStreams.toString(new InputStreamReader(Channels.newInputStream(getSource()), getCharset()));
-    }
+	private void nextStreamValue(final TokenUnmarshaller unmarshaller) throws IOException {
+		if (streamReader == null) {
+			streamReader = JsonReader.newReader(getSource(), getCharset());
+			if (streamReader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+				streamReader.beginArray();
+				streamingArray = true;
+			}
+		}
+
+		if (streamingArray ? !streamReader.hasNext() : streamReader.peek() == JsonReader.Token.END_DOCUMENT) {
+			throw new FixtureException("No more fixtures in JSON stream.");
+		}
+		streamReader.readValue(unmarshaller);
+	}
 }
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.json;
+
+import com.bigfatgun.fixjures.FileSources;
+import com.bigfatgun.fixjures.FixtureException;
+import static com.bigfatgun.fixjures.FixtureException.convert;
+import com.bigfatgun.fixjures.FixtureSource;
+import com.bigfatgun.fixjures.FixtureStream;
+import com.bigfatgun.fixjures.FixtureType;
+import com.bigfatgun.fixjures.handlers.TokenUnmarshaller;
+import com.google.common.base.Charsets;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Mocks objects based on newline-delimited JSON, one fixture per line. Blank lines are ignored.
+ * <p/>
+ * As a {@link FixtureStream}, lines are read and decoded only as fixtures are requested. By default each line is
+ * decoded on the calling thread; after {@link #decodeWith(ExecutorService, int, boolean)} the source reads ahead in
+ * chunks of whole lines and decodes the chunks on the executor, keeping a bounded number of them in flight. Either
+ * way, a line that cannot be decoded fails only the request for its own fixture, so the fixtures before it are
+ * returned first and the next request moves on to the following line.
+ *
+ * @author Steve Reed
+ */
+public final class JsonLinesSource extends FixtureSource implements FixtureStream {
+
+	/** Number of chunks read ahead of the fixtures returned so far. */
+	private static final int MAX_PENDING_CHUNKS = 2 * Runtime.getRuntime().availableProcessors();
+
+	public static JsonLinesSource newJsonLinesStream(final ReadableByteChannel channel) {
+		return new JsonLinesSource(channel);
+	}
+
+	public static JsonLinesSource newJsonLinesFile(final File file) throws FileNotFoundException {
+		return new JsonLinesSource(FileSources.open(file));
+	}
+
+	public static JsonLinesSource newJsonLinesResource(final ClassLoader clsLoader, final String resourceName) {
+		final InputStream input = clsLoader.getResourceAsStream(resourceName);
+		if (input == null) {
+			throw new FixtureException("Unable to locate resource: " + resourceName);
+		}
+		return new JsonLinesSource(Channels.newChannel(input));
+	}
+
+	public static JsonLinesSource newJsonLinesString(final String json) {
+		return new JsonLinesSource(Channels.newChannel(new ByteArrayInputStream(json.getBytes(Charsets.UTF_8))));
+	}
+
+	/** A line that could not be decoded, kept in its chunk so the error is raised where the line's fixture would be. */
+	private static final class Failure {
+
+		private final RuntimeException error;
+
+		private Failure(final RuntimeException error) {
+			this.error = error;
+		}
+	}
+
+	/** Consecutive lines, decoded together. A line that fails is recorded as a {@link Failure} and decoding goes on. */
+	private final class Chunk implements Callable<List<Object>> {
+
+		private final long firstLine;
+		private final List<String> lines;
+		private final FixtureType type;
+
+		private Chunk(final long firstLine, final List<String> lines, final FixtureType type) {
+			this.firstLine = firstLine;
+			this.lines = lines;
+			this.type = type;
+		}
+
+		public List<Object> call() {
+			final List<Object> values = Lists.newArrayListWithCapacity(lines.size());
+			long lineNumber = firstLine;
+			for (final String line : lines) {
+				if (!isBlank(line)) {
+					try {
+						values.add(decode(line, lineNumber, type));
+					} catch (RuntimeException e) {
+						values.add(new Failure(e));
+					}
+				}
+				lineNumber++;
+			}
+			return values;
+		}
+	}
+
+	private BufferedReader reader = null;
+	private long lineNumber = 0;
+	private boolean exhausted = false;
+
+	private ExecutorService executor = null;
+	private CompletionService<List<Object>> completionService = null;
+	private int linesPerChunk = 0;
+	private boolean ordered = true;
+	private final LinkedList<Future<List<Object>>> pending = Lists.newLinkedList();
+	private Iterator<Object> decoded = Iterators.emptyIterator();
+
+	private JsonLinesSource(final ReadableByteChannel source) {
+		super(source);
+	}
+
+	/**
+	 * Decodes lines in chunks on the given executor. The executor belongs to the caller and is not shut down by this
+	 * source.
+	 *
+	 * @param executor executor to decode chunks on, not null
+	 * @param linesPerChunk number of lines in each chunk
+	 * @param ordered true to return fixtures in line order, false to return each chunk's fixtures as soon as the chunk
+	 * is decoded
+	 * @return this source
+	 */
+	public JsonLinesSource decodeWith(final ExecutorService executor, final int linesPerChunk, final boolean ordered) {
+		checkArgument(linesPerChunk > 0, "Chunks must have at least one line.");
+		this.executor = checkNotNull(executor);
+		this.completionService = new ExecutorCompletionService<List<Object>>(executor);
+		this.linesPerChunk = linesPerChunk;
+		this.ordered = ordered;
+		return this;
+	}
+
+	@Override
+	protected Object createFixture(final FixtureType type) {
+		try {
+			if (executor == null) {
+				String line;
+				do {
+					line = nextLine();
+				} while (line != null && isBlank(line));
+
+				if (line == null) {
+					throw new FixtureException("No more fixtures in JSON Lines source.");
+				}
+				return decode(line, lineNumber, type);
+			}
+
+			while (!decoded.hasNext()) {
+				submitChunks(type);
+				if (pending.isEmpty()) {
+					throw new FixtureException("No more fixtures in JSON Lines source.");
+				}
+				decoded = nextChunk().iterator();
+			}
+			final Object value = decoded.next();
+			if (value instanceof Failure) {
+				throw ((Failure) value).error;
+			}
+			return value;
+		} catch (ExecutionException e) {
+			throw convert(e.getCause());
+		} catch (Exception e) {
+			throw convert(e);
+		}
+	}
+
+	/**
+	 * Returns true; each line is parsed for one fixture alone.
+	 * <p/>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSourceDataImmutable() {
+		return true;
+	}
+
+	public FixtureSource asSourceStream() {
+		return this;
+	}
+
+	/**
+	 * Cancels any chunks still being decoded and closes the source.
+	 *
+	 * @throws IOException if the source cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		for (final Future<List<Object>> future : pending) {
+			future.cancel(true);
+		}
+		pending.clear();
+		super.close();
+	}
+
+	private void submitChunks(final FixtureType type) throws IOException {
+		while (!exhausted && pending.size() < MAX_PENDING_CHUNKS) {
+			final long firstLine = lineNumber + 1;
+			final List<String> lines = Lists.newArrayListWithCapacity(linesPerChunk);
+			String line;
+			while (lines.size() < linesPerChunk && (line = nextLine()) != null) {
+				lines.add(line);
+			}
+			if (lines.isEmpty()) {
+				return;
+			}
+
+			final Chunk chunk = new Chunk(firstLine, lines, type);
+			pending.add(ordered ? executor.submit(chunk) : completionService.submit(chunk));
+		}
+	}
+
+	private List<Object> nextChunk() throws InterruptedException, ExecutionException {
+		if (ordered) {
+			return pending.removeFirst().get();
+		}
+
+		final Future<List<Object>> done = completionService.take();
+		pending.remove(done);
+		return done.get();
+	}
+
+	private String nextLine() throws IOException {
+		if (reader == null) {
+			reader = new BufferedReader(FileSources.newReader(getSource(), FileSources.newDecoder(getCharset()), -1));
+		}
+
+		final String line = reader.readLine();
+		if (line == null) {
+			exhausted = true;
+		} else {
+			lineNumber++;
+		}
+		return line;
+	}
+
+	private Object decode(final String line, final long number, final FixtureType type) {
+		try {
+			final TokenUnmarshaller unmarshaller = newTokenUnmarshaller(type);
+			new JsonReader(new StringReader(line)).readDocument(unmarshaller);
+			return type.getType().cast(unmarshaller.getValue());
+		} catch (FixtureException e) {
+			throw new FixtureException(String.format("Line %d: %s", number, e.getMessage()));
+		} catch (Exception e) {
+			throw convert(String.format("Could not decode line %d.", number), e);
+		}
+	}
+
+	private static boolean isBlank(final String line) {
+		return line.trim().length() == 0;
+	}
+}
@@ -0,0 +1,663 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.json;
+
+import com.bigfatgun.fixjures.FileSources;
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.handlers.TokenSink;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pull parser that reads JSON from a character stream in fixed size chunks. Callers either step through the
+ * document one {@link Token} at a time, or let {@link #readValue()} build each value directly into maps, lists,
+ * strings, numbers and booleans. Only the current chunk and the values being built are held in memory, never the whole
+ * document.
+ * <p/>
+ * Integers are read as {@code Long}, or {@code BigInteger} if they do not fit in a long, and numbers with a fraction or
+ * exponent as {@code Double}. Objects are read as insertion-ordered maps.
+ *
+ * @author Steve Reed
+ */
+public final class JsonReader implements Closeable {
+
+	/** The kinds of token a JSON document is made of. */
+	public static enum Token {
+		BEGIN_OBJECT,
+		END_OBJECT,
+		BEGIN_ARRAY,
+		END_ARRAY,
+		NAME,
+		STRING,
+		NUMBER,
+		BOOLEAN,
+		NULL,
+		END_DOCUMENT
+	}
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_ARRAY = 2;
+	private static final int NONEMPTY_ARRAY = 3;
+	private static final int EMPTY_OBJECT = 4;
+	private static final int DANGLING_NAME = 5;
+	private static final int NONEMPTY_OBJECT = 6;
+
+	/**
+	 * Creates a reader that decodes the channel incrementally. Malformed input is replaced rather than rejected, the
+	 * same as decoding the channel into a string would.
+	 *
+	 * @param channel source channel
+	 * @param charset source charset
+	 * @return new reader
+	 */
+	public static JsonReader newReader(final ReadableByteChannel channel, final Charset charset) {
+		final CharsetDecoder decoder = FileSources.newDecoder(charset);
+		return new JsonReader(FileSources.newReader(checkNotNull(channel), decoder, BUFFER_SIZE));
+	}
+
+	private final Reader in;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int pos = 0;
+	private int limit = 0;
+	/** Number of characters discarded from the front of the buffer, for error messages. */
+	private long offset = 0;
+
+	private int[] stack = new int[32];
+	private int stackSize = 0;
+
+	/** The next token if it has been peeked but not consumed. */
+	private Token peeked = null;
+	/** Text of the peeked name, string, number or boolean. */
+	private String peekedText = null;
+
+	public JsonReader(final Reader in) {
+		this.in = checkNotNull(in);
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * Returns the next token without consuming it.
+	 *
+	 * @return next token
+	 * @throws IOException if the source cannot be read
+	 * @throws FixtureException if the source is not valid JSON
+	 */
+	public Token peek() throws IOException {
+		if (peeked != null) {
+			return peeked;
+		}
+
+		final int scope = stack[stackSize - 1];
+		int c;
+		switch (scope) {
+			case EMPTY_ARRAY:
+				stack[stackSize - 1] = NONEMPTY_ARRAY;
+				if (nextNonWhitespace(true) == ']') {
+					return peeked = Token.END_ARRAY;
+				}
+				pos--;
+				break;
+			case NONEMPTY_ARRAY:
+				c = nextNonWhitespace(true);
+				if (c == ']') {
+					return peeked = Token.END_ARRAY;
+				} else if (c != ',') {
+					throw syntaxError("Expected ',' or ']'");
+				}
+				break;
+			case EMPTY_OBJECT:
+			case NONEMPTY_OBJECT:
+				stack[stackSize - 1] = DANGLING_NAME;
+				c = nextNonWhitespace(true);
+				if (c == '}') {
+					return peeked = Token.END_OBJECT;
+				} else if (scope == NONEMPTY_OBJECT) {
+					if (c != ',') {
+						throw syntaxError("Expected ',' or '}'");
+					}
+					c = nextNonWhitespace(true);
+				}
+				if (c != '"') {
+					throw syntaxError("Expected name");
+				}
+				peekedText = readString();
+				return peeked = Token.NAME;
+			case DANGLING_NAME:
+				stack[stackSize - 1] = NONEMPTY_OBJECT;
+				if (nextNonWhitespace(true) != ':') {
+					throw syntaxError("Expected ':'");
+				}
+				break;
+			case EMPTY_DOCUMENT:
+				stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+				break;
+			default:
+				if (nextNonWhitespace(false) == -1) {
+					return peeked = Token.END_DOCUMENT;
+				}
+				throw syntaxError("Expected end of document");
+		}
+
+		c = nextNonWhitespace(true);
+		switch (c) {
+			case '{':
+				return peeked = Token.BEGIN_OBJECT;
+			case '[':
+				return peeked = Token.BEGIN_ARRAY;
+			case '"':
+				peekedText = readString();
+				return peeked = Token.STRING;
+			default:
+				pos--;
+				peekedText = readLiteral();
+				if (peekedText.equals("true") || peekedText.equals("false")) {
+					return peeked = Token.BOOLEAN;
+				} else if (peekedText.equals("null")) {
+					return peeked = Token.NULL;
+				} else if (isNumberStart(peekedText)) {
+					final int error = numberError(peekedText);
+					if (error < 0) {
+						return peeked = Token.NUMBER;
+					}
+					throw syntaxError("Malformed number " + peekedText, offset + pos - peekedText.length() + error + 1);
+				}
+				throw syntaxError(peekedText.length() == 0 ? "Expected value" : "Unexpected value " + peekedText);
+		}
+	}
+
+	/**
+	 * @return true if the current array or object has another element
+	 * @throws IOException if the source cannot be read
+	 */
+	public boolean hasNext() throws IOException {
+		final Token token = peek();
+		return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+	}
+
+	public void beginObject() throws IOException {
+		consume(Token.BEGIN_OBJECT);
+		push(EMPTY_OBJECT);
+	}
+
+	public void endObject() throws IOException {
+		consume(Token.END_OBJECT);
+		stackSize--;
+	}
+
+	public void beginArray() throws IOException {
+		consume(Token.BEGIN_ARRAY);
+		push(EMPTY_ARRAY);
+	}
+
+	public void endArray() throws IOException {
+		consume(Token.END_ARRAY);
+		stackSize--;
+	}
+
+	public String nextName() throws IOException {
+		consume(Token.NAME);
+		return peekedText;
+	}
+
+	public String nextString() throws IOException {
+		consume(Token.STRING);
+		return peekedText;
+	}
+
+	public boolean nextBoolean() throws IOException {
+		consume(Token.BOOLEAN);
+		return peekedText.equals("true");
+	}
+
+	public void nextNull() throws IOException {
+		consume(Token.NULL);
+	}
+
+	/**
+	 * Consumes the next number.
+	 *
+	 * @return a {@code Long}, {@code BigInteger} or {@code Double}
+	 * @throws IOException if the source cannot be read
+	 */
+	public Number nextNumber() throws IOException {
+		consume(Token.NUMBER);
+		final String text = peekedText;
+		try {
+			if (text.indexOf('.') != -1 || text.indexOf('e') != -1 || text.indexOf('E') != -1) {
+				return Double.valueOf(text);
+			} else if (text.length() < 19) {
+				return Long.valueOf(text);
+			}
+			final BigInteger value = new BigInteger(text);
+			return (value.bitLength() < 64) ? Long.valueOf(value.longValue()) : value;
+		} catch (NumberFormatException e) {
+			throw syntaxError("Malformed number " + text);
+		}
+	}
+
+	/**
+	 * Consumes the next value, including everything nested in it.
+	 *
+	 * @throws IOException if the source cannot be read
+	 */
+	public void skipValue() throws IOException {
+		int depth = 0;
+		do {
+			switch (peek()) {
+				case BEGIN_OBJECT:
+					beginObject();
+					depth++;
+					break;
+				case BEGIN_ARRAY:
+					beginArray();
+					depth++;
+					break;
+				case END_OBJECT:
+					endObject();
+					depth--;
+					break;
+				case END_ARRAY:
+					endArray();
+					depth--;
+					break;
+				case END_DOCUMENT:
+					throw syntaxError("Expected value");
+				default:
+					peeked = null;
+			}
+		} while (depth > 0);
+	}
+
+	/**
+	 * Consumes the next value and returns it as plain Java objects.
+	 *
+	 * @return value, null for JSON null
+	 * @throws IOException if the source cannot be read
+	 * @throws FixtureException if the source is not valid JSON
+	 */
+	public Object readValue() throws IOException {
+		switch (peek()) {
+			case BEGIN_OBJECT:
+				final Map<String, Object> map = Maps.newLinkedHashMap();
+				beginObject();
+				while (hasNext()) {
+					final String name = nextName();
+					map.put(name, readValue());
+				}
+				endObject();
+				return map;
+			case BEGIN_ARRAY:
+				final List<Object> list = Lists.newArrayList();
+				beginArray();
+				while (hasNext()) {
+					list.add(readValue());
+				}
+				endArray();
+				return list;
+			case STRING:
+				return nextString();
+			case NUMBER:
+				return nextNumber();
+			case BOOLEAN:
+				return nextBoolean();
+			case NULL:
+				nextNull();
+				return null;
+			default:
+				throw syntaxError("Expected value");
+		}
+	}
+
+	/**
+	 * Reads a document holding exactly one value.
+	 *
+	 * @return value, null for JSON null
+	 * @throws IOException if the source cannot be read
+	 * @throws FixtureException if the source is not valid JSON or has data after the value
+	 */
+	public Object readDocument() throws IOException {
+		final Object value = readValue();
+		consume(Token.END_DOCUMENT);
+		return value;
+	}
+
+	/**
+	 * Consumes the next value, pushing its tokens into a sink instead of building it.
+	 *
+	 * @param sink token sink
+	 * @throws IOException if the source cannot be read
+	 * @throws FixtureException if the source is not valid JSON
+	 */
+	public void readValue(final TokenSink sink) throws IOException {
+		int depth = 0;
+		do {
+			switch (peek()) {
+				case BEGIN_OBJECT:
+					beginObject();
+					sink.beginObject();
+					depth++;
+					break;
+				case BEGIN_ARRAY:
+					beginArray();
+					sink.beginArray();
+					depth++;
+					break;
+				case END_OBJECT:
+					if (depth == 0) {
+						throw syntaxError("Expected value");
+					}
+					endObject();
+					sink.endObject();
+					depth--;
+					break;
+				case END_ARRAY:
+					if (depth == 0) {
+						throw syntaxError("Expected value");
+					}
+					endArray();
+					sink.endArray();
+					depth--;
+					break;
+				case NAME:
+					sink.name(nextName());
+					break;
+				case STRING:
+					sink.value(nextString());
+					break;
+				case NUMBER:
+					sink.value(nextNumber());
+					break;
+				case BOOLEAN:
+					sink.value(nextBoolean());
+					break;
+				case NULL:
+					nextNull();
+					sink.value(null);
+					break;
+				default:
+					throw syntaxError("Expected value");
+			}
+		} while (depth > 0);
+	}
+
+	/**
+	 * Reads a document holding exactly one value, pushing its tokens into a sink.
+	 *
+	 * @param sink token sink
+	 * @throws IOException if the source cannot be read
+	 * @throws FixtureException if the source is not valid JSON or has data after the value
+	 */
+	public void readDocument(final TokenSink sink) throws IOException {
+		readValue(sink);
+		consume(Token.END_DOCUMENT);
+	}
+
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private void consume(final Token expected) throws IOException {
+		final Token token = peek();
+		if (token != expected) {
+			throw syntaxError(String.format("Expected %s but was %s", expected, token));
+		}
+		peeked = null;
+	}
+
+	private void push(final int scope) {
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stackSize * 2);
+		}
+		stack[stackSize++] = scope;
+	}
+
+	/**
+	 * Moves unread characters to the front of the buffer and reads until at least {@code minimum} are available.
+	 *
+	 * @param minimum number of characters needed
+	 * @return false if the source ended first
+	 * @throws IOException if the source cannot be read
+	 */
+	private boolean fill(final int minimum) throws IOException {
+		offset += pos;
+		limit -= pos;
+		if (limit > 0) {
+			System.arraycopy(buffer, pos, buffer, 0, limit);
+		}
+		pos = 0;
+
+		int read;
+		while ((read = in.read(buffer, limit, buffer.length - limit)) != -1) {
+			limit += read;
+			if (limit >= minimum) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int nextNonWhitespace(final boolean required) throws IOException {
+		while (pos < limit || fill(1)) {
+			final char c = buffer[pos++];
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+				return c;
+			}
+		}
+		if (required) {
+			throw syntaxError("Unexpected end of input");
+		}
+		return -1;
+	}
+
+	/** Reads the rest of a string whose opening quote has been consumed. */
+	private String readString() throws IOException {
+		StringBuilder builder = null;
+		while (true) {
+			int p = pos;
+			int start = p;
+			while (p < limit) {
+				final char c = buffer[p++];
+				if (c == '"') {
+					pos = p;
+					if (builder == null) {
+						return new String(buffer, start, p - start - 1);
+					}
+					return builder.append(buffer, start, p - start - 1).toString();
+				} else if (c == '\\') {
+					if (builder == null) {
+						builder = new StringBuilder();
+					}
+					builder.append(buffer, start, p - start - 1);
+					pos = p;
+					builder.append(readEscape());
+					p = pos;
+					start = p;
+				}
+			}
+			if (builder == null) {
+				builder = new StringBuilder();
+			}
+			builder.append(buffer, start, p - start);
+			pos = p;
+			if (!fill(1)) {
+				throw syntaxError("Unterminated string");
+			}
+		}
+	}
+
+	private char readEscape() throws IOException {
+		if (pos == limit && !fill(1)) {
+			throw syntaxError("Unterminated escape sequence");
+		}
+		final char c = buffer[pos++];
+		switch (c) {
+			case 'u':
+				if (limit - pos < 4 && !fill(4)) {
+					throw syntaxError("Unterminated escape sequence");
+				}
+				int value = 0;
+				for (int i = 0; i < 4; i++) {
+					final int digit = Character.digit(buffer[pos++], 16);
+					if (digit == -1) {
+						throw syntaxError("Malformed unicode escape");
+					}
+					value = (value << 4) | digit;
+				}
+				return (char) value;
+			case 'b':
+				return '\b';
+			case 'f':
+				return '\f';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 't':
+				return '\t';
+			case '"':
+			case '\\':
+			case '/':
+				return c;
+			default:
+				throw syntaxError("Invalid escape sequence \\" + c);
+		}
+	}
+
+	/** Reads an unquoted literal up to the next delimiter or the end of input. */
+	private String readLiteral() throws IOException {
+		StringBuilder builder = null;
+		while (true) {
+			int p = pos;
+			while (p < limit) {
+				if (isDelimiter(buffer[p])) {
+					final String text = (builder == null)
+							? new String(buffer, pos, p - pos)
+							: builder.append(buffer, pos, p - pos).toString();
+					pos = p;
+					return text;
+				}
+				p++;
+			}
+			if (builder == null) {
+				builder = new StringBuilder();
+			}
+			builder.append(buffer, pos, p - pos);
+			pos = p;
+			if (!fill(1)) {
+				return builder.toString();
+			}
+		}
+	}
+
+	private static boolean isDelimiter(final char c) {
+		switch (c) {
+			case ' ':
+			case '\t':
+			case '\n':
+			case '\r':
+			case ',':
+			case ':':
+			case '[':
+			case ']':
+			case '{':
+			case '}':
+			case '"':
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static boolean isNumberStart(final String text) {
+		return text.length() > 0 && (text.charAt(0) == '-' || isDigit(text.charAt(0)));
+	}
+
+	/**
+	 * Matches a literal against the JSON number grammar, {@code -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?}.
+	 *
+	 * @param text literal
+	 * @return -1 if the literal is a number, otherwise the index of the first character that does not fit, which is the
+	 * literal's length if the number ends too early
+	 */
+	private static int numberError(final String text) {
+		final int length = text.length();
+		int i = 0;
+		if (i < length && text.charAt(i) == '-') {
+			i++;
+		}
+		if (i == length || !isDigit(text.charAt(i))) {
+			return i;
+		}
+		if (text.charAt(i++) != '0') {
+			i = skipDigits(text, i);
+		}
+		if (i < length && text.charAt(i) == '.') {
+			i++;
+			if (i == length || !isDigit(text.charAt(i))) {
+				return i;
+			}
+			i = skipDigits(text, i);
+		}
+		if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+			i++;
+			if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+				i++;
+			}
+			if (i == length || !isDigit(text.charAt(i))) {
+				return i;
+			}
+			i = skipDigits(text, i);
+		}
+		return (i == length) ? -1 : i;
+	}
+
+	private static int skipDigits(final String text, final int start) {
+		int i = start;
+		while (i < text.length() && isDigit(text.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean isDigit(final char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private FixtureException syntaxError(final String message) {
+		return syntaxError(message, offset + pos);
+	}
+
+	private static FixtureException syntaxError(final String message, final long position) {
+		return new FixtureException(String.format("%s at character %d", message, position));
+	}
+}
@@ -16,6 +16,7 @@
 
 package com.bigfatgun.fixjures;
 
+import com.bigfatgun.fixjures.handlers.Unmarshallers;
 import com.bigfatgun.fixjures.json.JSONSource;
 import com.bigfatgun.fixjures.serializable.ObjectInputStreamSource;
 import com.google.common.collect.*;
@@ -29,7 +30,13 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.DateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.bigfatgun.fixjures.Fixjure.Option.CASE_INSENSITIVE_CONSTANTS;
+import static com.bigfatgun.fixjures.Fixjure.Option.IMMUTABLE_COLLECTIONS;
+import static com.bigfatgun.fixjures.Fixjure.Option.LAZY_REFERENCE_EVALUATION;
+import static com.bigfatgun.fixjures.Fixjure.Option.NULL_ON_UNKNOWN_CONSTANT;
+import static com.bigfatgun.fixjures.Fixjure.Option.ORDINAL_CONSTANTS;
 import static com.bigfatgun.fixjures.Fixjure.Option.SKIP_UNMAPPABLE;
 import static org.junit.Assert.*;
 
@@ -79,6 +86,51 @@ public class FixjureTest {
 		assertEquals(expected, actual2);
 	}
 
+	@Test
+	public void immutableCollectionFixtures() {
+		final List<Integer> list = Fixjure.listOf(Integer.class).from(JSONSource.newJsonString("[ 1, 2, 3 ]")).withOptions(IMMUTABLE_COLLECTIONS).create();
+		assertTrue(list instanceof ImmutableList);
+		assertEquals(ImmutableList.of(1, 2, 3), list);
+
+		final Set<Integer> set = Fixjure.setOf(Integer.class).from(JSONSource.newJsonString("[ 1, 2, 2 ]")).withOptions(IMMUTABLE_COLLECTIONS).create();
+		assertTrue(set instanceof ImmutableSet);
+		assertEquals(ImmutableSet.of(1, 2), set);
+
+		final Multiset<Integer> multiset = Fixjure.multisetOf(Integer.class).from(JSONSource.newJsonString("[ 1, 2, 2 ]")).withOptions(IMMUTABLE_COLLECTIONS).create();
+		assertTrue(multiset instanceof ImmutableMultiset);
+		assertEquals(2, multiset.count(2));
+	}
+
+	@Test(expected = FixtureException.class)
+	public void immutableCollectionsRejectNulls() {
+		Fixjure.listOf(Integer.class).from(JSONSource.newJsonString("[ 1, null ]")).withOptions(IMMUTABLE_COLLECTIONS).create();
+	}
+
+	private static enum Color {
+		RED, GREEN, BLUE
+	}
+
+	@Test
+	public void enumFixtures() {
+		assertEquals(Color.GREEN, Fixjure.of(Color.class).from(JSONSource.newJsonString("\"GREEN\"")).create());
+		assertEquals(Color.BLUE, Fixjure.of(Color.class).from(JSONSource.newJsonString("2")).withOptions(ORDINAL_CONSTANTS).create());
+		assertEquals(Color.BLUE, Fixjure.of(Color.class).from(JSONSource.newJsonString("2.0")).withOptions(ORDINAL_CONSTANTS).create());
+		assertNull(Fixjure.of(Color.class).from(JSONSource.newJsonString("2")).withOptions(NULL_ON_UNKNOWN_CONSTANT).create());
+		assertEquals(Color.RED, Fixjure.of(Color.class).from(JSONSource.newJsonString("\"red\"")).withOptions(CASE_INSENSITIVE_CONSTANTS).create());
+		assertNull(Fixjure.of(Color.class).from(JSONSource.newJsonString("\"PURPLE\"")).withOptions(NULL_ON_UNKNOWN_CONSTANT).create());
+		assertEquals(Color.RED, Fixjure.of(Color.class).from(JSONSource.newJsonString("\"PURPLE\"")).with(Unmarshallers.enumHandler(Color.class, Color.RED)).create());
+	}
+
+	@Test(expected = FixtureException.class)
+	public void unknownEnumConstantFails() {
+		Fixjure.of(Color.class).from(JSONSource.newJsonString("\"red\"")).create();
+	}
+
+	@Test(expected = FixtureException.class)
+	public void fractionalOrdinalFails() {
+		Fixjure.of(Color.class).from(JSONSource.newJsonString("1.7")).withOptions(ORDINAL_CONSTANTS, NULL_ON_UNKNOWN_CONSTANT).create();
+	}
+
 	@Test
 	public void mapFixture() {
 		Map<String, Integer> expected = ImmutableMap.of("one", 1, "two", 2, "three", 3);
@@ -89,6 +141,26 @@ public class FixjureTest {
 		assertEquals(expected, actual2);
 	}
 
+	@Test
+	public void mapFixtureTypes() {
+		final String json = "{ \"3\" : \"three\", \"1\" : \"one\", \"2\" : \"two\" }";
+		final Map<Integer, String> expected = ImmutableMap.of(1, "one", 2, "two", 3, "three");
+
+		final Object hashMap = Fixjure.of(HashMap.class).of(Integer.class, String.class).from(JSONSource.newJsonString(json)).create();
+		assertSame(HashMap.class, hashMap.getClass());
+		assertEquals(expected, hashMap);
+
+		final LinkedHashMap<?, ?> linkedHashMap = Fixjure.of(LinkedHashMap.class).of(Integer.class, String.class).from(JSONSource.newJsonString(json)).create();
+		assertEquals(expected, linkedHashMap);
+
+		final SortedMap<?, ?> sortedMap = Fixjure.of(SortedMap.class).of(Integer.class, String.class).from(JSONSource.newJsonString(json)).create();
+		assertTrue(sortedMap instanceof ImmutableSortedMap);
+		assertEquals(ImmutableList.of(1, 2, 3), ImmutableList.copyOf(sortedMap.keySet()));
+
+		final TreeMap<?, ?> treeMap = Fixjure.of(TreeMap.class).of(Integer.class, String.class).from(JSONSource.newJsonString(json)).create();
+		assertEquals(expected, treeMap);
+	}
+
 	private static interface NyTimesChannel {
 		String getTitle();
 	}
@@ -175,6 +247,70 @@ public class FixjureTest {
 		assertNotSame(n2, fact.createFixture(NyTimes.class, "two"));
 	}
 
+	private static interface Node {
+		String getName();
+
+		Node getParent();
+	}
+
+	@Test
+	public void lazyReferencesAreResolvedOnceUntilFactoryCacheChanges() {
+		final Map<String, String> nodes = ImmutableMap.of(
+				"root", "{\"name\":\"root\"}",
+				"child", "{\"name\":\"child\", \"parent\":\"root\"}");
+		final AtomicInteger sourcesOpened = new AtomicInteger();
+		final FixtureFactory fact = FixtureFactory.newFactory(new SourceFactory() {
+			public FixtureSource newInstance(final Class<?> type, final String name) {
+				sourcesOpened.incrementAndGet();
+				return JSONSource.newJsonString(nodes.get(name));
+			}
+		}).enableOption(LAZY_REFERENCE_EVALUATION);
+
+		final Node child = fact.createFixture(Node.class, "child");
+		assertEquals(1, sourcesOpened.get());
+		final Node root = child.getParent();
+		assertEquals("root", root.getName());
+		assertSame(root, child.getParent());
+		assertEquals(2, sourcesOpened.get());
+
+		final Node replacement = Fixjure.of(Node.class).from(JSONSource.newJsonString("{\"name\":\"new root\"}")).create();
+		fact.cache(Node.class, replacement, "root");
+		assertSame(replacement, child.getParent());
+
+		fact.expireCache();
+		assertEquals("root", child.getParent().getName());
+		assertEquals(3, sourcesOpened.get());
+	}
+
+	@Test
+	public void cacheChangesOnlyRefreshReferencesToTheChangedEntry() {
+		final Map<String, String> nodes = ImmutableMap.of(
+				"root", "{\"name\":\"root\"}",
+				"other", "{\"name\":\"other\"}",
+				"child", "{\"name\":\"child\", \"parent\":\"root\"}");
+		final AtomicInteger sourcesOpened = new AtomicInteger();
+		final FixtureFactory fact = FixtureFactory.newFactory(new SourceFactory() {
+			public FixtureSource newInstance(final Class<?> type, final String name) {
+				sourcesOpened.incrementAndGet();
+				return JSONSource.newJsonString(nodes.get(name));
+			}
+		}).enableOption(LAZY_REFERENCE_EVALUATION);
+
+		final Node child = fact.createFixture(Node.class, "child");
+		final Node root = child.getParent();
+		assertEquals(2, sourcesOpened.get());
+
+		fact.cache(Node.class, Fixjure.of(Node.class).from(JSONSource.newJsonString("{\"name\":\"new other\"}")).create(), "other");
+		fact.uncache(Node.class, "child");
+		assertSame(root, child.getParent());
+		assertEquals(2, sourcesOpened.get());
+
+		fact.uncache(Node.class, "root");
+		assertEquals("root", child.getParent().getName());
+		assertNotSame(root, child.getParent());
+		assertEquals(3, sourcesOpened.get());
+	}
+
 	@Test @Ignore
 	public void factoryWithStrategy() {
 //		FixtureFactory fact = FixtureFactory.newJsonFactory(Strategies.newClasspathStrategy(Strategies.DEFAULT_CLASSPATH_NAME_STRATEGY));
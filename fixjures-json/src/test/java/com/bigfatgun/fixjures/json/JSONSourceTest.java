@@ -16,21 +16,43 @@
 
 package com.bigfatgun.fixjures.json;
 
+import com.bigfatgun.fixjures.FileSources;
 import com.bigfatgun.fixjures.Fixjure;
 import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.FixtureType;
+import com.bigfatgun.fixjures.proxy.ObjectProxyData;
+import com.bigfatgun.fixjures.handlers.AbstractUnmarshaller;
+import com.bigfatgun.fixjures.handlers.ChainedUnmarshaller;
+import com.bigfatgun.fixjures.handlers.StreamingUnmarshaller;
+import com.bigfatgun.fixjures.handlers.Unmarshaller;
+import com.bigfatgun.fixjures.handlers.Unmarshallers;
+import com.bigfatgun.fixjures.handlers.UnmarshallingContext;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
+import com.google.common.io.Files;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 @SuppressWarnings({"unchecked"})
 public class JSONSourceTest {
@@ -146,6 +168,28 @@ public class JSONSourceTest {
 		JSONSource.newJsonFile(new File("foo"));
 	}
 
+	@Test
+	public void mappedFilesAreParsedDirectly() throws IOException {
+		final StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 20000; i++) {
+			json.append(i == 0 ? "" : ", ").append("{ \"bar\" : \"b\u00e4r ").append(i).append("\" }");
+		}
+		final File file = File.createTempFile("fixjures", ".json");
+		file.deleteOnExit();
+		Files.write(json.append(']'), file, Charsets.UTF_8);
+
+		final long threshold = FileSources.getMmapThreshold();
+		FileSources.setMmapThreshold(0);
+		try {
+			final List<Foo> foos = Fixjure.listOf(Foo.class).from(JSONSource.newJsonFile(file)).create();
+			assertEquals(20000, foos.size());
+			assertEquals("b\u00e4r 19999", foos.get(19999).getBar());
+		} finally {
+			FileSources.setMmapThreshold(threshold);
+			file.delete();
+		}
+	}
+
 	@Test(expected = RuntimeException.class)
 	public void attemptToConvertListToUnknownCollectionType() throws Exception {
 		assertNull(Fixjure.of(Complex.class).from(JSONSource.newJsonString("{ str : [1, 2] }")).create().getStr());
@@ -236,4 +280,94 @@ public class JSONSourceTest {
 		assertEquals(2L, m.get(2).longValue());
 		assertEquals(10000000000L, m.get(3).longValue());
 	}
+
+	@Test
+	public void arrayElementsAreStreamedOneAtATime() throws Exception {
+		final StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 10000; i++) {
+			json.append(i == 0 ? "" : ",").append("{\"bar\":\"").append(i).append("\"}");
+		}
+		json.append("]");
+		final byte[] bytes = json.toString().getBytes(Charsets.UTF_8);
+		final AtomicLong bytesRead = new AtomicLong();
+		final ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(bytes));
+		final ReadableByteChannel countingChannel = new ReadableByteChannel() {
+			public int read(final ByteBuffer dst) throws IOException {
+				final int read = channel.read(dst);
+				bytesRead.addAndGet(Math.max(read, 0));
+				return read;
+			}
+
+			public boolean isOpen() {
+				return channel.isOpen();
+			}
+
+			public void close() throws IOException {
+				channel.close();
+			}
+		};
+
+		final Iterator<Foo> foos = Fixjure.of(Foo.class).fromStream(JSONSource.streamJson(countingChannel)).createAll().iterator();
+		assertEquals("0", foos.next().getBar());
+		assertTrue(bytesRead.get() < bytes.length / 4);
+
+		int count = 1;
+		while (foos.hasNext()) {
+			assertEquals(String.valueOf(count++), foos.next().getBar());
+		}
+		assertEquals(10000, count);
+	}
+
+	@Test
+	public void nonArrayStreamsHaveOneElement() {
+		assertEquals(ImmutableList.of("x"), ImmutableList.copyOf(Fixjure.of(String.class).fromStream(JSONSource.streamJsonString(" \"x\" ")).createAll()));
+	}
+
+	public static interface Shape {
+		String getKind();
+	}
+
+	@Test
+	public void installedHandlersCanChooseByContent() {
+		final AbstractUnmarshaller<Shape> kindHandler = new AbstractUnmarshaller<Shape>(Map.class, Shape.class) {
+			@Override
+			public boolean canUnmarshallObjectToType(final Object obj, final FixtureType desiredType) {
+				return super.canUnmarshallObjectToType(obj, desiredType) && obj != null && ((Map) obj).containsKey("kind");
+			}
+
+			public Supplier<Shape> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+				final Object kind = castSourceValue(Map.class, source).get("kind");
+				return Suppliers.<Shape>ofInstance(new Shape() {
+					public String getKind() {
+						return "custom " + kind;
+					}
+				});
+			}
+		};
+
+		final List<Shape> shapes = Fixjure.listOf(Shape.class).from(JSONSource.newJsonString("[ { \"kind\" : \"a\" }, { \"kind\" : \"b\" } ]")).with(kindHandler).create();
+		assertEquals("custom a", shapes.get(0).getKind());
+		assertEquals("custom b", shapes.get(1).getKind());
+		assertEquals("custom c", Fixjure.of(Shape.class).from(JSONSource.newJsonString("{ \"kind\" : \"c\" }")).with(kindHandler).create().getKind());
+	}
+
+	@Test
+	public void chainsConvertParsedObjects() {
+		final ChainedUnmarshaller<ObjectProxyData> upperCase = new ChainedUnmarshaller<ObjectProxyData>(Map.class, ObjectProxyData.class) {
+			public Supplier<ObjectProxyData> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+				final Object kind = castSourceValue(Map.class, source).get("kind");
+				return Suppliers.ofInstance(ObjectProxyData.copyOf(ImmutableMap.of("kind", String.valueOf(kind).toUpperCase())));
+			}
+		};
+		assertFalse(upperCase.link(Unmarshallers.newObjectProxyHandler()) instanceof StreamingUnmarshaller);
+
+		final Unmarshaller<?> proxies = Unmarshallers.newObjectProxyHandler();
+		final Unmarshaller<Shape> chain = upperCase.link(new AbstractUnmarshaller<Shape>(ObjectProxyData.class, Shape.class) {
+			public Supplier<? extends Shape> unmarshall(final UnmarshallingContext helper, final Object source, final FixtureType typeDef) {
+				return Suppliers.ofInstance(Shape.class.cast(proxies.unmarshall(helper, source, typeDef).get()));
+			}
+		});
+		final List<Shape> shapes = Fixjure.listOf(Shape.class).from(JSONSource.newJsonString("[ { \"kind\" : \"a\" } ]")).with(chain).create();
+		assertEquals("A", shapes.get(0).getKind());
+	}
 }
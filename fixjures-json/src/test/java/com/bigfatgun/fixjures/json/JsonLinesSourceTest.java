@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.json;
+
+import com.bigfatgun.fixjures.Fixjure;
+import com.bigfatgun.fixjures.FixtureException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class JsonLinesSourceTest {
+
+	public static interface Row {
+		int getId();
+
+		List<String> getTags();
+	}
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@After
+	public void shutdownExecutor() {
+		executor.shutdownNow();
+	}
+
+	private static String rows(final int count) {
+		final StringBuilder lines = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			lines.append("{\"id\": ").append(i).append(", \"tags\": [\"t").append(i).append("\"]}\n");
+			if (i % 10 == 0) {
+				lines.append("\r\n");
+			}
+		}
+		return lines.toString();
+	}
+
+	private static List<Integer> ids(final Iterable<Row> rows) {
+		final List<Integer> ids = Lists.newArrayList();
+		for (final Row row : rows) {
+			assertEquals(ImmutableList.of("t" + row.getId()), row.getTags());
+			ids.add(row.getId());
+		}
+		return ids;
+	}
+
+	private static List<Integer> range(final int count) {
+		final List<Integer> range = Lists.newArrayList();
+		for (int i = 0; i < count; i++) {
+			range.add(i);
+		}
+		return range;
+	}
+
+	@Test
+	public void linesAreDecodedInOrder() {
+		final JsonLinesSource source = JsonLinesSource.newJsonLinesString(rows(100));
+		assertEquals(range(100), ids(Fixjure.of(Row.class).fromStream(source).createAll()));
+	}
+
+	@Test
+	public void chunksAreDecodedInParallelInOrder() {
+		final JsonLinesSource source = JsonLinesSource.newJsonLinesString(rows(5000)).decodeWith(executor, 64, true);
+		assertEquals(range(5000), ids(Fixjure.of(Row.class).fromStream(source).createAll()));
+	}
+
+	@Test
+	public void chunksAreDecodedInParallelUnordered() {
+		final JsonLinesSource source = JsonLinesSource.newJsonLinesString(rows(5000)).decodeWith(executor, 7, false);
+		final List<Integer> ids = ids(Fixjure.of(Row.class).fromStream(source).createAll());
+		assertEquals(5000, ids.size());
+		assertEquals(Sets.newHashSet(range(5000)), Sets.newHashSet(ids));
+	}
+
+	@Test
+	public void malformedLinesStopParallelStreamsWhereSerialStreamsStop() {
+		final String lines = rows(50) + "{\"id\": }\n" + rows(10);
+		final List<Integer> serial = ids(Fixjure.of(Row.class).fromStream(JsonLinesSource.newJsonLinesString(lines)).createAll());
+		final List<Integer> parallel = ids(Fixjure.of(Row.class).fromStream(JsonLinesSource.newJsonLinesString(lines).decodeWith(executor, 16, true)).createAll());
+		assertEquals(range(50), serial);
+		assertEquals(serial, parallel);
+	}
+
+	@Test
+	public void malformedLinesFailInPlaceInParallel() {
+		final JsonLinesSource source = JsonLinesSource.newJsonLinesString(rows(3) + "{\"id\": }\n" + "{\"id\": 3, \"tags\": [\"t3\"]}\n").decodeWith(executor, 16, true);
+		final Fixjure.StreamedFixtureBuilder<Row> rows = Fixjure.of(Row.class).fromStream(source);
+		assertEquals(range(3), ids(rows.createAll()));
+		assertEquals(ImmutableList.of(3), ids(rows.createAll()));
+	}
+
+	@Test
+	public void parallelErrorsNameTheLine() {
+		try {
+			Fixjure.of(Row.class).from(JsonLinesSource.newJsonLinesString("\n{\"id\": }\n").decodeWith(executor, 16, true)).create();
+			fail();
+		} catch (FixtureException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2:"));
+		}
+	}
+
+	@Test
+	public void errorsNameTheLine() {
+		try {
+			Fixjure.of(Row.class).from(JsonLinesSource.newJsonLinesString("\n{\"id\": }\n")).create();
+			fail();
+		} catch (FixtureException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2:"));
+		}
+	}
+}
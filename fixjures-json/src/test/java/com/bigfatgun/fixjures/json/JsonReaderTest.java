@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.json;
+
+import com.bigfatgun.fixjures.FixtureException;
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class JsonReaderTest {
+
+	/** Hands out at most one character per read, so every token straddles a chunk boundary. */
+	private static final class TrickleReader extends Reader {
+
+		private final Reader delegate;
+
+		private TrickleReader(final String source) {
+			this.delegate = new StringReader(source);
+		}
+
+		@Override
+		public int read(final char[] buffer, final int off, final int len) throws IOException {
+			return delegate.read(buffer, off, Math.min(len, 1));
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+	}
+
+	private static Object read(final String json) throws IOException {
+		return JsonReader.newReader(Channels.newChannel(new ByteArrayInputStream(json.getBytes(Charsets.UTF_8))), Charsets.UTF_8).readDocument();
+	}
+
+	@Test
+	public void readsValues() throws IOException {
+		assertEquals("foo", read(" \"foo\" "));
+		assertEquals(12L, read("12"));
+		assertEquals(-1.5e3, read("-1.5e3"));
+		assertEquals(Boolean.TRUE, read("true"));
+		assertNull(read("null"));
+		assertEquals(new BigInteger("123456789012345678901234567890"), read("123456789012345678901234567890"));
+		assertEquals(Long.MIN_VALUE, read(String.valueOf(Long.MIN_VALUE)));
+		assertEquals(ImmutableList.of(), read("[]"));
+		assertEquals(ImmutableMap.of(), read("{}"));
+	}
+
+	@Test
+	public void readsNestedValuesInOrder() throws IOException {
+		final Map<?, ?> map = (Map<?, ?>) read("{\"b\": [1, {\"c\": null}], \"a\": \"x\\ty\\u00e9\\\"\"}");
+		assertEquals(Arrays.asList("b", "a"), ImmutableList.copyOf(map.keySet()));
+		assertEquals("x\ty\u00e9\"", map.get("a"));
+		final List<?> list = (List<?>) map.get("b");
+		assertEquals(1L, list.get(0));
+		assertTrue(((Map<?, ?>) list.get(1)).containsKey("c"));
+	}
+
+	@Test
+	public void readsAcrossChunkBoundaries() throws IOException {
+		final String big = Strings.repeat("\u00e9x", 10000);
+		final String json = "{\"key\\n\": [\"" + big + "\", 1234567, true, \"\\u0041\"]}";
+		final Object value = new JsonReader(new TrickleReader(json)).readDocument();
+		assertEquals(ImmutableMap.of("key\n", Arrays.asList(big, 1234567L, true, "A")), value);
+		assertEquals(value, read(json));
+	}
+
+	@Test
+	public void stepsThroughTokens() throws IOException {
+		final JsonReader reader = new JsonReader(new StringReader("[{\"skip\": {\"a\": [1, 2]}, \"keep\": 3}]"));
+		reader.beginArray();
+		reader.beginObject();
+		assertEquals(JsonReader.Token.NAME, reader.peek());
+		assertEquals("skip", reader.nextName());
+		reader.skipValue();
+		assertEquals("keep", reader.nextName());
+		assertEquals(3L, reader.nextNumber());
+		assertFalse(reader.hasNext());
+		reader.endObject();
+		reader.endArray();
+		assertEquals(JsonReader.Token.END_DOCUMENT, reader.peek());
+	}
+
+	@Test(expected = FixtureException.class)
+	public void unquotedNamesAreRejected() throws IOException {
+		read("{ foo : 1 }");
+	}
+
+	@Test(expected = FixtureException.class)
+	public void trailingCommasAreRejected() throws IOException {
+		read("[1, 2, ]");
+	}
+
+	@Test(expected = FixtureException.class)
+	public void trailingDataIsRejected() throws IOException {
+		read("{} {}");
+	}
+
+	@Test(expected = FixtureException.class)
+	public void unterminatedStringsAreRejected() throws IOException {
+		read("[\"abc");
+	}
+
+	@Test(expected = FixtureException.class)
+	public void emptyDocumentsAreRejected() throws IOException {
+		read("  ");
+	}
+
+	@Test
+	public void numbersFollowTheJsonGrammar() throws IOException {
+		assertEquals(0L, read("0"));
+		assertEquals(-0.0, read("-0.0"));
+		assertEquals(1.5e-3, read("1.5E-3"));
+		assertEquals(ImmutableList.of(10L, 2e10), read("[10,2e+10]"));
+	}
+
+	@Test
+	public void malformedNumbersAreRejectedWhereTheyGoWrong() throws IOException {
+		assertMalformed("[1-2]", "Malformed number 1-2 at character 3");
+		assertMalformed("[1e]", "Malformed number 1e at character 4");
+		assertMalformed("-", "Malformed number - at character 2");
+		assertMalformed(" 007", "Malformed number 007 at character 3");
+		assertMalformed("[1.]", "Malformed number 1. at character 4");
+		assertMalformed("[-.5]", "Malformed number -.5 at character 3");
+	}
+
+	private static void assertMalformed(final String json, final String message) throws IOException {
+		try {
+			read(json);
+			fail(json);
+		} catch (FixtureException e) {
+			assertEquals(message, e.getMessage());
+		}
+	}
+}
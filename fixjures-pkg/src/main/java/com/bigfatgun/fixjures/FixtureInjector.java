@@ -9,7 +9,9 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -80,13 +82,35 @@ public class FixtureInjector {
 		}
 	}
 
+	private static class AnnotatedFieldTarget implements FixtureInjectionTarget {
+
+		private final Fixture a;
+		private final Field f;
+
+		public AnnotatedFieldTarget(final Field field, final Fixture fixture) {
+			a = fixture;
+			f = field;
+			f.setAccessible(true);
+		}
+
+		public void invoke(final Object obj) {
+			try {
+				f.set(obj, newFactory(obj.getClass().getClassLoader(), a).createFixture(f.getType(), a.value()));
+			} catch (Exception e) {
+				convertAndThrowAs(e);
+			}
+		}
+	}
+
 	/**
-	 * Scans an object for methods annotated with {@code @Fixture} and attempts to create stubs to passed into them.
+	 * Scans an object for fields and methods annotated with {@code @Fixture} and attempts to create stubs to set or pass
+	 * into them.
 	 *
 	 * @param obj object to scan
 	 */
 	public static void scan(final Object obj) {
 		final ImmutableSet<FixtureInjectionTarget> targets = ImmutableSet.<FixtureInjectionTarget>builder()
+				.addAll(INSTANCE.findAnnotatedFields(obj))
 				.addAll(INSTANCE.findAnnotatedMethods(obj))
 				.addAll(INSTANCE.findAnnotatedMethodParameters(obj))
 				.build();
@@ -105,6 +129,23 @@ public class FixtureInjector {
 		);
 	}
 
+	private Iterable<AnnotatedFieldTarget> findAnnotatedFields(final Object obj) {
+		assert obj != null : "Object cannot be null.";
+
+		final ImmutableSet.Builder<AnnotatedFieldTarget> builder = ImmutableSet.builder();
+		for (Class<?> cls = obj.getClass(); cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+			for (final Field f : cls.getDeclaredFields()) {
+				if (f.isAnnotationPresent(Fixture.class)) {
+					if (Modifier.isStatic(f.getModifiers())) {
+						throw new FixtureException("Fields annotated with @Fixture cannot be static.");
+					}
+					builder.add(new AnnotatedFieldTarget(f, f.getAnnotation(Fixture.class)));
+				}
+			}
+		}
+		return builder.build();
+	}
+
 	private Iterable<AnnotatedMethodTarget> findAnnotatedMethods(final Object obj) {
 		assert obj != null : "Object cannot be null.";
 
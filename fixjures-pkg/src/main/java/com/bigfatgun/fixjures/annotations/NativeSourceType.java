@@ -1,12 +1,13 @@
 package com.bigfatgun.fixjures.annotations;
 
+import com.bigfatgun.fixjures.FileSources;
 import com.bigfatgun.fixjures.FixtureException;
 import com.google.common.base.Charsets;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 
@@ -45,7 +46,7 @@ public enum NativeSourceType implements SourceType {
 		@Override
 		public ReadableByteChannel openStream(final ClassLoader clsLoader, final String filename) {
 			try {
-				return new RandomAccessFile(filename, "r").getChannel();
+				return FileSources.open(new File(filename));
 			} catch (FileNotFoundException e) {
 				throw FixtureException.convert(e);
 			}
@@ -37,6 +37,14 @@ public class FixtureInjectorTest {
 		assertNotNull(ctor.newInstance());
 	}
 
+	@Test
+	public void annotatedFieldsAreInjected() {
+		final FieldBean bean = new FieldBean();
+		FixtureInjector.scan(bean);
+		assertEquals("value of name", bean.name);
+		assertEquals(42, bean.count.intValue());
+	}
+
 	@Test(expected = FixtureException.class)
 	public void badMarkup1() throws Exception {
 		FixtureInjector.scan(new BadBean1());
@@ -90,6 +98,15 @@ public class FixtureInjectorTest {
 		}
 	}
 
+	private static class FieldBean {
+
+		@Fixture(value = "\"value of name\"")
+		private String name;
+
+		@Fixture(value = "42")
+		private Integer count;
+	}
+
 	private static class BadBean1 {
 
 		private String foo;
@@ -17,16 +17,16 @@
 package com.bigfatgun.fixjures.yaml;
 
 import com.bigfatgun.fixjures.*;
-import com.bigfatgun.fixjures.proxy.ObjectProxyData;
-import com.google.common.base.Supplier;
-import org.ho.yaml.Yaml;
+import com.bigfatgun.fixjures.handlers.TokenUnmarshaller;
+import yaml.parser.YamlParser;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
-import java.util.Map;
 
 import static com.bigfatgun.fixjures.FixtureException.convert;
 
@@ -39,7 +39,11 @@ public class YamlSource extends FixtureSource {
 	}
 
 	public static FixtureSource newYamlStream(ReadableByteChannel channel) {
-		return new YamlSource(Channels.newInputStream(channel));
+		return new YamlSource(channel);
+	}
+
+	public static FixtureSource newYamlFile(File file) throws FileNotFoundException {
+		return new YamlSource(FileSources.open(file));
 	}
 
     public static FixtureSource newYamlString(String yaml) {
@@ -47,18 +51,35 @@ public class YamlSource extends FixtureSource {
     }
 
 	private YamlSource(InputStream input) {
-		super(Channels.newChannel(input));
+		this(Channels.newChannel(input));
+	}
+
+	private YamlSource(ReadableByteChannel channel) {
+		super(channel);
 	}
 
 	@Override
 	protected Object createFixture(FixtureType type) {
 		try {
-			Object object = Yaml.load(Channels.newInputStream(getSource()));
-			final Supplier<?> provider = findValue(type, object);
-			final Object value = provider.get();
-			return type.getType().cast(value);
+			final TokenUnmarshaller unmarshaller = newTokenUnmarshaller(type);
+			final YamlTokenizer tokenizer = new YamlTokenizer(unmarshaller);
+			new YamlParser(FileSources.newReader(getSource(), FileSources.newDecoder(getCharset()), -1), tokenizer).parse();
+			if (!tokenizer.isComplete()) {
+				throw new FixtureException("YAML source ended before its first document was complete.");
+			}
+			return type.getType().cast(unmarshaller.getValue());
 		} catch (Exception e) {
 			throw convert(e);
 		}
 	}
+
+	/**
+	 * Returns true; any tree handed to an unmarshaller is parsed for one fixture alone.
+	 * <p/>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSourceDataImmutable() {
+		return true;
+	}
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2010 Steve Reed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bigfatgun.fixjures.yaml;
+
+import com.bigfatgun.fixjures.FixtureException;
+import com.bigfatgun.fixjures.handlers.TokenSink;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.ho.yaml.Utilities;
+import yaml.parser.ParserEvent;
+import yaml.parser.YamlParser;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the events of jyaml's parser into tokens for a {@link TokenSink}, converting plain scalars the way {@code
+ * Yaml.load} does. Only the first document is read.
+ * <p/>
+ * Anchored values are recorded as tokens while they are parsed and replayed wherever they are aliased, so an alias
+ * produces an equal value rather than the same instance.
+ *
+ * @author Steve Reed
+ */
+final class YamlTokenizer implements ParserEvent {
+
+	private static final int LIST = 0;
+	private static final int MAP_KEY = 1;
+	private static final int MAP_VALUE = 2;
+
+	private static enum Kind {
+		BEGIN_OBJECT,
+		NAME,
+		END_OBJECT,
+		BEGIN_ARRAY,
+		END_ARRAY,
+		VALUE
+	}
+
+	/** The tokens of an anchored value. */
+	private static final class Recording {
+
+		private final String anchor;
+		private final List<Kind> kinds = Lists.newArrayList();
+		private final List<Object> values = Lists.newArrayList();
+		private int depth = 0;
+
+		private Recording(final String anchor) {
+			this.anchor = anchor;
+		}
+
+		/**
+		 * @return true once the anchored value is complete
+		 */
+		private boolean record(final Kind kind, final Object value) {
+			kinds.add(kind);
+			values.add(value);
+			if (kind == Kind.BEGIN_OBJECT || kind == Kind.BEGIN_ARRAY) {
+				depth++;
+			} else if (kind == Kind.END_OBJECT || kind == Kind.END_ARRAY) {
+				depth--;
+			}
+			return depth == 0 && kind != Kind.NAME;
+		}
+	}
+
+	private final TokenSink sink;
+	private final LinkedList<Integer> scopes = Lists.newLinkedList();
+	private final Map<String, Recording> anchors = Maps.newHashMap();
+	private final List<Recording> recordings = Lists.newLinkedList();
+	private String pendingKey = null;
+	private String pendingAnchor = null;
+	private String pendingTransfer = null;
+	private boolean started = false;
+
+	YamlTokenizer(final TokenSink sink) {
+		this.sink = checkNotNull(sink);
+	}
+
+	/**
+	 * @return true once the first document's value has been passed to the sink
+	 */
+	boolean isComplete() {
+		return started && scopes.isEmpty();
+	}
+
+	public void event(final int event) {
+		if (isComplete()) {
+			return;
+		}
+
+		switch (event) {
+			case YamlParser.MAP_OPEN:
+				beginValue();
+				scopes.push(MAP_KEY);
+				emit(Kind.BEGIN_OBJECT, null);
+				break;
+			case YamlParser.LIST_OPEN:
+				beginValue();
+				scopes.push(LIST);
+				emit(Kind.BEGIN_ARRAY, null);
+				break;
+			case YamlParser.MAP_SEPARATOR:
+				if (!scopes.isEmpty() && scopes.peek() == MAP_KEY) {
+					scopes.set(0, MAP_VALUE);
+					emit(Kind.NAME, pendingKey);
+					pendingKey = null;
+				}
+				break;
+			case YamlParser.MAP_CLOSE:
+				scopes.pop();
+				emit(Kind.END_OBJECT, null);
+				break;
+			case YamlParser.LIST_CLOSE:
+				scopes.pop();
+				emit(Kind.END_ARRAY, null);
+				break;
+			default:
+				break;
+		}
+	}
+
+	public void event(final String event) {
+	}
+
+	public void content(final String type, final String content) {
+		if (isComplete()) {
+			return;
+		} else if (!scopes.isEmpty() && scopes.peek() == MAP_KEY) {
+			pendingKey = content;
+			return;
+		}
+
+		if ("alias".equals(type)) {
+			final Recording recording = anchors.get(content.substring(1));
+			if (recording == null) {
+				throw new FixtureException("Unknown YAML alias " + content);
+			}
+			beginValue();
+			final Iterator<Object> values = recording.values.iterator();
+			for (final Kind kind : recording.kinds) {
+				emit(kind, values.next());
+			}
+		} else {
+			final Object value;
+			if (!"value".equals(type) || (pendingTransfer != null && pendingTransfer.endsWith("str"))) {
+				value = content;
+			} else if ("~".equals(content) || "null".equals(content)) {
+				value = null;
+			} else {
+				value = Utilities.decodeSimpleType(content);
+			}
+			beginValue();
+			emit(Kind.VALUE, value);
+		}
+	}
+
+	public void property(final String type, final String value) {
+		if ("anchor".equals(type)) {
+			pendingAnchor = value.substring(1);
+		} else if ("transfer".equals(type)) {
+			pendingTransfer = value;
+		}
+	}
+
+	public void error(final Exception e, final int line) {
+		throw FixtureException.convert(String.format("Error near line %d of YAML source.", line), e);
+	}
+
+	/** Called as a value starts, to consume the entry it belongs to and any anchor on it. */
+	private void beginValue() {
+		started = true;
+		if (!scopes.isEmpty() && scopes.peek() == MAP_VALUE) {
+			scopes.set(0, MAP_KEY);
+		}
+		if (pendingAnchor != null) {
+			recordings.add(new Recording(pendingAnchor));
+			pendingAnchor = null;
+		}
+		pendingTransfer = null;
+	}
+
+	private void emit(final Kind kind, final Object value) {
+		for (final Iterator<Recording> i = recordings.iterator(); i.hasNext();) {
+			final Recording recording = i.next();
+			if (recording.record(kind, value)) {
+				anchors.put(recording.anchor, recording);
+				i.remove();
+			}
+		}
+
+		switch (kind) {
+			case BEGIN_OBJECT:
+				sink.beginObject();
+				break;
+			case NAME:
+				sink.name((String) value);
+				break;
+			case END_OBJECT:
+				sink.endObject();
+				break;
+			case BEGIN_ARRAY:
+				sink.beginArray();
+				break;
+			case END_ARRAY:
+				sink.endArray();
+				break;
+			default:
+				sink.value(value);
+		}
+	}
+}
@@ -23,6 +23,9 @@ import com.bigfatgun.fixjures.Strategies;
 import com.google.common.collect.ImmutableSet;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
@@ -46,6 +49,36 @@ public class YamlTest {
 		assertEquals(ImmutableSet.of("Sir Yamls-a-lot", "Banana Yaml", "Yaml Ama Ding Dong"), obj.getNicknames());
 	}
 
+	private interface Family {
+		MyObject getParent();
+		List<MyObject> getChildren();
+	}
+
+	@Test
+	public void aliasesRepeatAnchoredValues() {
+		final Family family = Fixjure.of(Family.class).from(YamlSource.newYamlString(
+				"parent: &p\n" +
+				"  name: &n yaml\n" +
+				"  favoriteNumber: 7\n" +
+				"children:\n" +
+				"  - *p\n" +
+				"  - name: *n\n" +
+				"    value: !!str 12\n")).create();
+		assertEquals("yaml", family.getParent().getName());
+		assertEquals(7L, family.getParent().getFavoriteNumber());
+		assertEquals(2, family.getChildren().size());
+		assertEquals(7L, family.getChildren().get(0).getFavoriteNumber());
+		assertEquals("yaml", family.getChildren().get(1).getName());
+		assertEquals("12", family.getChildren().get(1).getValue());
+	}
+
+	@Test
+	public void malformedBytesAreReplaced() {
+		final byte[] yaml = {'n', 'a', 'm', 'e', ':', ' ', 'a', (byte) 0xff, 'b', '\n'};
+		final MyObject obj = Fixjure.of(MyObject.class).from(YamlSource.newYamlStream(Channels.newChannel(new ByteArrayInputStream(yaml)))).create();
+		assertEquals("a\ufffdb", obj.getName());
+	}
+
 	@Test
 	public void yamlFactory() {
         Strategies.SourceStrategy strategy = Strategies.newResourceStrategy(getClass().getClassLoader(), Strategies.newFormatStringStrategy("%2$s"));